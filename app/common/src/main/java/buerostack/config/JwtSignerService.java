@@ -1,24 +1,50 @@
 package buerostack.config;
-import com.nimbusds.jose.*; import com.nimbusds.jose.crypto.*; import com.nimbusds.jose.jwk.*; import com.nimbusds.jwt.*;
-import java.io.FileInputStream; import java.security.*; import java.security.cert.Certificate; import java.time.Instant; import java.util.*;
+import com.nimbusds.jose.*; import com.nimbusds.jose.jwk.*; import com.nimbusds.jose.util.Base64URL; import com.nimbusds.jwt.*;
+import java.io.FileInputStream; import java.nio.charset.StandardCharsets; import java.security.*; import java.security.cert.Certificate; import java.security.interfaces.RSAPublicKey; import java.time.Instant; import java.time.temporal.ChronoUnit; import java.util.*;
 public class JwtSignerService {
-  private final RSAKey rsaJwk; private final JWSHeader header;
-  public JwtSignerService(String path,String type,String pass,String alias){
+  // Signer/verifier state is built once per key ID; sign and verify only touch per-thread JCA instances
+  private final Map<String,RsaKeyHandle> keys; private final RsaKeyHandle activeKey; private final String headerB64; private final String publicJwkSet;
+  public JwtSignerService(String path,String type,String pass,String alias){ this(loadKeyStore(path,type,pass),pass,alias); }
+  private JwtSignerService(KeyStore ks,String pass,String alias){
     try{
-      KeyStore ks=KeyStore.getInstance(type); try(FileInputStream in=new FileInputStream(path.replace("file:",""))){ ks.load(in, pass.toCharArray()); }
       PrivateKey pk=(PrivateKey)ks.getKey(alias, pass.toCharArray()); Certificate cert=ks.getCertificate(alias);
-      rsaJwk=new RSAKey.Builder((java.security.interfaces.RSAPublicKey)cert.getPublicKey()).privateKey(pk).keyID(alias).build();
-      header=new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(rsaJwk.getKeyID()).build();
+      activeKey=new RsaKeyHandle(alias,(RSAPublicKey)cert.getPublicKey(),pk); keys=Map.of(alias,activeKey);
+      headerB64=new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(alias).build().toBase64URL().toString();
+      publicJwkSet=new JWKSet(new RSAKey.Builder(activeKey.getPublicKey()).keyID(alias).build()).toJSONObject().toString();
     }catch(Exception e){ throw new RuntimeException(e); }
   }
+  /** Key material supplied directly, e.g. from a generated key pair in benchmarks and tests. */
+  public JwtSignerService(RSAPublicKey publicKey,PrivateKey privateKey,String keyId){
+    activeKey=new RsaKeyHandle(keyId,publicKey,privateKey); keys=Map.of(keyId,activeKey);
+    headerB64=new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build().toBase64URL().toString();
+    publicJwkSet=new JWKSet(new RSAKey.Builder(publicKey).keyID(keyId).build()).toJSONObject().toString();
+  }
+  private static KeyStore loadKeyStore(String path,String type,String pass){
+    try{ KeyStore ks=KeyStore.getInstance(type); try(FileInputStream in=new FileInputStream(path.replace("file:",""))){ ks.load(in, pass.toCharArray()); } return ks; }catch(Exception e){ throw new RuntimeException(e); }
+  }
   public String sign(Map<String,Object> identity,String iss,String aud,long ttl) throws JOSEException {
-    Instant now=Instant.now(); JWTClaimsSet.Builder cb=new JWTClaimsSet.Builder().issuer(iss).issueTime(Date.from(now)).expirationTime(Date.from(now.plusSeconds(ttl))).jwtID(UUID.randomUUID().toString()).audience(aud);
-    identity.forEach(cb::claim); SignedJWT jwt=new SignedJWT(header, cb.build()); jwt.sign(new RSASSASigner(rsaJwk)); return jwt.serialize();
+    return sign(identity, iss, aud==null ? null : List.of(aud), ttl);
   }
   public String sign(Map<String,Object> identity,String iss,List<String> audiences,long ttl) throws JOSEException {
-    Instant now=Instant.now(); JWTClaimsSet.Builder cb=new JWTClaimsSet.Builder().issuer(iss).issueTime(Date.from(now)).expirationTime(Date.from(now.plusSeconds(ttl))).jwtID(UUID.randomUUID().toString());
-    cb.audience(audiences); identity.forEach(cb::claim); SignedJWT jwt=new SignedJWT(header, cb.build()); jwt.sign(new RSASSASigner(rsaJwk)); return jwt.serialize();
+    return signWithClaims(identity, iss, audiences, ttl).getToken();
+  }
+  /** Sign and return the token with the claims set it carries, so callers need not parse it back. */
+  public SignedToken signWithClaims(Map<String,Object> identity,String iss,List<String> audiences,long ttl) throws JOSEException {
+    // Whole seconds, as serialized, so the returned claims equal what a parse of the token would give
+    Instant now=Instant.now().truncatedTo(ChronoUnit.SECONDS); JWTClaimsSet.Builder cb=new JWTClaimsSet.Builder().issuer(iss).issueTime(Date.from(now)).expirationTime(Date.from(now.plusSeconds(ttl))).jwtID(UUID.randomUUID().toString());
+    cb.audience(audiences); identity.forEach(cb::claim); JWTClaimsSet claims=cb.build(); return new SignedToken(serialize(claims), claims);
+  }
+  private String serialize(JWTClaimsSet claims) throws JOSEException {
+    String signingInput=headerB64+"."+Base64URL.encode(claims.toString());
+    try{ return signingInput+"."+Base64URL.encode(activeKey.sign(signingInput.getBytes(StandardCharsets.US_ASCII))); }catch(GeneralSecurityException e){ throw new JOSEException(e.getMessage(), e); }
+  }
+  public boolean verify(String token){ try{ return verify(ParsedToken.parse(token)); }catch(Exception e){ return false; } }
+  public boolean verify(ParsedToken token){
+    JWSHeader h=token.getHeader();
+    // Only RS256 without critical extensions, matching what this service issues
+    if(!JWSAlgorithm.RS256.equals(h.getAlgorithm()) || (h.getCriticalParams()!=null && !h.getCriticalParams().isEmpty())) return false;
+    RsaKeyHandle key=h.getKeyID()!=null ? keys.get(h.getKeyID()) : activeKey;
+    return key!=null && key.verify(token.getSigningInput(), token.getSignature());
   }
-  public boolean verify(String token){ try{ SignedJWT jwt=SignedJWT.parse(token); return jwt.verify(new RSASSAVerifier(rsaJwk.toPublicJWK().toRSAKey())); }catch(Exception e){ return false; } }
-  public String publicJwkSet(){ return new JWKSet(rsaJwk.toPublicJWK()).toJSONObject().toString(); }
-}
\ No newline at end of file
+  public String publicJwkSet(){ return publicJwkSet; }
+}
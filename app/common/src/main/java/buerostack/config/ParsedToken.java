@@ -0,0 +1,90 @@
+package buerostack.config;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A compact JWT that has been decoded exactly once.
+ *
+ * Created at the edge of a request and handed to the signer, validators and revocation
+ * checks, so Base64 decoding and JSON parsing are not repeated along the pipeline.
+ */
+public final class ParsedToken {
+
+    private final String token;
+    private final SignedJWT jwt;
+    private final JWTClaimsSet claims;
+    private final byte[] signingInput;
+    private final byte[] signature;
+    private final UUID jti;
+    private final Long expiresAt;
+
+    private ParsedToken(String token, SignedJWT jwt, JWTClaimsSet claims) {
+        this.token = token;
+        this.jwt = jwt;
+        this.claims = claims;
+        this.signingInput = jwt.getSigningInput();
+        this.signature = jwt.getSignature().decode();
+        this.jti = toUuid(claims.getJWTID());
+        Date exp = claims.getExpirationTime();
+        this.expiresAt = exp != null ? exp.getTime() / 1000 : null;
+    }
+
+    /**
+     * Parse a compact serialized JWS.
+     */
+    public static ParsedToken parse(String token) throws ParseException {
+        SignedJWT jwt = SignedJWT.parse(token);
+        return new ParsedToken(token, jwt, jwt.getJWTClaimsSet());
+    }
+
+    /**
+     * Wrap an already parsed JWT, e.g. one that was just signed.
+     */
+    public static ParsedToken of(SignedJWT jwt) throws ParseException {
+        return new ParsedToken(jwt.serialize(), jwt, jwt.getJWTClaimsSet());
+    }
+
+    private static UUID toUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null; // External tokens are free to use non-UUID identifiers
+        }
+    }
+
+    public String getToken() { return token; }
+
+    public SignedJWT getJwt() { return jwt; }
+
+    public JWSHeader getHeader() { return jwt.getHeader(); }
+
+    public JWTClaimsSet getClaims() { return claims; }
+
+    public byte[] getSigningInput() { return signingInput; }
+
+    public byte[] getSignature() { return signature; }
+
+    /**
+     * The jti claim as a UUID, or null when absent or not a UUID.
+     */
+    public UUID getJti() { return jti; }
+
+    /**
+     * The exp claim in epoch seconds, or null when absent.
+     */
+    public Long getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt == null || expiresAt < now.getEpochSecond();
+    }
+}
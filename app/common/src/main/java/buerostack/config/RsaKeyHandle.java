@@ -0,0 +1,83 @@
+package buerostack.config;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * Pre-converted RSA key material for a single key ID.
+ *
+ * JCA {@link Signature} objects are not thread-safe, but they are reusable after
+ * {@code sign()}/{@code verify()}, so each thread keeps its own initialised instance.
+ * This removes the provider lookup and key conversion from every sign and verify call.
+ */
+final class RsaKeyHandle {
+
+    static final String ALGORITHM = "SHA256withRSA";
+
+    private final String keyId;
+    private final RSAPublicKey publicKey;
+    private final PrivateKey privateKey;
+    private final ThreadLocal<Signature> signers;
+    private final ThreadLocal<Signature> verifiers;
+
+    RsaKeyHandle(String keyId, RSAPublicKey publicKey, PrivateKey privateKey) {
+        this.keyId = keyId;
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+        this.signers = privateKey != null ? ThreadLocal.withInitial(this::newSigner) : null;
+        this.verifiers = ThreadLocal.withInitial(this::newVerifier);
+    }
+
+    String getKeyId() { return keyId; }
+
+    RSAPublicKey getPublicKey() { return publicKey; }
+
+    boolean canSign() { return signers != null; }
+
+    byte[] sign(byte[] signingInput) throws GeneralSecurityException {
+        if (signers == null) {
+            throw new GeneralSecurityException("No private key for key ID " + keyId);
+        }
+        Signature signature = signers.get();
+        try {
+            signature.update(signingInput);
+            return signature.sign();
+        } catch (GeneralSecurityException e) {
+            signers.remove(); // Do not reuse an instance left in an unknown state
+            throw e;
+        }
+    }
+
+    boolean verify(byte[] signingInput, byte[] signatureBytes) {
+        Signature signature = verifiers.get();
+        try {
+            signature.update(signingInput);
+            return signature.verify(signatureBytes);
+        } catch (GeneralSecurityException e) {
+            verifiers.remove();
+            return false;
+        }
+    }
+
+    private Signature newSigner() {
+        try {
+            Signature signature = Signature.getInstance(ALGORITHM);
+            signature.initSign(privateKey);
+            return signature;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise RSA signer for key ID " + keyId, e);
+        }
+    }
+
+    private Signature newVerifier() {
+        try {
+            Signature signature = Signature.getInstance(ALGORITHM);
+            signature.initVerify(publicKey);
+            return signature;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise RSA verifier for key ID " + keyId, e);
+        }
+    }
+}
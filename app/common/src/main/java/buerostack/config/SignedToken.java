@@ -0,0 +1,46 @@
+package buerostack.config;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A token this service has just signed, together with the claims it was built from.
+ *
+ * Lets callers record jti, iat, exp, sub and aud without decoding the compact form they
+ * were handed back. Times carry whole seconds, exactly as serialized in the token.
+ */
+public final class SignedToken {
+
+    private final String token;
+    private final JWTClaimsSet claims;
+
+    public SignedToken(String token, JWTClaimsSet claims) {
+        this.token = token;
+        this.claims = claims;
+    }
+
+    /** The compact serialized JWS. */
+    public String getToken() { return token; }
+
+    public JWTClaimsSet getClaims() { return claims; }
+
+    /** The jti claim, always a UUID for tokens issued here. */
+    public UUID getJti() { return UUID.fromString(claims.getJWTID()); }
+
+    public Instant getIssuedAt() { return claims.getIssueTime().toInstant(); }
+
+    public Instant getExpiresAt() { return claims.getExpirationTime().toInstant(); }
+
+    public String getSubject() { return claims.getSubject(); }
+
+    public String getIssuer() { return claims.getIssuer(); }
+
+    /** The aud claim joined with commas, or null when absent. */
+    public String getAudience() {
+        List<String> audience = claims.getAudience();
+        return audience != null && !audience.isEmpty() ? String.join(",", audience) : null;
+    }
+}
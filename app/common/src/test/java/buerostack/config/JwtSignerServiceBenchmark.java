@@ -0,0 +1,100 @@
+package buerostack.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JwtSignerService against the previous implementation, which built a new
+ * RSASSASigner per token and a new RSASSAVerifier (plus JWK conversion) per verify.
+ *
+ * Run with: mvn -pl common test-compile, then
+ * java -cp "common/target/test-classes:common/target/classes:$(cat cp.txt)" org.openjdk.jmh.Main JwtSignerServiceBenchmark
+ * where cp.txt comes from mvn -pl common dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSignerServiceBenchmark {
+
+    private static final Map<String, Object> CLAIMS = Map.of("sub", "benchmark-user", "role", "admin", "token_type", "custom_jwt");
+
+    private JwtSignerService signer;
+    private RSAKey legacyJwk;
+    private JWSHeader legacyHeader;
+    private String token;
+    private ParsedToken parsedToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        signer = new JwtSignerService((RSAPublicKey) keyPair.getPublic(), keyPair.getPrivate(), "bench");
+        legacyJwk = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).privateKey(keyPair.getPrivate()).keyID("bench").build();
+        legacyHeader = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("bench").build();
+
+        token = signer.sign(CLAIMS, "TIM", List.of("tim-audience"), 3600);
+        parsedToken = ParsedToken.parse(token);
+    }
+
+    @Benchmark
+    public String signLegacy() throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder cb = new JWTClaimsSet.Builder().issuer("TIM").issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600))).jwtID(UUID.randomUUID().toString());
+        cb.audience(List.of("tim-audience"));
+        CLAIMS.forEach(cb::claim);
+        SignedJWT jwt = new SignedJWT(legacyHeader, cb.build());
+        jwt.sign(new RSASSASigner(legacyJwk));
+        return jwt.serialize();
+    }
+
+    @Benchmark
+    public String signCurrent() throws Exception {
+        return signer.sign(CLAIMS, "TIM", List.of("tim-audience"), 3600);
+    }
+
+    @Benchmark
+    public boolean verifyLegacy() {
+        try {
+            SignedJWT jwt = SignedJWT.parse(token);
+            return jwt.verify(new RSASSAVerifier(legacyJwk.toPublicJWK().toRSAKey()));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean verifyCurrent() {
+        return signer.verify(token);
+    }
+
+    @Benchmark
+    public boolean verifyCurrentPreParsed() {
+        return signer.verify(parsedToken);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{JwtSignerServiceBenchmark.class.getSimpleName()});
+    }
+}
@@ -1,64 +1,74 @@
 package buerostack.jwt.api;
 
+import buerostack.config.SignedToken;
 import buerostack.jwt.config.JwtCustomConfig;
 import buerostack.jwt.service.CustomJwtService;
+import buerostack.jwt.service.MetadataBacklogException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbusds.jwt.SignedJWT;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
 @RestController
 @RequestMapping("/jwt/custom")
 public class CustomJwtController {
 
+    // Tokens signed and persisted per step of a bulk request, so memory stays flat for large batches
+    private static final int BULK_GENERATE_CHUNK = 500;
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final CustomJwtService customJwtService;
     private final JwtCustomConfig jwtConfig;
+    private final ObjectMapper objectMapper;
+    private final Semaphore exportSlots;
 
-    public CustomJwtController(CustomJwtService customJwtService, JwtCustomConfig jwtConfig) {
+    public CustomJwtController(CustomJwtService customJwtService, JwtCustomConfig jwtConfig, ObjectMapper objectMapper) {
         this.customJwtService = customJwtService;
         this.jwtConfig = jwtConfig;
+        this.objectMapper = objectMapper;
+        this.exportSlots = new Semaphore(Math.max(1, jwtConfig.getExportMaxConcurrent()));
     }
 
     @PostMapping("/generate")
     public ResponseEntity<?> generate(@RequestBody CustomJwtGenerateRequest request) throws Exception {
         // Determine audience
-        List<String> requestedAudiences = request.getAudienceAsList();
-        List<String> finalAudiences;
-
-        if (jwtConfig.isValidationEnabled()) {
-            if (requestedAudiences == null || requestedAudiences.isEmpty()) {
-                // Use default audience when validation is enabled but no audience specified
-                finalAudiences = List.of(jwtConfig.getDefaultAudience());
-            } else {
-                // Validate requested audiences against allowed list
-                if (!jwtConfig.isAudienceAllowed(requestedAudiences)) {
-                    Map<String, Object> errorResponse = new HashMap<>();
-                    errorResponse.put("error", "invalid_audience");
-                    errorResponse.put("message", "One or more requested audiences are not allowed");
-                    errorResponse.put("allowed_audiences", jwtConfig.getAllowedAudiences());
-                    return ResponseEntity.badRequest().body(errorResponse);
-                }
-                finalAudiences = requestedAudiences;
-            }
-        } else {
-            // When validation is disabled, use requested audience or fallback to legacy default
-            if (requestedAudiences == null || requestedAudiences.isEmpty()) {
-                finalAudiences = List.of("tim-audience"); // Legacy default for backward compatibility
-            } else {
-                finalAudiences = requestedAudiences;
-            }
+        List<String> finalAudiences = resolveAudiences(request.getAudienceAsList());
+        if (finalAudiences == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "invalid_audience");
+            errorResponse.put("message", "One or more requested audiences are not allowed");
+            errorResponse.put("allowed_audiences", jwtConfig.getAllowedAudiences());
+            return ResponseEntity.badRequest().body(errorResponse);
         }
 
-        String token = customJwtService.generate(
-            request.getJwtName(),
-            request.getContent(),
-            jwtConfig.getIssuer(),
-            finalAudiences,
-            request.getExpirationInMinutes() * 60
-        );
+        String token;
+        try {
+            token = customJwtService.generate(
+                request.getJwtName(),
+                request.getContent(),
+                jwtConfig.getIssuer(),
+                finalAudiences,
+                request.getExpirationInMinutes() * 60
+            );
+        } catch (MetadataBacklogException e) {
+            // Write-behind queue is saturated; the token was not issued
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "metadata_backlog");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").body(errorResponse);
+        }
 
         Instant expiresAt = Instant.now().plus(request.getExpirationInMinutes(), ChronoUnit.MINUTES);
         TokenResponse tokenResponse = new TokenResponse("created", request.getJwtName(), token, expiresAt);
@@ -71,6 +81,140 @@ public class CustomJwtController {
         return responseBuilder.body(tokenResponse);
     }
 
+    /**
+     * Audiences to put in a token, or null if the requested ones are not allowed.
+     */
+    private List<String> resolveAudiences(List<String> requestedAudiences) {
+        if (jwtConfig.isValidationEnabled()) {
+            if (requestedAudiences == null || requestedAudiences.isEmpty()) {
+                // Use default audience when validation is enabled but no audience specified
+                return List.of(jwtConfig.getDefaultAudience());
+            }
+            // Validate requested audiences against allowed list
+            return jwtConfig.isAudienceAllowed(requestedAudiences) ? requestedAudiences : null;
+        }
+        // When validation is disabled, use requested audience or fallback to legacy default
+        if (requestedAudiences == null || requestedAudiences.isEmpty()) {
+            return List.of("tim-audience"); // Legacy default for backward compatibility
+        }
+        return requestedAudiences;
+    }
+
+    /**
+     * Issue many tokens in one request. Answers with one JSON object per line (NDJSON), in request order:
+     * {"index", "status": "created", "name", "token", "expiresAt"} or {"index", "status": "error", "error", "message"}.
+     */
+    @PostMapping("/generate/bulk")
+    public ResponseEntity<?> bulkGenerate(@RequestBody JwtBulkGenerateRequest request) {
+        List<CustomJwtGenerateRequest> items = request.getTokens();
+        if (items == null || items.isEmpty()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "invalid_request");
+            errorResponse.put("message", "Tokens list is required and cannot be empty");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        int limit = jwtConfig.getBulkGenerateLimit();
+        if (items.size() > limit) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "request_too_large");
+            errorResponse.put("message", "Cannot generate more than " + limit + " tokens at once");
+            errorResponse.put("provided", items.size());
+            errorResponse.put("maximum", limit);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        // Batches tend to repeat a few audience lists; each distinct list is resolved once
+        Map<List<String>, Optional<List<String>>> audiences = new HashMap<>();
+        List<BulkItem> specs = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            CustomJwtGenerateRequest item = items.get(index);
+            if (item == null || item.getContent() == null || item.getExpirationInMinutes() == null) {
+                specs.add(BulkItem.rejected(index, bulkError("invalid_request", "content and expirationInMinutes are required")));
+                continue;
+            }
+            Optional<List<String>> resolved = audiences.computeIfAbsent(item.getAudienceAsList(), a -> Optional.ofNullable(resolveAudiences(a)));
+            if (resolved.isEmpty()) {
+                specs.add(BulkItem.rejected(index, bulkError("invalid_audience", "One or more requested audiences are not allowed")));
+                continue;
+            }
+            specs.add(BulkItem.accepted(index, new CustomJwtService.TokenSpec(item.getJwtName(), item.getContent(), resolved.get(), item.getExpirationInMinutes() * 60)));
+        }
+
+        String issuer = jwtConfig.getIssuer();
+        StreamingResponseBody body = out -> {
+            for (int from = 0; from < specs.size(); from += BULK_GENERATE_CHUNK) {
+                List<BulkItem> chunk = specs.subList(from, Math.min(from + BULK_GENERATE_CHUNK, specs.size()));
+                List<CustomJwtService.TokenSpec> valid = new ArrayList<>();
+                for (BulkItem item : chunk) {
+                    if (item.spec != null) valid.add(item.spec);
+                }
+
+                List<SignedToken> signed;
+                Map<String, Object> chunkError = null;
+                try {
+                    signed = valid.isEmpty() ? List.of() : customJwtService.generateAll(valid, issuer);
+                } catch (RuntimeException e) {
+                    // Nothing of this chunk was stored, so none of its tokens are handed out
+                    signed = List.of();
+                    chunkError = bulkError("generation_failed", e.getMessage());
+                }
+
+                Iterator<SignedToken> tokens = signed.iterator();
+                for (BulkItem item : chunk) {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("index", item.index);
+                    if (item.spec == null) {
+                        line.putAll(item.error);
+                    } else if (chunkError != null) {
+                        line.putAll(chunkError);
+                    } else {
+                        SignedToken token = tokens.next();
+                        line.put("status", "created");
+                        line.put("name", item.spec.getJwtName());
+                        line.put("token", token.getToken());
+                        line.put("expiresAt", token.getExpiresAt().toString());
+                    }
+                    out.write(objectMapper.writeValueAsBytes(line));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private static Map<String, Object> bulkError(String error, String message) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("status", "error");
+        line.put("error", error);
+        line.put("message", message);
+        return line;
+    }
+
+    /**
+     * One entry of a bulk generate request: either a token to issue or the reason it was rejected.
+     */
+    private static final class BulkItem {
+        private final int index;
+        private final CustomJwtService.TokenSpec spec;
+        private final Map<String, Object> error;
+
+        private BulkItem(int index, CustomJwtService.TokenSpec spec, Map<String, Object> error) {
+            this.index = index;
+            this.spec = spec;
+            this.error = error;
+        }
+
+        static BulkItem accepted(int index, CustomJwtService.TokenSpec spec) {
+            return new BulkItem(index, spec, null);
+        }
+
+        static BulkItem rejected(int index, Map<String, Object> error) {
+            return new BulkItem(index, null, error);
+        }
+    }
+
     @PostMapping("/validate")
     public ResponseEntity<JwtValidationResponse> validate(@RequestBody JwtValidationRequest request) {
         try {
@@ -170,12 +314,13 @@ public class CustomJwtController {
             }
 
             // Limit bulk operations to prevent abuse
-            if (request.getTokens().size() > 100) {
+            int limit = jwtConfig.getBulkRevokeLimit();
+            if (request.getTokens().size() > limit) {
                 Map<String, Object> errorResponse = new HashMap<>();
                 errorResponse.put("error", "request_too_large");
-                errorResponse.put("message", "Cannot revoke more than 100 tokens at once");
+                errorResponse.put("message", "Cannot revoke more than " + limit + " tokens at once");
                 errorResponse.put("provided", request.getTokens().size());
-                errorResponse.put("maximum", 100);
+                errorResponse.put("maximum", limit);
                 return ResponseEntity.badRequest().body(errorResponse);
             }
 
@@ -310,6 +455,96 @@ public class CustomJwtController {
         }
     }
 
+    /**
+     * Export every token of a subject and/or issuer as NDJSON, one token summary per line, newest first.
+     * Callers export their own tokens, the subject being taken from the Bearer token; only a token with the
+     * configured audit audience may export other subjects or a whole issuer.
+     * Rows go from a database cursor straight to the response, so memory use does not grow with the export.
+     * Each export holds a pooled connection until it is done, so at most export-max-concurrent run at once
+     * and further ones get 503 rather than starving the pool. Written on the request thread rather than as a StreamingResponseBody, so long exports are not cut off
+     * by the async request timeout.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<?> export(@RequestBody JwtExportRequest request,
+                                    @RequestHeader(value = "Authorization", required = true) String authHeader,
+                                    HttpServletResponse response) throws Exception {
+        if (!authHeader.startsWith("Bearer ")) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "invalid_authorization");
+            errorResponse.put("message", "Authorization header must be in format 'Bearer <token>'");
+            return ResponseEntity.status(401).body(errorResponse);
+        }
+        JwtValidationResponse validation = customJwtService.validate(authHeader.substring(7), null, null);
+        if (!validation.isValid() || !validation.isActive()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "invalid_token");
+            errorResponse.put("message", "Token is invalid, expired, or revoked");
+            return ResponseEntity.status(401).body(errorResponse);
+        }
+
+        if (!isExportAuditor(validation)) {
+            String subject = validation.getSubject();
+            if (isBlank(subject)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "missing_subject");
+                errorResponse.put("message", "Token does not contain a valid subject claim");
+                return ResponseEntity.status(401).body(errorResponse);
+            }
+            if (!isBlank(request.getSubject()) && !request.getSubject().equals(subject)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "forbidden");
+                errorResponse.put("message", "Only the caller's own tokens can be exported");
+                return ResponseEntity.status(403).body(errorResponse);
+            }
+            // The issuer, if given, only narrows the caller's own tokens
+            request.setSubject(subject);
+        } else if (isBlank(request.getSubject()) && isBlank(request.getIssuer())) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "invalid_request");
+            errorResponse.put("message", "subject or issuer is required");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+
+        if (!exportSlots.tryAcquire()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "export_busy");
+            errorResponse.put("message", "Too many exports running, at most " + jwtConfig.getExportMaxConcurrent() + " at a time");
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5").body(errorResponse);
+        }
+        try {
+            response.setStatus(200);
+            response.setContentType(NDJSON.toString());
+            OutputStream out = response.getOutputStream();
+            try {
+                customJwtService.exportTokens(request, summary -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(summary));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // Client went away; the cursor is already closed
+                throw e.getCause();
+            }
+            out.flush();
+            return null;
+        } finally {
+            exportSlots.release();
+        }
+    }
+
+    private boolean isExportAuditor(JwtValidationResponse validation) {
+        String auditAudience = jwtConfig.getExportAuditAudience();
+        return !isBlank(auditAudience) && validation.getAudience() != null
+                && Arrays.asList(validation.getAudience().split(",")).contains(auditAudience.trim());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     @PostMapping("/list/me")
     public ResponseEntity<?> listMyTokens(@RequestBody(required = false) JwtListRequest request,
                                          @RequestHeader(value = "Authorization", required = true) String authHeader) {
@@ -334,9 +569,8 @@ public class CustomJwtController {
                 return ResponseEntity.status(401).body(errorResponse);
             }
 
-            // Extract subject from the validated token
-            var jwt = SignedJWT.parse(token);
-            String subject = jwt.getJWTClaimsSet().getSubject();
+            // Subject comes from the already validated token, no need to parse it again
+            String subject = validation.getSubject();
 
             if (subject == null || subject.trim().isEmpty()) {
                 Map<String, Object> errorResponse = new HashMap<>();
@@ -350,9 +584,32 @@ public class CustomJwtController {
                 request = new JwtListRequest();
             }
 
+            if ((request.getLimit() != null && request.getLimit() < 1) || (request.getOffset() != null && request.getOffset() < 0)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "invalid_request");
+                errorResponse.put("message", "limit must be at least 1 and offset must not be negative");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            // Page size is capped; the response reports the size actually used
+            if (request.getLimit() != null && request.getLimit() > jwtConfig.getListMaxLimit()) {
+                request.setLimit(jwtConfig.getListMaxLimit());
+            }
+            // offset counts pages; the row offset must stay within an int
+            if (request.getOffset() != null && (long) request.getOffset() * (request.getLimit() != null ? request.getLimit() : 20) > Integer.MAX_VALUE) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "invalid_request");
+                errorResponse.put("message", "offset is too large");
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+
             JwtListResponse response = customJwtService.listUserTokens(subject, request);
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "invalid_cursor");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "authentication_failed");
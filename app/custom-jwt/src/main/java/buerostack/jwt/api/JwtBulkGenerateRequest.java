@@ -0,0 +1,19 @@
+package buerostack.jwt.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public class JwtBulkGenerateRequest {
+
+    @JsonProperty("tokens")
+    private List<CustomJwtGenerateRequest> tokens;
+
+    public JwtBulkGenerateRequest() {}
+
+    public JwtBulkGenerateRequest(List<CustomJwtGenerateRequest> tokens) {
+        this.tokens = tokens;
+    }
+
+    public List<CustomJwtGenerateRequest> getTokens() { return tokens; }
+    public void setTokens(List<CustomJwtGenerateRequest> tokens) { this.tokens = tokens; }
+}
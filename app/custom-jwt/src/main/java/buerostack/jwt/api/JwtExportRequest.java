@@ -0,0 +1,59 @@
+package buerostack.jwt.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Filters of /jwt/custom/export. At least one of subject and issuer is required.
+ */
+public class JwtExportRequest {
+
+    @JsonProperty("subject")
+    private String subject;
+
+    @JsonProperty("issuer")
+    private String issuer;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("issued_after")
+    private String issuedAfter;
+
+    @JsonProperty("issued_before")
+    private String issuedBefore;
+
+    @JsonProperty("expires_after")
+    private String expiresAfter;
+
+    @JsonProperty("expires_before")
+    private String expiresBefore;
+
+    @JsonProperty("jwt_name")
+    private String jwtName;
+
+    public JwtExportRequest() {}
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getIssuer() { return issuer; }
+    public void setIssuer(String issuer) { this.issuer = issuer; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getIssuedAfter() { return issuedAfter; }
+    public void setIssuedAfter(String issuedAfter) { this.issuedAfter = issuedAfter; }
+
+    public String getIssuedBefore() { return issuedBefore; }
+    public void setIssuedBefore(String issuedBefore) { this.issuedBefore = issuedBefore; }
+
+    public String getExpiresAfter() { return expiresAfter; }
+    public void setExpiresAfter(String expiresAfter) { this.expiresAfter = expiresAfter; }
+
+    public String getExpiresBefore() { return expiresBefore; }
+    public void setExpiresBefore(String expiresBefore) { this.expiresBefore = expiresBefore; }
+
+    public String getJwtName() { return jwtName; }
+    public void setJwtName(String jwtName) { this.jwtName = jwtName; }
+}
@@ -31,6 +31,14 @@ public class JwtListRequest {
     @JsonProperty("subject")
     private String subject;
 
+    // Opaque next_cursor from a previous response ("" for the first page); when present, offset is ignored
+    @JsonProperty("cursor")
+    private String cursor;
+
+    // Cursor mode only: include a (briefly cached) total count in the response
+    @JsonProperty("include_total")
+    private Boolean includeTotal;
+
     public JwtListRequest() {}
 
     public String getStatus() { return status; }
@@ -59,4 +67,10 @@ public class JwtListRequest {
 
     public String getSubject() { return subject; }
     public void setSubject(String subject) { this.subject = subject; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public Boolean getIncludeTotal() { return includeTotal; }
+    public void setIncludeTotal(Boolean includeTotal) { this.includeTotal = includeTotal; }
 }
\ No newline at end of file
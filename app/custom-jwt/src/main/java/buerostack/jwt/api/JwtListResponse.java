@@ -11,6 +11,10 @@ public class JwtListResponse {
     @JsonProperty("pagination")
     private PaginationInfo pagination;
 
+    // Pass back as "cursor" to fetch the next page; null on the last page
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
     public JwtListResponse() {}
 
     public JwtListResponse(List<JwtTokenSummary> tokens, PaginationInfo pagination) {
@@ -24,6 +28,9 @@ public class JwtListResponse {
     public PaginationInfo getPagination() { return pagination; }
     public void setPagination(PaginationInfo pagination) { this.pagination = pagination; }
 
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
     public static class PaginationInfo {
         @JsonProperty("total")
         private Long total;
@@ -14,6 +14,15 @@ public class JwtCustomConfig {
 
     private String issuer = "TIM";
     private Audience audience = new Audience();
+    private RevocationCacheSettings revocationCache = new RevocationCacheSettings();
+    private MetadataWriteSettings metadataWrite = new MetadataWriteSettings();
+    private int bulkRevokeLimit = 10000;
+    private int bulkGenerateLimit = 10000;
+    private int listMaxLimit = 1000;
+    // Tokens with this audience may export other subjects' tokens and whole issuers; empty disables that
+    private String exportAuditAudience = "";
+    // Each running export holds a pooled connection for its whole duration
+    private int exportMaxConcurrent = 2;
 
     public static class Audience {
         private Validation validation = new Validation();
@@ -28,6 +37,62 @@ public class JwtCustomConfig {
         public void setDefaultAudience(String defaultAudience) { this.defaultAudience = defaultAudience; }
     }
 
+    /**
+     * Node-local revocation set kept current through Postgres LISTEN/NOTIFY (jwt.custom.revocation-cache.*)
+     */
+    public static class RevocationCacheSettings {
+        private boolean enabled = true;
+        private long reconcileIntervalSeconds = 300;
+        private long listenerPollMillis = 500;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getReconcileIntervalSeconds() { return reconcileIntervalSeconds; }
+        public void setReconcileIntervalSeconds(long reconcileIntervalSeconds) { this.reconcileIntervalSeconds = reconcileIntervalSeconds; }
+        public long getListenerPollMillis() { return listenerPollMillis; }
+        public void setListenerPollMillis(long listenerPollMillis) { this.listenerPollMillis = listenerPollMillis; }
+    }
+
+    /**
+     * How /jwt/custom/generate persists token metadata (jwt.custom.metadata-write.*)
+     */
+    public static class MetadataWriteSettings {
+        /** "sync" (one JPA save per token) or "write-behind" (queued and inserted in batches) */
+        private String mode = "sync";
+        /** Write-behind only: "flush" answers once the batch is committed, "enqueue" once the record is queued */
+        private String durability = "flush";
+        private int queueCapacity = 10000;
+        private int batchSize = 500;
+        /** Longest a queued record waits for more records to share its commit */
+        private long maxBatchDelayMillis = 5;
+        /** Longest a request waits for queue space (enqueue) or for its batch to commit (flush) */
+        private long timeoutMillis = 2000;
+        /** Attempts per batch insert before its records are given up */
+        private int retryAttempts = 3;
+        /** Pause before the first retry, doubled for each further one */
+        private long retryBackoffMillis = 100;
+
+        public String getMode() { return mode; }
+        public void setMode(String mode) { this.mode = mode; }
+        public String getDurability() { return durability; }
+        public void setDurability(String durability) { this.durability = durability; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public long getMaxBatchDelayMillis() { return maxBatchDelayMillis; }
+        public void setMaxBatchDelayMillis(long maxBatchDelayMillis) { this.maxBatchDelayMillis = maxBatchDelayMillis; }
+        public long getTimeoutMillis() { return timeoutMillis; }
+        public void setTimeoutMillis(long timeoutMillis) { this.timeoutMillis = timeoutMillis; }
+        public int getRetryAttempts() { return retryAttempts; }
+        public void setRetryAttempts(int retryAttempts) { this.retryAttempts = retryAttempts; }
+        public long getRetryBackoffMillis() { return retryBackoffMillis; }
+        public void setRetryBackoffMillis(long retryBackoffMillis) { this.retryBackoffMillis = retryBackoffMillis; }
+
+        public boolean isWriteBehind() { return "write-behind".equalsIgnoreCase(mode); }
+        public boolean isAckAfterFlush() { return !"enqueue".equalsIgnoreCase(durability); }
+    }
+
     @PostConstruct
     public void logConfiguration() {
         logger.info("JWT Issuer configured as: '" + issuer + "'");
@@ -56,6 +121,62 @@ public class JwtCustomConfig {
         this.audience = audience;
     }
 
+    public int getBulkRevokeLimit() {
+        return bulkRevokeLimit;
+    }
+
+    public void setBulkRevokeLimit(int bulkRevokeLimit) {
+        this.bulkRevokeLimit = bulkRevokeLimit;
+    }
+
+    public int getBulkGenerateLimit() {
+        return bulkGenerateLimit;
+    }
+
+    public void setBulkGenerateLimit(int bulkGenerateLimit) {
+        this.bulkGenerateLimit = bulkGenerateLimit;
+    }
+
+    public int getListMaxLimit() {
+        return listMaxLimit;
+    }
+
+    public void setListMaxLimit(int listMaxLimit) {
+        this.listMaxLimit = listMaxLimit;
+    }
+
+    public String getExportAuditAudience() {
+        return exportAuditAudience;
+    }
+
+    public void setExportAuditAudience(String exportAuditAudience) {
+        this.exportAuditAudience = exportAuditAudience;
+    }
+
+    public int getExportMaxConcurrent() {
+        return exportMaxConcurrent;
+    }
+
+    public void setExportMaxConcurrent(int exportMaxConcurrent) {
+        this.exportMaxConcurrent = exportMaxConcurrent;
+    }
+
+    public RevocationCacheSettings getRevocationCache() {
+        return revocationCache;
+    }
+
+    public void setRevocationCache(RevocationCacheSettings revocationCache) {
+        this.revocationCache = revocationCache;
+    }
+
+    public MetadataWriteSettings getMetadataWrite() {
+        return metadataWrite;
+    }
+
+    public void setMetadataWrite(MetadataWriteSettings metadataWrite) {
+        this.metadataWrite = metadataWrite;
+    }
+
     public boolean isValidationEnabled() {
         return audience.validation.enabled;
     }
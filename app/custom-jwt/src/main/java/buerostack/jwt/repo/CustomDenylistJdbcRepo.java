@@ -0,0 +1,79 @@
+package buerostack.jwt.repo;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Set-based denylist statements that would cost one round trip per row through JPA.
+ */
+@Repository
+public class CustomDenylistJdbcRepo {
+
+    // Rows per INSERT statement; keeps array parameters well below protocol limits
+    static final int CHUNK_SIZE = 5000;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO custom_jwt.denylist (jwt_uuid, denylisted_at, expires_at, reason) " +
+        "SELECT t.jwt_uuid, now() AT TIME ZONE 'UTC', to_timestamp(t.exp) AT TIME ZONE 'UTC', ? " +
+        "FROM unnest(?::uuid[], ?::bigint[]) AS t(jwt_uuid, exp) " +
+        "ON CONFLICT (jwt_uuid) DO NOTHING RETURNING jwt_uuid";
+
+    private static final String FIND_EXISTING_SQL =
+        "SELECT jwt_uuid FROM custom_jwt.denylist WHERE jwt_uuid = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomDenylistJdbcRepo(@Qualifier("customJwtJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The subset of jtis that have a denylist row, in a single query.
+     */
+    public Set<UUID> findExisting(Collection<UUID> jtis) {
+        Set<UUID> existing = new HashSet<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_EXISTING_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", jtis.toArray(new UUID[0])));
+            return ps;
+        }, rs -> {
+            existing.add(rs.getObject(1, UUID.class));
+        });
+        return existing;
+    }
+
+    /**
+     * Insert denylist rows, skipping jtis that are already present.
+     *
+     * @param jtis token ids
+     * @param expiresAt expiry of each token in epoch seconds, same order as jtis
+     * @return the jtis that were actually inserted
+     */
+    public Set<UUID> insertIfAbsent(List<UUID> jtis, List<Long> expiresAt, String reason) {
+        Set<UUID> inserted = new HashSet<>();
+        for (int from = 0; from < jtis.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, jtis.size());
+            UUID[] ids = jtis.subList(from, to).toArray(new UUID[0]);
+            Long[] exps = expiresAt.subList(from, to).toArray(new Long[0]);
+
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL);
+                ps.setString(1, reason);
+                ps.setArray(2, connection.createArrayOf("uuid", ids));
+                ps.setArray(3, connection.createArrayOf("bigint", exps));
+                return ps;
+            }, rs -> {
+                inserted.add(rs.getObject(1, UUID.class));
+            });
+        }
+        return inserted;
+    }
+}
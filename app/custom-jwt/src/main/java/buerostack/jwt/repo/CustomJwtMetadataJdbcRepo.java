@@ -0,0 +1,318 @@
+package buerostack.jwt.repo;
+
+import buerostack.jwt.entity.CustomJwtMetadata;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Token listing queries composed from the filters that are actually present.
+ *
+ * Each request gets a statement containing only its own predicates, so Postgres can
+ * pick a matching index (see the custom_jwt.jwt_metadata indexes in db/init.sql)
+ * instead of planning one generic "(:p IS NULL OR ...)" statement for every combination.
+ * Timestamps are stored as UTC in timestamp columns and bound as LocalDateTime in UTC.
+ * Also holds the set-based insert used by write-behind metadata persistence, the
+ * cursor-based export and the single-statement token extension.
+ */
+@Repository
+public class CustomJwtMetadataJdbcRepo {
+
+    private static final String SELECT_VIEW =
+        "SELECT m.id, m.jwt_uuid, m.subject, m.jwt_name, m.issued_at, " +
+        "CAST(extract(epoch from m.issued_at) * 1000000 AS bigint) AS issued_at_micros, " +
+        "m.expires_at, m.issuer, m.audience, d.denylisted_at, d.reason " +
+        "FROM custom_jwt.jwt_metadata m LEFT JOIN custom_jwt.denylist d ON d.jwt_uuid = m.jwt_uuid";
+
+    private static final RowMapper<JwtTokenView> VIEW_MAPPER = (rs, rowNum) -> new JwtTokenView(
+        rs.getObject("id", UUID.class),
+        rs.getObject("jwt_uuid", UUID.class),
+        rs.getString("subject"),
+        rs.getString("jwt_name"),
+        toInstant(rs.getObject("issued_at", LocalDateTime.class)),
+        rs.getLong("issued_at_micros"),
+        toInstant(rs.getObject("expires_at", LocalDateTime.class)),
+        rs.getString("issuer"),
+        rs.getString("audience"),
+        toInstant(rs.getObject("denylisted_at", LocalDateTime.class)),
+        rs.getString("reason"));
+
+    // Rows per INSERT statement; keeps array parameters well below protocol limits
+    static final int CHUNK_SIZE = 5000;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO custom_jwt.jwt_metadata (id, jwt_uuid, created_at, claim_keys, issued_at, expires_at, " +
+        "subject, jwt_name, audience, issuer, supersedes, original_jwt_uuid) " +
+        "SELECT t.id, t.jwt_uuid, timestamp 'epoch' + t.created * interval '1 microsecond', t.claim_keys, " +
+        "timestamp 'epoch' + t.issued * interval '1 microsecond', timestamp 'epoch' + t.expires * interval '1 microsecond', " +
+        "t.subject, t.jwt_name, t.audience, t.issuer, t.supersedes, t.original_jwt_uuid " +
+        "FROM unnest(?::uuid[], ?::uuid[], ?::bigint[], ?::text[], ?::bigint[], ?::bigint[], " +
+        "?::text[], ?::text[], ?::text[], ?::text[], ?::uuid[], ?::uuid[]) " +
+        "AS t(id, jwt_uuid, created, claim_keys, issued, expires, subject, jwt_name, audience, issuer, supersedes, original_jwt_uuid)";
+
+    /**
+     * Token extension as one statement: lock the current version of the old token, denylist the old
+     * token and insert the new version linked to it. The denylist insert only succeeds for a token
+     * that is not revoked yet, and the new version is only inserted if it did; concurrent extensions
+     * of the same token queue on the row lock and all but the first find the token revoked.
+     */
+    private static final String EXTEND_SQL =
+        "WITH latest AS (" +
+        "SELECT id, original_jwt_uuid FROM custom_jwt.jwt_metadata WHERE jwt_uuid = :oldJti " +
+        "ORDER BY created_at DESC LIMIT 1 FOR UPDATE), " +
+        "revoked AS (" +
+        "INSERT INTO custom_jwt.denylist (jwt_uuid, denylisted_at, expires_at) " +
+        "SELECT :oldJti, now() AT TIME ZONE 'UTC', to_timestamp(:oldExp) AT TIME ZONE 'UTC' FROM latest " +
+        "ON CONFLICT (jwt_uuid) DO NOTHING RETURNING jwt_uuid), " +
+        "extended AS (" +
+        "INSERT INTO custom_jwt.jwt_metadata (id, jwt_uuid, created_at, claim_keys, issued_at, expires_at, " +
+        "subject, jwt_name, audience, issuer, supersedes, original_jwt_uuid) " +
+        "SELECT :id, :jwtUuid, timestamp 'epoch' + :created * interval '1 microsecond', :claimKeys, " +
+        "timestamp 'epoch' + :issued * interval '1 microsecond', timestamp 'epoch' + :expires * interval '1 microsecond', " +
+        ":subject, :jwtName, :audience, :issuer, l.id, l.original_jwt_uuid FROM latest l, revoked " +
+        "RETURNING supersedes, original_jwt_uuid) " +
+        "SELECT (SELECT count(*) FROM latest) AS found, e.supersedes, e.original_jwt_uuid " +
+        "FROM (SELECT 1) AS one LEFT JOIN extended e ON true";
+
+    public enum ExtendOutcome { EXTENDED, REVOKED, NOT_FOUND }
+
+    // Rows per round trip while streaming an export
+    static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate plainJdbcTemplate;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CustomJwtMetadataJdbcRepo(@Qualifier("customJwtJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.plainJdbcTemplate = jdbcTemplate;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Insert metadata rows with one statement (and so one commit) per chunk instead of one per row.
+     */
+    public void insertAll(List<CustomJwtMetadata> rows) {
+        for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+            List<CustomJwtMetadata> chunk = rows.subList(from, Math.min(from + CHUNK_SIZE, rows.size()));
+            int n = chunk.size();
+            UUID[] ids = new UUID[n], jwtUuids = new UUID[n], supersedes = new UUID[n], originals = new UUID[n];
+            Long[] created = new Long[n], issued = new Long[n], expires = new Long[n];
+            String[] claimKeys = new String[n], subjects = new String[n], names = new String[n], audiences = new String[n], issuers = new String[n];
+            for (int i = 0; i < n; i++) {
+                CustomJwtMetadata m = chunk.get(i);
+                ids[i] = m.getId();
+                jwtUuids[i] = m.getJwtUuid();
+                created[i] = toMicros(m.getCreatedAt());
+                claimKeys[i] = m.getClaimKeys();
+                issued[i] = toMicros(m.getIssuedAt());
+                expires[i] = toMicros(m.getExpiresAt());
+                subjects[i] = m.getSubject();
+                names[i] = m.getJwtName();
+                audiences[i] = m.getAudience();
+                issuers[i] = m.getIssuer();
+                supersedes[i] = m.getSupersedes();
+                originals[i] = m.getOriginalJwtUuid();
+            }
+            plainJdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_SQL);
+                ps.setArray(1, connection.createArrayOf("uuid", ids));
+                ps.setArray(2, connection.createArrayOf("uuid", jwtUuids));
+                ps.setArray(3, connection.createArrayOf("bigint", created));
+                ps.setArray(4, connection.createArrayOf("text", claimKeys));
+                ps.setArray(5, connection.createArrayOf("bigint", issued));
+                ps.setArray(6, connection.createArrayOf("bigint", expires));
+                ps.setArray(7, connection.createArrayOf("text", subjects));
+                ps.setArray(8, connection.createArrayOf("text", names));
+                ps.setArray(9, connection.createArrayOf("text", audiences));
+                ps.setArray(10, connection.createArrayOf("text", issuers));
+                ps.setArray(11, connection.createArrayOf("uuid", supersedes));
+                ps.setArray(12, connection.createArrayOf("uuid", originals));
+                return ps;
+            });
+        }
+    }
+
+    /**
+     * Rows matching the filter, newest first (issued_at DESC, id DESC).
+     *
+     * @param afterIssuedAtMicros keyset position: only rows after (afterIssuedAtMicros, afterId); null for none
+     * @param offset rows to skip, 0 in keyset mode
+     */
+    public List<JwtTokenView> findTokenViews(JwtTokenFilter filter, Long afterIssuedAtMicros, UUID afterId, int offset, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT_VIEW);
+        appendWhere(sql, params, filter);
+        if (afterIssuedAtMicros != null) {
+            sql.append(" AND (m.issued_at, m.id) < (timestamp 'epoch' + :afterMicros * interval '1 microsecond', :afterId)");
+            params.addValue("afterMicros", afterIssuedAtMicros);
+            params.addValue("afterId", afterId);
+        }
+        sql.append(" ORDER BY m.issued_at DESC, m.id DESC LIMIT :limit");
+        params.addValue("limit", limit);
+        if (offset > 0) {
+            sql.append(" OFFSET :offset");
+            params.addValue("offset", offset);
+        }
+        return jdbcTemplate.query(sql.toString(), params, VIEW_MAPPER);
+    }
+
+    /**
+     * Replace {@code oldJti} by {@code extended} in one round trip (see EXTEND_SQL).
+     * On success the chain columns of {@code extended} (supersedes, original_jwt_uuid) are filled in
+     * from the database; otherwise nothing has been written.
+     *
+     * @param oldExpiresAt expiry of the old token in epoch seconds, kept with its denylist entry
+     */
+    public ExtendOutcome extend(UUID oldJti, long oldExpiresAt, CustomJwtMetadata extended) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("oldJti", oldJti)
+            .addValue("oldExp", oldExpiresAt)
+            .addValue("id", extended.getId())
+            .addValue("jwtUuid", extended.getJwtUuid())
+            .addValue("created", toMicros(extended.getCreatedAt()))
+            .addValue("claimKeys", extended.getClaimKeys(), Types.VARCHAR)
+            .addValue("issued", toMicros(extended.getIssuedAt()))
+            .addValue("expires", toMicros(extended.getExpiresAt()))
+            .addValue("subject", extended.getSubject(), Types.VARCHAR)
+            .addValue("jwtName", extended.getJwtName(), Types.VARCHAR)
+            .addValue("audience", extended.getAudience(), Types.VARCHAR)
+            .addValue("issuer", extended.getIssuer(), Types.VARCHAR);
+        return jdbcTemplate.query(EXTEND_SQL, params, rs -> {
+            rs.next();
+            if (rs.getLong("found") == 0) {
+                return ExtendOutcome.NOT_FOUND;
+            }
+            UUID supersedes = rs.getObject("supersedes", UUID.class);
+            if (supersedes == null) {
+                return ExtendOutcome.REVOKED;
+            }
+            extended.setSupersedes(supersedes);
+            extended.setOriginalJwtUuid(rs.getObject("original_jwt_uuid", UUID.class));
+            return ExtendOutcome.EXTENDED;
+        });
+    }
+
+    /**
+     * Hand every row matching the filter to {@code consumer}, newest first, without collecting them.
+     *
+     * The Postgres driver only fetches in batches of the fetch size (instead of reading the whole
+     * result) inside a transaction, so the connection leaves auto-commit for the duration of the
+     * export and the read-only transaction is rolled back afterwards.
+     *
+     * @return number of rows exported
+     */
+    public long exportTokenViews(JwtTokenFilter filter, Consumer<JwtTokenView> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(SELECT_VIEW);
+        appendWhere(sql, params, filter);
+        sql.append(" ORDER BY m.issued_at DESC, m.id DESC");
+        String statement = NamedParameterUtils.substituteNamedParameters(sql.toString(), params);
+        Object[] args = NamedParameterUtils.buildValueArray(sql.toString(), params.getValues());
+
+        Long exported = plainJdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            // Inside a caller's transaction the cursor works as is and the transaction is left alone
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(statement, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                long rows = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(VIEW_MAPPER.mapRow(rs, (int) rows));
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                if (autoCommit) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+        return exported != null ? exported : 0;
+    }
+
+    public long countTokens(JwtTokenFilter filter) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        // The denylist join is only needed when filtering by status
+        StringBuilder sql = new StringBuilder(filter.getStatus() != null
+            ? "SELECT count(*) FROM custom_jwt.jwt_metadata m LEFT JOIN custom_jwt.denylist d ON d.jwt_uuid = m.jwt_uuid"
+            : "SELECT count(*) FROM custom_jwt.jwt_metadata m");
+        appendWhere(sql, params, filter);
+        Long count = jdbcTemplate.queryForObject(sql.toString(), params, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private static void appendWhere(StringBuilder sql, MapSqlParameterSource params, JwtTokenFilter filter) {
+        if (filter.getSubject() == null && filter.getIssuer() == null) {
+            throw new IllegalArgumentException("A subject or an issuer is required");
+        }
+        if (filter.getSubject() != null) {
+            sql.append(" WHERE m.subject = :subject");
+            params.addValue("subject", filter.getSubject());
+        }
+        if (filter.getIssuer() != null) {
+            sql.append(filter.getSubject() != null ? " AND" : " WHERE").append(" m.issuer = :issuer");
+            params.addValue("issuer", filter.getIssuer());
+        }
+        if (filter.getJwtName() != null) {
+            sql.append(" AND m.jwt_name = :jwtName");
+            params.addValue("jwtName", filter.getJwtName());
+        }
+        if (filter.getIssuedAfter() != null) {
+            sql.append(" AND m.issued_at >= :issuedAfter");
+            params.addValue("issuedAfter", toUtc(filter.getIssuedAfter()));
+        }
+        if (filter.getIssuedBefore() != null) {
+            sql.append(" AND m.issued_at <= :issuedBefore");
+            params.addValue("issuedBefore", toUtc(filter.getIssuedBefore()));
+        }
+        if (filter.getExpiresAfter() != null) {
+            sql.append(" AND m.expires_at >= :expiresAfter");
+            params.addValue("expiresAfter", toUtc(filter.getExpiresAfter()));
+        }
+        if (filter.getExpiresBefore() != null) {
+            sql.append(" AND m.expires_at <= :expiresBefore");
+            params.addValue("expiresBefore", toUtc(filter.getExpiresBefore()));
+        }
+        if (filter.getStatus() != null) {
+            switch (filter.getStatus()) {
+                case "revoked" -> sql.append(" AND d.jwt_uuid IS NOT NULL");
+                case "expired" -> sql.append(" AND d.jwt_uuid IS NULL AND m.expires_at < (now() AT TIME ZONE 'UTC')");
+                case "active" -> sql.append(" AND d.jwt_uuid IS NULL AND m.expires_at >= (now() AT TIME ZONE 'UTC')");
+                default -> { } // Unknown status values do not filter, as before
+            }
+        }
+    }
+
+    private static Long toMicros(Instant instant) {
+        return instant != null ? instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000 : null;
+    }
+
+    private static LocalDateTime toUtc(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Instant toInstant(LocalDateTime value) {
+        return value != null ? value.toInstant(ZoneOffset.UTC) : null;
+    }
+}
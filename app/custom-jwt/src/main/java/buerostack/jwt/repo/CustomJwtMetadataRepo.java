@@ -8,7 +8,6 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,26 +31,4 @@ public interface CustomJwtMetadataRepo extends JpaRepository<CustomJwtMetadata,
     @Query(value = "SELECT DISTINCT ON (jwt_uuid) * FROM custom_jwt.jwt_metadata " +
            "WHERE subject = :subject ORDER BY jwt_uuid, created_at DESC", nativeQuery = true)
     List<CustomJwtMetadata> findActiveJwtsBySubject(@Param("subject") String subject);
-
-    @Query(value = "SELECT * FROM custom_jwt.jwt_metadata m WHERE m.subject = :subject " +
-           "AND (:issuedAfter IS NULL OR m.issued_at >= :issuedAfter) " +
-           "AND (:issuedBefore IS NULL OR m.issued_at <= :issuedBefore) " +
-           "AND (:expiresAfter IS NULL OR m.expires_at >= :expiresAfter) " +
-           "AND (:expiresBefore IS NULL OR m.expires_at <= :expiresBefore) " +
-           "AND (:jwtName IS NULL OR m.jwt_name = :jwtName) " +
-           "ORDER BY m.issued_at DESC",
-           countQuery = "SELECT count(*) FROM custom_jwt.jwt_metadata m WHERE m.subject = :subject " +
-           "AND (:issuedAfter IS NULL OR m.issued_at >= :issuedAfter) " +
-           "AND (:issuedBefore IS NULL OR m.issued_at <= :issuedBefore) " +
-           "AND (:expiresAfter IS NULL OR m.expires_at >= :expiresAfter) " +
-           "AND (:expiresBefore IS NULL OR m.expires_at <= :expiresBefore) " +
-           "AND (:jwtName IS NULL OR m.jwt_name = :jwtName)",
-           nativeQuery = true)
-    Page<CustomJwtMetadata> findByUserFilters(@Param("subject") String subject,
-                                             @Param("issuedAfter") Instant issuedAfter,
-                                             @Param("issuedBefore") Instant issuedBefore,
-                                             @Param("expiresAfter") Instant expiresAfter,
-                                             @Param("expiresBefore") Instant expiresBefore,
-                                             @Param("jwtName") String jwtName,
-                                             Pageable pageable);
-}
\ No newline at end of file
+}
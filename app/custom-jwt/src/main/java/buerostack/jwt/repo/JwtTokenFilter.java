@@ -0,0 +1,51 @@
+package buerostack.jwt.repo;
+
+import java.time.Instant;
+
+/**
+ * Token listing filters. Listing always has a subject; exports need a subject or an issuer.
+ * Null fields add no predicate.
+ */
+public class JwtTokenFilter {
+
+    private final String subject;
+    private final String status;
+    private final Instant issuedAfter;
+    private final Instant issuedBefore;
+    private final Instant expiresAfter;
+    private final Instant expiresBefore;
+    private final String jwtName;
+    private final String issuer;
+
+    public JwtTokenFilter(String subject, String status, Instant issuedAfter, Instant issuedBefore,
+                          Instant expiresAfter, Instant expiresBefore, String jwtName) {
+        this(subject, status, issuedAfter, issuedBefore, expiresAfter, expiresBefore, jwtName, null);
+    }
+
+    public JwtTokenFilter(String subject, String status, Instant issuedAfter, Instant issuedBefore,
+                          Instant expiresAfter, Instant expiresBefore, String jwtName, String issuer) {
+        this.subject = subject;
+        this.status = status;
+        this.issuedAfter = issuedAfter;
+        this.issuedBefore = issuedBefore;
+        this.expiresAfter = expiresAfter;
+        this.expiresBefore = expiresBefore;
+        this.jwtName = jwtName;
+        this.issuer = issuer;
+    }
+
+    public String getSubject() { return subject; }
+    public String getStatus() { return status; }
+    public Instant getIssuedAfter() { return issuedAfter; }
+    public Instant getIssuedBefore() { return issuedBefore; }
+    public Instant getExpiresAfter() { return expiresAfter; }
+    public Instant getExpiresBefore() { return expiresBefore; }
+    public String getJwtName() { return jwtName; }
+    public String getIssuer() { return issuer; }
+
+    /** Stable key for caching per-filter results such as counts. */
+    public String cacheKey() {
+        return String.join("|", subject, String.valueOf(status), String.valueOf(issuedAfter), String.valueOf(issuedBefore),
+            String.valueOf(expiresAfter), String.valueOf(expiresBefore), String.valueOf(jwtName), String.valueOf(issuer));
+    }
+}
@@ -0,0 +1,51 @@
+package buerostack.jwt.repo;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Read-only row of the token listing: metadata joined with its denylist entry, if any.
+ * Revocation columns are null when the token has not been revoked.
+ */
+public class JwtTokenView {
+
+    private final UUID id;
+    private final UUID jwtUuid;
+    private final String subject;
+    private final String jwtName;
+    private final Instant issuedAt;
+    private final long issuedAtMicros;
+    private final Instant expiresAt;
+    private final String issuer;
+    private final String audience;
+    private final Instant revokedAt;
+    private final String revocationReason;
+
+    public JwtTokenView(UUID id, UUID jwtUuid, String subject, String jwtName, Instant issuedAt, long issuedAtMicros,
+                        Instant expiresAt, String issuer, String audience, Instant revokedAt, String revocationReason) {
+        this.id = id;
+        this.jwtUuid = jwtUuid;
+        this.subject = subject;
+        this.jwtName = jwtName;
+        this.issuedAt = issuedAt;
+        this.issuedAtMicros = issuedAtMicros;
+        this.expiresAt = expiresAt;
+        this.issuer = issuer;
+        this.audience = audience;
+        this.revokedAt = revokedAt;
+        this.revocationReason = revocationReason;
+    }
+
+    public UUID getId() { return id; }
+    public UUID getJwtUuid() { return jwtUuid; }
+    public String getSubject() { return subject; }
+    public String getJwtName() { return jwtName; }
+    public Instant getIssuedAt() { return issuedAt; }
+    // issued_at as epoch microseconds, computed in SQL so keyset cursors compare exactly
+    public long getIssuedAtMicros() { return issuedAtMicros; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public String getIssuer() { return issuer; }
+    public String getAudience() { return audience; }
+    public Instant getRevokedAt() { return revokedAt; }
+    public String getRevocationReason() { return revocationReason; }
+}
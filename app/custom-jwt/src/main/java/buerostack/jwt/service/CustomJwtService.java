@@ -1,59 +1,97 @@
 package buerostack.jwt.service;
 import buerostack.config.JwtSignerService;
+import buerostack.config.ParsedToken;
+import buerostack.config.SignedToken;
 import buerostack.jwt.api.JwtValidationResponse;
 import buerostack.jwt.entity.*;
 import buerostack.jwt.repo.*;
-import com.nimbusds.jwt.SignedJWT;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.util.*;
 import java.time.format.DateTimeParseException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import java.util.function.Consumer;
+import buerostack.jwt.api.JwtExportRequest;
 import buerostack.jwt.api.JwtListRequest;
 import buerostack.jwt.api.JwtListResponse;
 import buerostack.jwt.api.JwtTokenSummary;
 @Service public class CustomJwtService {
- private final JwtSignerService signer; private final CustomDenylistRepo denylistRepo; private final CustomJwtMetadataRepo metaRepo;
- public CustomJwtService(JwtSignerService s, CustomDenylistRepo d, CustomJwtMetadataRepo m){ this.signer=s; this.denylistRepo=d; this.metaRepo=m; }
+ private final JwtSignerService signer; private final CustomDenylistRepo denylistRepo; private final CustomJwtMetadataRepo metaRepo; private final RevocationCache revocationCache; private final CustomDenylistJdbcRepo denylistJdbcRepo; private final CustomJwtMetadataJdbcRepo metaJdbcRepo; private final TokenMetadataWriter metadataWriter; private final TokenCountCache tokenCounts=new TokenCountCache();
+ public CustomJwtService(JwtSignerService s, CustomDenylistRepo d, CustomJwtMetadataRepo m, RevocationCache r, CustomDenylistJdbcRepo dj, CustomJwtMetadataJdbcRepo mj, TokenMetadataWriter w){ this.signer=s; this.denylistRepo=d; this.metaRepo=m; this.revocationCache=r; this.denylistJdbcRepo=dj; this.metaJdbcRepo=mj; this.metadataWriter=w; }
  public String generate(String jwtName, Map<String,Object> claims, String issuer, List<String> audiences, long ttl) throws Exception {
    // Add token_type claim for introspection
    Map<String,Object> claimsWithType = new HashMap<>(claims);
    claimsWithType.put("token_type", "custom_jwt");
 
-   String token = signer.sign(claimsWithType, issuer, audiences, ttl);
-   var jwt = SignedJWT.parse(token);
-   var jti = java.util.UUID.fromString(jwt.getJWTClaimsSet().getJWTID());
+   SignedToken signed = signer.signWithClaims(claimsWithType, issuer, audiences, ttl);
+   // Synchronous save, or queued for a batched insert when jwt.custom.metadata-write.mode=write-behind
+   metadataWriter.write(newTokenMetadata(signed, claims, jwtName));
+   return signed.getToken();
+ }
+
+ /** One token of a bulk issuance. */
+ public static final class TokenSpec {
+   private final String jwtName; private final Map<String,Object> claims; private final List<String> audiences; private final long ttl;
+   public TokenSpec(String jwtName, Map<String,Object> claims, List<String> audiences, long ttl){ this.jwtName=jwtName; this.claims=claims; this.audiences=audiences; this.ttl=ttl; }
+   public String getJwtName(){ return jwtName; } public Map<String,Object> getClaims(){ return claims; } public List<String> getAudiences(){ return audiences; } public long getTtl(){ return ttl; }
+ }
+
+ /**
+  * Issue a batch of tokens: signed in parallel across cores, then all metadata rows inserted with one statement
+  * per repo chunk before any token is returned. Results are in input order. Callers bound the batch size.
+  */
+ public List<SignedToken> generateAll(List<TokenSpec> specs, String issuer) {
+   List<SignedToken> signed = specs.parallelStream().map(spec -> {
+     Map<String,Object> claimsWithType = new HashMap<>(spec.getClaims());
+     claimsWithType.put("token_type", "custom_jwt");
+     try { return signer.signWithClaims(claimsWithType, issuer, spec.getAudiences(), spec.getTtl()); }
+     catch (Exception e) { throw new IllegalStateException("Signing failed: " + e.getMessage(), e); }
+   }).toList();
+   List<CustomJwtMetadata> rows = new ArrayList<>(signed.size());
+   for (int i = 0; i < signed.size(); i++) rows.add(newTokenMetadata(signed.get(i), specs.get(i).getClaims(), specs.get(i).getJwtName()));
+   metaJdbcRepo.insertAll(rows);
+   return signed;
+ }
 
+ // Metadata comes from the claims we just signed, not from decoding the token again
+ private static CustomJwtMetadata newTokenMetadata(SignedToken signed, Map<String,Object> claims, String jwtName) {
+   var jti = signed.getJti();
    var meta = new CustomJwtMetadata(
        jti,
        String.join(",", claims.keySet()),
-       jwt.getJWTClaimsSet().getIssueTime().toInstant(),
-       jwt.getJWTClaimsSet().getExpirationTime().toInstant(),
+       signed.getIssuedAt(),
+       signed.getExpiresAt(),
        jti // For new tokens, original_jwt_uuid is the same as jwt_uuid
    );
-   meta.setSubject(jwt.getJWTClaimsSet().getSubject());
+   meta.setSubject(signed.getSubject());
    meta.setJwtName(jwtName);
-   meta.setIssuer(jwt.getJWTClaimsSet().getIssuer());
-   meta.setAudience(jwt.getJWTClaimsSet().getAudience() != null ? String.join(",", jwt.getJWTClaimsSet().getAudience()) : null);
-   metaRepo.save(meta);
-   return token;
+   meta.setIssuer(signed.getIssuer());
+   meta.setAudience(signed.getAudience());
+   return meta;
  }
- public boolean isRevoked(String token){ try{ var jwt = SignedJWT.parse(token); var jti = java.util.UUID.fromString(jwt.getJWTClaimsSet().getJWTID());
-   return denylistRepo.findById(jti).isPresent(); }catch(Exception e){ return true; } }
+ public boolean isRevoked(String token){ try{ return isRevoked(ParsedToken.parse(token)); }catch(Exception e){ return true; } }
+ public boolean isRevoked(ParsedToken token){ var jti = token.getJti(); if (jti == null) return true;
+   // Served from the node-local set while it is in sync with the database, otherwise a direct lookup
+   if (revocationCache.isReady()) return revocationCache.contains(jti);
+   return denylistRepo.findById(jti).isPresent(); }
+ /** Revoked subset of the given jtis, resolved with at most one denylist query. */
+ public Set<UUID> revokedAmong(Collection<UUID> jtis){ if (jtis.isEmpty()) return Set.of();
+   if (revocationCache.isReady()) { Set<UUID> revoked = new HashSet<>(); for (UUID jti : jtis) if (revocationCache.contains(jti)) revoked.add(jti); return revoked; }
+   return denylistJdbcRepo.findExisting(jtis); }
  @Transactional public boolean denylist(String token) throws Exception { return denylist(token, null); }
 
- @Transactional public boolean denylist(String token, String reason) throws Exception { var jwt = SignedJWT.parse(token); var jti = java.util.UUID.fromString(jwt.getJWTClaimsSet().getJWTID());
+ @Transactional public boolean denylist(String token, String reason) throws Exception { return denylist(ParsedToken.parse(token), reason); }
+
+ @Transactional public boolean denylist(ParsedToken token, String reason) throws Exception { var jti = token.getJti();
+   if (jti == null) throw new Exception("Token has no valid jti");
 
    // Check if already revoked
    if (denylistRepo.findById(jti).isPresent()) {
        return false; // Already revoked
    }
 
-   var dl = new CustomDenylist(); dl.setJwtUuid(jti); dl.setDenylistedAt(Instant.now()); dl.setExpiresAt(jwt.getJWTClaimsSet().getExpirationTime().toInstant()); dl.setReason(reason); denylistRepo.save(dl);
+   var dl = new CustomDenylist(); dl.setJwtUuid(jti); dl.setDenylistedAt(Instant.now()); dl.setExpiresAt(token.getClaims().getExpirationTime().toInstant()); dl.setReason(reason); denylistRepo.save(dl);
+   revocationCache.recordRevocation(jti, dl.getExpiresAt());
    return true; // Newly revoked
  }
 
@@ -67,19 +105,45 @@ import buerostack.jwt.api.JwtTokenSummary;
    List<String> alreadyRevoked = new ArrayList<>();
    List<Map<String, String>> failed = new ArrayList<>();
 
-   for (String token : tokens) {
+   // Parsing is CPU-bound and independent per token; the order of the input is preserved
+   List<BulkParse> parsed = tokens.parallelStream().map(token -> {
      try {
-       boolean wasNewlyRevoked = denylist(token, reason);
-       String tokenPrefix = token.substring(0, Math.min(20, token.length())) + "...";
-       if (wasNewlyRevoked) {
+       var p = ParsedToken.parse(token);
+       if (p.getJti() == null) return BulkParse.failed("Token has no valid jti");
+       if (p.getExpiresAt() == null) return BulkParse.failed("Token has no expiration");
+       return BulkParse.parsed(p);
+     } catch (Exception e) {
+       return BulkParse.failed(e.getMessage());
+     }
+   }).toList();
+
+   List<UUID> jtis = new ArrayList<>();
+   List<Long> expirations = new ArrayList<>();
+   for (BulkParse p : parsed) {
+     if (p.token != null) { jtis.add(p.token.getJti()); expirations.add(p.token.getExpiresAt()); }
+   }
+
+   // One set-based INSERT ... ON CONFLICT DO NOTHING RETURNING per chunk instead of a lookup and save per token
+   Set<UUID> inserted = jtis.isEmpty() ? Set.of() : denylistJdbcRepo.insertIfAbsent(jtis, expirations, reason);
+   Set<UUID> unclaimed = new HashSet<>(inserted);
+
+   for (int i = 0; i < tokens.size(); i++) {
+     String token = tokens.get(i);
+     String tokenPrefix = token.substring(0, Math.min(20, token.length())) + "...";
+     BulkParse p = parsed.get(i);
+     if (p.token != null) {
+       ParsedToken t = p.token;
+       // A jti listed twice in one request counts as newly revoked only once
+       if (unclaimed.remove(t.getJti())) {
          newlyRevoked.add(tokenPrefix);
+         revocationCache.recordRevocation(t.getJti(), Instant.ofEpochSecond(t.getExpiresAt()));
        } else {
          alreadyRevoked.add(tokenPrefix);
        }
-     } catch (Exception e) {
+     } else {
        Map<String, String> failure = new HashMap<>();
-       failure.put("token", token.substring(0, Math.min(20, token.length())) + "...");
-       failure.put("reason", e.getMessage());
+       failure.put("token", tokenPrefix);
+       failure.put("reason", p.failure);
        failed.add(failure);
      }
    }
@@ -95,14 +159,28 @@ import buerostack.jwt.api.JwtTokenSummary;
    return result;
  }
 
- @Transactional public String extend(String oldToken, String issuer, List<String> audiences, long ttl) throws Exception {
+ /** One token of a bulk revocation: parsed, or the reason it could not be. */
+ private static final class BulkParse {
+   private final ParsedToken token; private final String failure;
+   private BulkParse(ParsedToken token, String failure){ this.token=token; this.failure=failure; }
+   static BulkParse parsed(ParsedToken token){ return new BulkParse(token, null); } static BulkParse failed(String failure){ return new BulkParse(null, failure); }
+ }
+
+ /**
+  * Signature and expiry are checked on the parsed token; the revocation check, chain lookup, insert of the new version and
+  * denylisting of the old token are then a single locking statement, so two concurrent extensions cannot both succeed.
+  */
+ public String extend(String oldToken, String issuer, List<String> audiences, long ttl) throws Exception {
    // Parse and validate the old token
-   var jwt = SignedJWT.parse(oldToken);
-   var claims = jwt.getJWTClaimsSet();
-   var oldJti = java.util.UUID.fromString(jwt.getJWTClaimsSet().getJWTID());
+   var parsed = ParsedToken.parse(oldToken);
+   var claims = parsed.getClaims();
+   var oldJti = parsed.getJti();
+   if (oldJti == null) {
+     throw new Exception("Token has no valid jti - cannot extend");
+   }
 
    // Validate the old token (must be valid but can be close to expiration)
-   if (!signer.verify(oldToken)) {
+   if (!signer.verify(parsed)) {
      throw new Exception("Invalid signature - cannot extend");
    }
 
@@ -110,14 +188,11 @@ import buerostack.jwt.api.JwtTokenSummary;
      throw new Exception("Token expired - cannot extend");
    }
 
-   if (isRevoked(oldToken)) {
+   // Known revocations are turned away before signing; the statement below has the final word
+   if (revocationCache.isReady() && revocationCache.contains(oldJti)) {
      throw new Exception("Token revoked - cannot extend");
    }
 
-   // Find the current version of this JWT to get the original JWT UUID
-   var currentMeta = metaRepo.findCurrentVersionByJwtUuid(oldJti)
-       .orElseThrow(() -> new Exception("JWT metadata not found"));
-
    // Extract existing claims from old token (preserve custom claims)
    Map<String, Object> existingClaims = new HashMap<>(claims.getClaims());
 
@@ -129,62 +204,58 @@ import buerostack.jwt.api.JwtTokenSummary;
    existingClaims.remove("jti"); // JWT ID
 
    // Generate new token with existing claims
-   String newToken = signer.sign(existingClaims, issuer, audiences, ttl);
-   var newJwt = SignedJWT.parse(newToken);
-   var newJti = java.util.UUID.fromString(newJwt.getJWTClaimsSet().getJWTID());
-
-   // Create new metadata record for extended token (INSERT operation)
-   var extendedMeta = new CustomJwtMetadata(
-       newJti, // New JWT UUID for the extended token
-       String.join(",", existingClaims.keySet()),
-       newJwt.getJWTClaimsSet().getIssueTime().toInstant(),
-       newJwt.getJWTClaimsSet().getExpirationTime().toInstant(),
-       currentMeta.getOriginalJwtUuid() // Reference to the original JWT in the chain
-   );
-   extendedMeta.setSupersedes(currentMeta.getId()); // Reference to the previous version
-   extendedMeta.setSubject(newJwt.getJWTClaimsSet().getSubject());
+   SignedToken newToken = signer.signWithClaims(existingClaims, issuer, audiences, ttl);
+
+   // New metadata record for the extended token; supersedes and original_jwt_uuid are taken from the current version in the database
+   var extendedMeta = new CustomJwtMetadata(newToken.getJti(), String.join(",", existingClaims.keySet()), newToken.getIssuedAt(), newToken.getExpiresAt(), null);
+   extendedMeta.setSubject(newToken.getSubject());
    extendedMeta.setJwtName(existingClaims.get("jwt_name") != null ? existingClaims.get("jwt_name").toString() : null);
-   extendedMeta.setAudience(newJwt.getJWTClaimsSet().getAudience() != null ? String.join(",", newJwt.getJWTClaimsSet().getAudience()) : null);
-   extendedMeta.setIssuer(newJwt.getJWTClaimsSet().getIssuer());
-   metaRepo.save(extendedMeta);
+   extendedMeta.setAudience(newToken.getAudience());
+   extendedMeta.setIssuer(newToken.getIssuer());
 
-   // Add old token to denylist (INSERT operation)
-   denylist(oldToken);
+   var outcome = metaJdbcRepo.extend(oldJti, parsed.getExpiresAt(), extendedMeta);
+   // A token issued moments ago may still be queued, or being inserted, by write-behind
+   if (outcome == CustomJwtMetadataJdbcRepo.ExtendOutcome.NOT_FOUND && metadataWriter.backlog() > 0 && metadataWriter.awaitWritten()) {
+     outcome = metaJdbcRepo.extend(oldJti, parsed.getExpiresAt(), extendedMeta);
+   }
+   switch (outcome) {
+     case NOT_FOUND -> throw new Exception("JWT metadata not found");
+     case REVOKED -> throw new Exception("Token revoked - cannot extend");
+     case EXTENDED -> revocationCache.recordRevocation(oldJti, claims.getExpirationTime().toInstant());
+   }
 
-   return newToken;
+   return newToken.getToken();
  }
 
  public JwtListResponse listUserTokens(String subject, JwtListRequest request) {
+   // An empty cursor starts cursor mode from the newest token
+   if (request.getCursor() != null) return listUserTokensAfter(subject, request, request.getCursor().isEmpty() ? null : TokenListCursor.decode(request.getCursor()));
    try {
-     // Parse date filters
-     Instant issuedAfter = parseInstant(request.getIssuedAfter());
-     Instant issuedBefore = parseInstant(request.getIssuedBefore());
-     Instant expiresAfter = parseInstant(request.getExpiresAfter());
-     Instant expiresBefore = parseInstant(request.getExpiresBefore());
+     JwtTokenFilter filter = toFilter(subject, request);
 
      // Create pagination
      int page = request.getOffset() != null ? request.getOffset() : 0;
      int size = request.getLimit() != null ? request.getLimit() : 20;
-     Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "issuedAt"));
 
-     // Query with filters - temporarily use simple method
-     Page<CustomJwtMetadata> resultPage = metaRepo.findBySubject(subject, pageable);
-
-     // Convert to response format
-     List<JwtTokenSummary> tokens = resultPage.getContent().stream()
-       .map(this::convertToTokenSummary)
-       .toList();
+     // One extra row tells whether another page exists
+     List<JwtTokenView> rows = metaJdbcRepo.findTokenViews(filter, null, null, page * size, size + 1);
+     boolean hasMore = rows.size() > size;
+     if (hasMore) rows = rows.subList(0, size);
+     long total = metaJdbcRepo.countTokens(filter);
 
      // Build response
      JwtListResponse response = new JwtListResponse();
-     response.setTokens(tokens);
+     response.setTokens(rows.stream().map(this::convertToTokenSummary).toList());
 
      JwtListResponse.PaginationInfo pagination = new JwtListResponse.PaginationInfo();
-     pagination.setTotal(resultPage.getTotalElements());
-     pagination.setPage(resultPage.getNumber());
-     pagination.setSize(resultPage.getSize());
-     pagination.setTotalPages(resultPage.getTotalPages());
+     pagination.setTotal(total);
+     pagination.setPage(page);
+     pagination.setSize(size);
+     pagination.setTotalPages(size > 0 ? (int) ((total + size - 1) / size) : 0);
+     pagination.setHasMore(hasMore);
      response.setPagination(pagination);
+     // Lets offset clients switch to cursor mode for the following pages
+     if (hasMore && !rows.isEmpty()) response.setNextCursor(cursorAfter(rows.get(rows.size() - 1)));
 
      return response;
    } catch (Exception e) {
@@ -201,28 +272,60 @@ import buerostack.jwt.api.JwtTokenSummary;
    }
  }
 
- private JwtTokenSummary convertToTokenSummary(CustomJwtMetadata metadata) {
+ /** Keyset page: rows strictly after the cursor in (issued_at DESC, id DESC) order, with no OFFSET scan and no count unless asked for. */
+ private JwtListResponse listUserTokensAfter(String subject, JwtListRequest request, TokenListCursor cursor) {
+   JwtTokenFilter filter = toFilter(subject, request);
+   int size = request.getLimit() != null ? request.getLimit() : 20;
+   List<JwtTokenView> rows = metaJdbcRepo.findTokenViews(filter, cursor != null ? cursor.getIssuedAtMicros() : null, cursor != null ? cursor.getId() : null, 0, size + 1);
+   boolean hasMore = rows.size() > size;
+   if (hasMore) rows = rows.subList(0, size);
+
+   JwtListResponse response = new JwtListResponse();
+   response.setTokens(rows.stream().map(this::convertToTokenSummary).toList());
+   JwtListResponse.PaginationInfo pagination = new JwtListResponse.PaginationInfo();
+   pagination.setSize(size);
+   pagination.setHasMore(hasMore);
+   if (Boolean.TRUE.equals(request.getIncludeTotal())) pagination.setTotal(tokenCounts.get(filter.cacheKey(), key -> metaJdbcRepo.countTokens(filter)));
+   response.setPagination(pagination);
+   if (hasMore && !rows.isEmpty()) response.setNextCursor(cursorAfter(rows.get(rows.size() - 1)));
+   return response;
+ }
+
+ /** Streams every token of the export's subject and/or issuer to the consumer, newest first, straight from a database cursor. Returns the number of tokens. */
+ public long exportTokens(JwtExportRequest request, Consumer<JwtTokenSummary> consumer) {
+   JwtTokenFilter filter = new JwtTokenFilter(blankToNull(request.getSubject()), statusFilter(request.getStatus()), parseInstant(request.getIssuedAfter()), parseInstant(request.getIssuedBefore()),
+     parseInstant(request.getExpiresAfter()), parseInstant(request.getExpiresBefore()), blankToNull(request.getJwtName()), blankToNull(request.getIssuer()));
+   return metaJdbcRepo.exportTokenViews(filter, view -> consumer.accept(convertToTokenSummary(view)));
+ }
+
+ private JwtTokenFilter toFilter(String subject, JwtListRequest request) {
+   return new JwtTokenFilter(subject, statusFilter(request.getStatus()), parseInstant(request.getIssuedAfter()), parseInstant(request.getIssuedBefore()),
+     parseInstant(request.getExpiresAfter()), parseInstant(request.getExpiresBefore()), blankToNull(request.getJwtName()));
+ }
+
+ // Unknown status values (e.g. "all") do not filter
+ private static String statusFilter(String status) { return status == null ? null : switch (status.toLowerCase(Locale.ROOT)) { case "active", "expired", "revoked" -> status.toLowerCase(Locale.ROOT); default -> null; }; }
+
+ private static String blankToNull(String value) { return value == null || value.isBlank() ? null : value; }
+
+ private static String cursorAfter(JwtTokenView last) { return new TokenListCursor(last.getIssuedAtMicros(), last.getId()).encode(); }
+
+ private JwtTokenSummary convertToTokenSummary(JwtTokenView view) {
    JwtTokenSummary summary = new JwtTokenSummary();
-   summary.setJti(metadata.getJwtUuid().toString());
-   summary.setSubject(metadata.getSubject());
-   summary.setJwtName(metadata.getJwtName());
-   summary.setIssuedAt(metadata.getIssuedAt());
-   summary.setExpiresAt(metadata.getExpiresAt());
-   summary.setIssuer(metadata.getIssuer());
-   summary.setAudience(metadata.getAudience());
-
-   // Determine status
-   boolean isExpired = metadata.getExpiresAt().isBefore(Instant.now());
-   boolean isRevoked = denylistRepo.findById(metadata.getJwtUuid()).isPresent();
-
-   if (isRevoked) {
+   summary.setJti(view.getJwtUuid().toString());
+   summary.setSubject(view.getSubject());
+   summary.setJwtName(view.getJwtName());
+   summary.setIssuedAt(view.getIssuedAt());
+   summary.setExpiresAt(view.getExpiresAt());
+   summary.setIssuer(view.getIssuer());
+   summary.setAudience(view.getAudience());
+
+   // Revocation columns come from the LEFT JOIN and are null for tokens that are not denylisted
+   if (view.getRevokedAt() != null) {
      summary.setStatus("revoked");
-     var denylistEntry = denylistRepo.findById(metadata.getJwtUuid()).orElse(null);
-     if (denylistEntry != null) {
-       summary.setRevokedAt(denylistEntry.getDenylistedAt());
-       summary.setRevocationReason(denylistEntry.getReason());
-     }
-   } else if (isExpired) {
+     summary.setRevokedAt(view.getRevokedAt());
+     summary.setRevocationReason(view.getRevocationReason());
+   } else if (view.getExpiresAt().isBefore(Instant.now())) {
      summary.setStatus("expired");
    } else {
      summary.setStatus("active");
@@ -244,9 +347,15 @@ import buerostack.jwt.api.JwtTokenSummary;
 
  public JwtValidationResponse validate(String token, String expectedAudience, String expectedIssuer) throws Exception {
    try {
-     // Parse JWT and extract claims
-     var jwt = SignedJWT.parse(token);
-     var claims = jwt.getJWTClaimsSet();
+     return validate(ParsedToken.parse(token), expectedAudience, expectedIssuer);
+   } catch (java.text.ParseException e) {
+     return new JwtValidationResponse(false, false, "Invalid token format");
+   }
+ }
+
+ public JwtValidationResponse validate(ParsedToken token, String expectedAudience, String expectedIssuer) throws Exception {
+   try {
+     var claims = token.getClaims();
 
      // Check signature first
      if (!signer.verify(token)) {
@@ -288,8 +397,6 @@ import buerostack.jwt.api.JwtTokenSummary;
      response.setClaims(claims.getClaims());
 
      return response;
-   } catch (java.text.ParseException e) {
-     return new JwtValidationResponse(false, false, "Invalid token format");
    } catch (Exception e) {
      // Log full error for debugging but return clean message
      System.err.println("JWT validation error: " + e.getMessage());
@@ -0,0 +1,11 @@
+package buerostack.jwt.service;
+
+/**
+ * Token metadata could not be queued or committed in time; the token was not issued.
+ */
+public class MetadataBacklogException extends RuntimeException {
+
+    public MetadataBacklogException(String message) {
+        super(message);
+    }
+}
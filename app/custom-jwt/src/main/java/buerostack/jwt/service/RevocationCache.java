@@ -0,0 +1,333 @@
+package buerostack.jwt.service;
+
+import buerostack.jwt.config.JwtCustomConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Node-local set of revoked, not yet expired custom JWT ids.
+ *
+ * Loaded from custom_jwt.denylist at startup and kept current through the
+ * custom_jwt_denylist NOTIFY channel (see db/init.sql), with periodic reconciliation
+ * against the table as a safety net. The set is only consulted while the listener
+ * connection is healthy; otherwise {@link #isReady()} is false and callers go to the database,
+ * so several nodes sharing one database never serve a stale "not revoked".
+ *
+ * The listener opens its own connection outside the pool, so it neither holds a pool slot
+ * for the lifetime of the node nor hands a subscribed session back to other callers.
+ */
+@Component
+public class RevocationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationCache.class);
+
+    static final String CHANNEL = "custom_jwt_denylist";
+
+    // Expired entries are kept a little longer so clock differences never drop a live revocation
+    private static final long EXPIRY_GRACE_SECONDS = 300;
+
+    // A silent LISTEN connection cannot notice a dead peer, so it is probed periodically
+    static final long LISTENER_PROBE_MILLIS = 5_000;
+
+    // Socket timeout of the listener connection, so a probe on a half-open connection fails instead of blocking
+    private static final int LISTENER_NETWORK_TIMEOUT_MILLIS = 5_000;
+
+    private static final String LOAD_SQL =
+        "SELECT jwt_uuid, extract(epoch from expires_at)::bigint FROM custom_jwt.denylist " +
+        "WHERE expires_at > (to_timestamp(?) AT TIME ZONE 'UTC')";
+
+    private final DataSource dataSource;
+    private final ListenerConnections listenerConnections;
+    private final JwtCustomConfig.RevocationCacheSettings settings;
+    private final long probeMillis;
+
+    // jti -> token expiry (epoch seconds)
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+
+    private final List<Consumer<UUID>> revocationListeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean ready;
+    // Last time the listener connection was known to be alive (load or successful probe)
+    private volatile long confirmedAt;
+    private volatile boolean running;
+    private Thread listenerThread;
+    private ScheduledExecutorService reconciler;
+
+    /**
+     * Opens the dedicated listener connection
+     */
+    interface ListenerConnections {
+        Connection open() throws SQLException;
+    }
+
+    @Autowired
+    public RevocationCache(@Qualifier("customJwtDataSource") DataSource dataSource, JwtCustomConfig config) {
+        this(dataSource, () -> openUnpooled(dataSource), config, LISTENER_PROBE_MILLIS);
+    }
+
+    RevocationCache(DataSource dataSource, ListenerConnections listenerConnections, JwtCustomConfig config, long probeMillis) {
+        this.dataSource = dataSource;
+        this.listenerConnections = listenerConnections;
+        this.settings = config.getRevocationCache();
+        this.probeMillis = probeMillis;
+    }
+
+    /**
+     * Same URL and credentials as the pool, but a plain driver connection. Other DataSource
+     * types fall back to borrowing one, which is unsubscribed again before it is returned.
+     */
+    private static Connection openUnpooled(DataSource dataSource) throws SQLException {
+        if (dataSource instanceof HikariDataSource hikari) {
+            Properties properties = new Properties();
+            properties.putAll(hikari.getDataSourceProperties());
+            if (hikari.getUsername() != null) {
+                properties.setProperty("user", hikari.getUsername());
+            }
+            if (hikari.getPassword() != null) {
+                properties.setProperty("password", hikari.getPassword());
+            }
+            return DriverManager.getConnection(hikari.getJdbcUrl(), properties);
+        }
+        return dataSource.getConnection();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            logger.info("Revocation cache disabled, every revocation check queries custom_jwt.denylist");
+            return;
+        }
+        running = true;
+
+        listenerThread = new Thread(this::listenLoop, "revocation-cache-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "revocation-cache-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = settings.getReconcileIntervalSeconds();
+        reconciler.scheduleWithFixedDelay(this::reconcile, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        ready = false;
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    /**
+     * True while the set is loaded and the listener is connected, i.e. when {@link #contains} is authoritative.
+     * Turns false on its own once a liveness probe is overdue, even if the listener thread is stuck.
+     */
+    public boolean isReady() {
+        return ready && System.currentTimeMillis() - confirmedAt <= probeMillis + LISTENER_NETWORK_TIMEOUT_MILLIS;
+    }
+
+    public boolean contains(UUID jti) {
+        return revoked.containsKey(jti);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Register a callback for jtis newly seen as revoked, whether revoked on this node or
+     * reported by another node through NOTIFY. Used to drop derived state such as cached
+     * introspection results. Callbacks run on the revoking or listener thread and must be cheap.
+     */
+    public void addRevocationListener(Consumer<UUID> listener) {
+        revocationListeners.add(listener);
+    }
+
+    /**
+     * Record a revocation made by this node. Applied once the surrounding transaction commits,
+     * so a rollback never leaves a phantom entry; other nodes learn about it through NOTIFY.
+     * Listeners are notified even when the cache itself is disabled.
+     */
+    public void recordRevocation(UUID jti, Instant expiresAt) {
+        long exp = expiresAt.getEpochSecond();
+        Runnable apply = () -> {
+            if (settings.isEnabled()) {
+                add(jti, exp);
+            } else {
+                notifyListeners(jti);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1000;
+        while (running) {
+            Connection connection = null;
+            try {
+                connection = listenerConnections.open();
+                connection.setAutoCommit(true);
+                connection.setNetworkTimeout(Runnable::run, LISTENER_NETWORK_TIMEOUT_MILLIS);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Load after LISTEN so nothing committed in between is missed
+                load(connection);
+                confirmedAt = System.currentTimeMillis();
+                ready = true;
+                backoffMs = 1000;
+                logger.info("Revocation cache ready with {} entries, listening on {}", revoked.size(), CHANNEL);
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                int pollMs = (int) settings.getListenerPollMillis();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(pollMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                    if (System.currentTimeMillis() - confirmedAt >= probeMillis) {
+                        // Fails with a socket timeout on a half-open connection, which drops readiness and reconnects
+                        try (Statement probe = connection.createStatement()) {
+                            probe.execute("SELECT 1");
+                        }
+                        confirmedAt = System.currentTimeMillis();
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    logger.warn("Revocation cache listener lost its connection, falling back to database lookups: {}", e.getMessage());
+                }
+            } finally {
+                ready = false;
+                close(connection);
+            }
+
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, 30_000);
+        }
+    }
+
+    private void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.isClosed()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("UNLISTEN *");
+                }
+            }
+        } catch (SQLException e) {
+            logger.debug("UNLISTEN on the revocation cache listener failed: {}", e.getMessage());
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Closing the revocation cache listener failed: {}", e.getMessage());
+        }
+    }
+
+    private void apply(String payload) {
+        int separator = payload.indexOf(':');
+        try {
+            UUID jti = UUID.fromString(payload.substring(0, separator));
+            long exp = Long.parseLong(payload.substring(separator + 1));
+            add(jti, exp);
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed revocation notification: {}", payload);
+        }
+    }
+
+    /**
+     * Merge unexpired rows from the table and drop entries whose tokens have expired.
+     * Rows are never removed from the set just because they are missing from a reload;
+     * a notification may have arrived while the query ran.
+     */
+    void reconcile() {
+        try (Connection connection = dataSource.getConnection()) {
+            load(connection);
+        } catch (SQLException e) {
+            logger.warn("Revocation cache reconciliation failed: {}", e.getMessage());
+        }
+        long cutoff = Instant.now().getEpochSecond() - EXPIRY_GRACE_SECONDS;
+        revoked.values().removeIf(exp -> exp < cutoff);
+    }
+
+    private void add(UUID jti, long exp) {
+        if (revoked.put(jti, exp) == null) {
+            notifyListeners(jti);
+        }
+    }
+
+    private void notifyListeners(UUID jti) {
+        for (Consumer<UUID> listener : revocationListeners) {
+            try {
+                listener.accept(jti);
+            } catch (RuntimeException e) {
+                logger.warn("Revocation listener failed for {}: {}", jti, e.getMessage());
+            }
+        }
+    }
+
+    private void load(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LOAD_SQL)) {
+            statement.setLong(1, Instant.now().getEpochSecond() - EXPIRY_GRACE_SECONDS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    add(rs.getObject(1, UUID.class), rs.getLong(2));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package buerostack.jwt.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Short-lived token counts per listing filter for cursor pagination, where totals are optional
+ * and a slightly stale figure is preferable to a count(*) over every page request.
+ */
+final class TokenCountCache {
+
+    private static final long TTL_MILLIS = 60_000;
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Map<String, long[]> counts = new ConcurrentHashMap<>(); // filter key -> {count, expiresAtMillis}
+
+    long get(String key, Function<String, Long> loader) {
+        long now = System.currentTimeMillis();
+        long[] cached = counts.get(key);
+        if (cached != null && cached[1] > now) {
+            return cached[0];
+        }
+        long count = loader.apply(key);
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.values().removeIf(entry -> entry[1] <= now);
+            if (counts.size() >= MAX_ENTRIES) {
+                counts.clear();
+            }
+        }
+        counts.put(key, new long[]{count, now + TTL_MILLIS});
+        return count;
+    }
+}
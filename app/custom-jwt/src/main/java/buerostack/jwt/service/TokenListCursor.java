@@ -0,0 +1,42 @@
+package buerostack.jwt.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor for the token listing: the (issued_at, id) of the last row returned.
+ * issued_at is carried as epoch microseconds so it round-trips exactly through the database.
+ */
+final class TokenListCursor {
+
+    private final long issuedAtMicros;
+    private final UUID id;
+
+    TokenListCursor(long issuedAtMicros, UUID id) {
+        this.issuedAtMicros = issuedAtMicros;
+        this.id = id;
+    }
+
+    long getIssuedAtMicros() { return issuedAtMicros; }
+
+    UUID getId() { return id; }
+
+    String encode() {
+        String raw = issuedAtMicros + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    static TokenListCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            return new TokenListCursor(Long.parseLong(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
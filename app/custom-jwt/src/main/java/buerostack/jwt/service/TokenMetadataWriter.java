@@ -0,0 +1,331 @@
+package buerostack.jwt.service;
+
+import buerostack.jwt.config.JwtCustomConfig;
+import buerostack.jwt.entity.CustomJwtMetadata;
+import buerostack.jwt.repo.CustomJwtMetadataJdbcRepo;
+import buerostack.jwt.repo.CustomJwtMetadataRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persists metadata of newly generated tokens.
+ *
+ * In the default "sync" mode each record is saved through JPA in the caller's thread. In
+ * "write-behind" mode records go into a bounded queue and one background thread inserts them
+ * in batches: it takes whatever is queued, waits at most max-batch-delay-millis for more, and
+ * commits up to batch-size rows with a single statement. With durability "flush" the caller
+ * waits until its batch is committed, so concurrent requests share one commit; with "enqueue"
+ * it returns as soon as the record is queued and a crash can lose the queued records.
+ * A full queue blocks callers for up to timeout-millis and then fails with
+ * {@link MetadataBacklogException}. With durability "flush" the same happens when the batch is not
+ * committed within timeout-millis; the record is then withdrawn from the queue, so no row appears
+ * for a token that was never handed out. A record the writer has already taken cannot be
+ * withdrawn, and its caller waits for that insert to finish instead.
+ *
+ * A failed batch insert is retried up to retry-attempts times with exponential backoff. Records
+ * of a batch that still fails are given up and counted in "jwt.metadata.write.failures".
+ */
+@Component
+public class TokenMetadataWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenMetadataWriter.class);
+
+    private static final long SHUTDOWN_DRAIN_MILLIS = 10_000;
+
+    static final String FAILURES_METRIC = "jwt.metadata.write.failures";
+
+    private final CustomJwtMetadataRepo metaRepo;
+    private final CustomJwtMetadataJdbcRepo metaJdbcRepo;
+    private final JwtCustomConfig.MetadataWriteSettings settings;
+    private final Counter failedRecords;
+
+    private BlockingQueue<Pending> queue;
+    // Records queued or taken by the writer and not yet committed or failed
+    private final AtomicInteger unwritten = new AtomicInteger();
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @Autowired
+    public TokenMetadataWriter(CustomJwtMetadataRepo metaRepo, CustomJwtMetadataJdbcRepo metaJdbcRepo, JwtCustomConfig config,
+                               ObjectProvider<MeterRegistry> meterRegistry) {
+        this(metaRepo, metaJdbcRepo, config, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    TokenMetadataWriter(CustomJwtMetadataRepo metaRepo, CustomJwtMetadataJdbcRepo metaJdbcRepo, JwtCustomConfig config,
+                        MeterRegistry meterRegistry) {
+        this.metaRepo = metaRepo;
+        this.metaJdbcRepo = metaJdbcRepo;
+        this.settings = config.getMetadataWrite();
+        this.failedRecords = Counter.builder(FAILURES_METRIC)
+                .description("Write-behind token metadata records given up after all insert attempts failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isWriteBehind()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        running = true;
+        writerThread = new Thread(this::run, "jwt-metadata-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Token metadata write-behind enabled (queue {}, batch {}, ack after {})",
+                settings.getQueueCapacity(), settings.getBatchSize(), settings.isAckAfterFlush() ? "flush" : "enqueue");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        // The writer drains what is still queued before it exits
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_DRAIN_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("{} token metadata records were not written before shutdown", queue.size());
+        }
+    }
+
+    /**
+     * Store the metadata of a token that is about to be handed out.
+     *
+     * @throws MetadataBacklogException if the record cannot be queued, or committed with durability "flush", in time
+     */
+    public void write(CustomJwtMetadata meta) {
+        if (!running) {
+            metaRepo.save(meta);
+            return;
+        }
+        Pending pending = new Pending(meta, settings.isAckAfterFlush() ? new CompletableFuture<>() : null);
+        enqueue(pending);
+        if (pending.committed != null) {
+            await(pending, "committed");
+        }
+    }
+
+    /**
+     * Wait until every record queued before this call is written. Returns at once in sync mode.
+     *
+     * @return false if that did not happen within timeout-millis or the write failed
+     */
+    public boolean awaitWritten() {
+        if (!running) {
+            return true;
+        }
+        Pending marker = new Pending(null, new CompletableFuture<>());
+        try {
+            enqueue(marker);
+            await(marker, "written");
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records not written yet, including those the writer is inserting right now; 0 in sync mode.
+     */
+    public int backlog() {
+        return unwritten.get();
+    }
+
+    private void enqueue(Pending pending) {
+        if (pending.meta != null) {
+            unwritten.incrementAndGet();
+        }
+        try {
+            if (!queue.offer(pending, settings.getTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                if (pending.meta != null) {
+                    unwritten.decrementAndGet();
+                }
+                throw new MetadataBacklogException("Token metadata queue is full (" + settings.getQueueCapacity() + " records)");
+            }
+        } catch (InterruptedException e) {
+            if (pending.meta != null) {
+                unwritten.decrementAndGet();
+            }
+            Thread.currentThread().interrupt();
+            throw new MetadataBacklogException("Interrupted while queueing token metadata");
+        }
+    }
+
+    private void await(Pending pending, String what) {
+        try {
+            pending.committed.get(settings.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (withdraw(pending)) {
+                throw new MetadataBacklogException("Token metadata was not " + what + " within " + settings.getTimeoutMillis() + " ms");
+            }
+            awaitTaken(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (withdraw(pending)) {
+                throw new MetadataBacklogException("Interrupted while waiting for token metadata to be " + what);
+            }
+            awaitTaken(pending);
+        } catch (ExecutionException e) {
+            throw failed(e.getCause());
+        }
+    }
+
+    /**
+     * Take a record the writer has not picked up yet back out of the queue.
+     */
+    private boolean withdraw(Pending pending) {
+        if (!pending.withdraw()) {
+            return false;
+        }
+        queue.remove(pending);
+        if (pending.meta != null) {
+            unwritten.decrementAndGet();
+        }
+        return true;
+    }
+
+    private static void awaitTaken(Pending pending) {
+        // The writer is inserting the record, so that insert decides the outcome
+        try {
+            pending.committed.join();
+        } catch (CompletionException e) {
+            throw failed(e.getCause());
+        }
+    }
+
+    private static IllegalStateException failed(Throwable cause) {
+        return new IllegalStateException("Token metadata could not be stored: " + cause.getMessage(), cause);
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, settings.getBatchSize());
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMaxBatchDelayMillis());
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        batch.removeIf(pending -> !pending.take());
+        List<CustomJwtMetadata> rows = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (pending.meta != null) {
+                rows.add(pending.meta);
+            }
+        }
+        try {
+            if (!rows.isEmpty()) {
+                insertWithRetry(rows);
+            }
+            unwritten.addAndGet(-rows.size());
+            for (Pending pending : batch) {
+                if (pending.committed != null) {
+                    pending.committed.complete(null);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Writing {} token metadata records failed, giving them up: {}", rows.size(), e.getMessage());
+            failedRecords.increment(rows.size());
+            unwritten.addAndGet(-rows.size());
+            for (Pending pending : batch) {
+                if (pending.committed != null) {
+                    pending.committed.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void insertWithRetry(List<CustomJwtMetadata> rows) {
+        int attempts = Math.max(1, settings.getRetryAttempts());
+        long backoffMillis = settings.getRetryBackoffMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                metaJdbcRepo.insertAll(rows);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                logger.warn("Writing {} token metadata records failed (attempt {} of {}), retrying in {} ms: {}",
+                        rows.size(), attempt, attempts, backoffMillis, e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final CustomJwtMetadata meta;
+        private final CompletableFuture<Void> committed;
+        // Decided once: taken by the writer or withdrawn by its caller
+        private final AtomicBoolean decided = new AtomicBoolean();
+
+        private Pending(CustomJwtMetadata meta, CompletableFuture<Void> committed) {
+            this.meta = meta;
+            this.committed = committed;
+        }
+
+        private boolean take() {
+            return decided.compareAndSet(false, true);
+        }
+
+        private boolean withdraw() {
+            return decided.compareAndSet(false, true);
+        }
+    }
+}
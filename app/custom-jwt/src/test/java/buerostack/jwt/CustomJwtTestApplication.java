@@ -0,0 +1,10 @@
+package buerostack.jwt;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Boot configuration for slice tests of this module (e.g. @DataJpaTest), which has no application class of its own.
+ */
+@SpringBootApplication
+class CustomJwtTestApplication {
+}
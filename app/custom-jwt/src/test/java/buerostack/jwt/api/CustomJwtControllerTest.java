@@ -0,0 +1,55 @@
+package buerostack.jwt.api;
+
+import buerostack.jwt.config.JwtCustomConfig;
+import buerostack.jwt.service.CustomJwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+class CustomJwtControllerTest {
+
+    @Mock
+    private CustomJwtService customJwtService;
+
+    private CustomJwtController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        controller = new CustomJwtController(customJwtService, new JwtCustomConfig(), new ObjectMapper());
+        JwtValidationResponse caller = new JwtValidationResponse(true, true, "Valid");
+        caller.setSubject("user-1");
+        when(customJwtService.validate(eq("token"), isNull(), isNull())).thenReturn(caller);
+    }
+
+    @Test
+    @DisplayName("A zero page size is rejected as invalid_request in offset and cursor mode")
+    void rejectsZeroLimit() {
+        JwtListRequest offsetRequest = new JwtListRequest();
+        offsetRequest.setLimit(0);
+        assertInvalidRequest(controller.listMyTokens(offsetRequest, "Bearer token"));
+
+        JwtListRequest cursorRequest = new JwtListRequest();
+        cursorRequest.setLimit(0);
+        cursorRequest.setCursor("");
+        assertInvalidRequest(controller.listMyTokens(cursorRequest, "Bearer token"));
+
+        verify(customJwtService, never()).listUserTokens(any(), any());
+    }
+
+    private static void assertInvalidRequest(ResponseEntity<?> response) {
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("invalid_request", ((Map<?, ?>) response.getBody()).get("error"));
+    }
+}
@@ -0,0 +1,145 @@
+package buerostack.jwt.repo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs the hand-written SQL against PostgreSQL, see src/test/resources/application-test.properties.
+// Not transactional: concurrent statements must see each other's commits.
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "CUSTOM_JWT_TEST_DB_URL", matches = ".+")
+@ActiveProfiles("test")
+@Sql("/custom-jwt-jdbc-schema.sql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomDenylistJdbcRepoTest {
+
+    private static final String REASON = "test";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CustomDenylistJdbcRepo repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CustomDenylistJdbcRepo(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Only jtis without a denylist row are inserted and returned")
+    void insertIfAbsentSkipsExisting() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        long exp = Instant.now().plusSeconds(600).getEpochSecond();
+
+        assertEquals(Set.of(first, second), repository.insertIfAbsent(List.of(first, second), List.of(exp, exp), REASON));
+        assertEquals(Set.of(third), repository.insertIfAbsent(List.of(first, second, third), List.of(exp, exp, exp), "again"));
+
+        assertEquals(3, count());
+        // The first reason is kept for rows that already existed
+        assertEquals(REASON, jdbcTemplate.queryForObject(
+                "SELECT reason FROM custom_jwt.denylist WHERE jwt_uuid = ?", String.class, first));
+    }
+
+    @Test
+    @DisplayName("Expiry is stored as the UTC wall-clock time of the given epoch second")
+    void insertIfAbsentStoresUtcExpiry() {
+        UUID jti = UUID.randomUUID();
+        long exp = Instant.parse("2030-06-01T12:00:00Z").getEpochSecond();
+
+        repository.insertIfAbsent(List.of(jti), List.of(exp), REASON);
+
+        // extract(epoch) of a timestamp without time zone reads it as UTC
+        Long stored = jdbcTemplate.queryForObject(
+                "SELECT CAST(extract(epoch FROM expires_at) AS bigint) FROM custom_jwt.denylist WHERE jwt_uuid = ?",
+                Long.class, jti);
+        assertEquals(exp, stored);
+    }
+
+    @Test
+    @DisplayName("Inputs larger than one chunk are inserted in full")
+    void insertIfAbsentAcrossChunks() {
+        int size = CustomDenylistJdbcRepo.CHUNK_SIZE + 3;
+        long exp = Instant.now().plusSeconds(600).getEpochSecond();
+        List<UUID> jtis = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            jtis.add(UUID.randomUUID());
+        }
+
+        Set<UUID> inserted = repository.insertIfAbsent(jtis, Collections.nCopies(size, exp), REASON);
+
+        assertEquals(new HashSet<>(jtis), inserted);
+        assertEquals(size, count());
+    }
+
+    @Test
+    @DisplayName("Concurrent inserts of the same jti report it as inserted exactly once")
+    void concurrentInsertOfOneJti() throws Exception {
+        UUID jti = UUID.randomUUID();
+        long exp = Instant.now().plusSeconds(600).getEpochSecond();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Set<UUID>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return repository.insertIfAbsent(List.of(jti), List.of(exp), REASON);
+                }));
+            }
+            start.countDown();
+
+            int insertedCount = 0;
+            for (Future<Set<UUID>> result : results) {
+                insertedCount += result.get().size();
+            }
+            assertEquals(1, insertedCount);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, count());
+    }
+
+    @Test
+    @DisplayName("findExisting returns only the jtis that have a denylist row")
+    void findExistingReturnsSubset() {
+        UUID revoked = UUID.randomUUID();
+        UUID active = UUID.randomUUID();
+        repository.insertIfAbsent(List.of(revoked), List.of(Instant.now().plusSeconds(600).getEpochSecond()), REASON);
+
+        assertEquals(Set.of(revoked), repository.findExisting(List.of(revoked, active)));
+        assertEquals(Set.of(), repository.findExisting(List.of(active)));
+        assertEquals(Set.of(), repository.findExisting(List.of()));
+    }
+
+    private long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM custom_jwt.denylist", Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,316 @@
+package buerostack.jwt.repo;
+
+import buerostack.jwt.entity.CustomJwtMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs the hand-written SQL against PostgreSQL, see src/test/resources/application-test.properties.
+// Not transactional: concurrent statements must see each other's commits.
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "CUSTOM_JWT_TEST_DB_URL", matches = ".+")
+@ActiveProfiles("test")
+@Sql("/custom-jwt-jdbc-schema.sql")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomJwtMetadataJdbcRepoTest {
+
+    private static final String SUBJECT = "testuser";
+    private static final String ISSUER = "TIM";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private CustomJwtMetadataJdbcRepo repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CustomJwtMetadataJdbcRepo(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Concurrent extensions of one token produce exactly one new version and one denylist row")
+    void concurrentExtendsOfOneToken() throws Exception {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        CustomJwtMetadata original = token(UUID.randomUUID(), now, now.plusSeconds(600), null);
+        original.setOriginalJwtUuid(original.getJwtUuid());
+        repository.insertAll(List.of(original));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CustomJwtMetadataJdbcRepo.ExtendOutcome>> outcomes = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                CustomJwtMetadata extended = token(UUID.randomUUID(), now, now.plusSeconds(3600), null);
+                outcomes.add(executor.submit(() -> {
+                    start.await();
+                    return repository.extend(original.getJwtUuid(), now.plusSeconds(600).getEpochSecond(), extended);
+                }));
+            }
+            start.countDown();
+
+            int extendedCount = 0;
+            for (Future<CustomJwtMetadataJdbcRepo.ExtendOutcome> outcome : outcomes) {
+                CustomJwtMetadataJdbcRepo.ExtendOutcome result = outcome.get();
+                if (result == CustomJwtMetadataJdbcRepo.ExtendOutcome.EXTENDED) {
+                    extendedCount++;
+                } else {
+                    assertEquals(CustomJwtMetadataJdbcRepo.ExtendOutcome.REVOKED, result);
+                }
+            }
+            assertEquals(1, extendedCount);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM custom_jwt.jwt_metadata WHERE supersedes = ? AND original_jwt_uuid = ?",
+            Integer.class, original.getId(), original.getJwtUuid()));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM custom_jwt.denylist WHERE jwt_uuid = ?", Integer.class, original.getJwtUuid()));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM custom_jwt.jwt_metadata", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Extending an unknown token writes nothing")
+    void extendUnknownToken() {
+        Instant now = Instant.now();
+        CustomJwtMetadata extended = token(UUID.randomUUID(), now, now.plusSeconds(3600), null);
+
+        assertEquals(CustomJwtMetadataJdbcRepo.ExtendOutcome.NOT_FOUND,
+            repository.extend(UUID.randomUUID(), now.plusSeconds(600).getEpochSecond(), extended));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM custom_jwt.jwt_metadata", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM custom_jwt.denylist", Integer.class));
+    }
+
+    @Test
+    @DisplayName("A subject alone, an issuer alone or both select the matching rows, newest first")
+    void filterBySubjectAndIssuer() {
+        Tokens t = insertTokens();
+
+        assertRows(filter(SUBJECT, null, null, null, null, null, null), t.e, t.c, t.b, t.a);
+        assertRows(filter(null, ISSUER, null, null, null, null, null), t.d, t.c, t.b, t.a);
+        assertRows(filter(SUBJECT, ISSUER, null, null, null, null, null), t.c, t.b, t.a);
+        assertRows(filter(SUBJECT, ISSUER, "TEST_TOKEN", null, null, null, null), t.c, t.a);
+    }
+
+    @Test
+    @DisplayName("Time range bounds are inclusive and compared as UTC")
+    void filterByTimeRanges() {
+        Tokens t = insertTokens();
+
+        assertRows(filter(SUBJECT, null, null, t.a.getIssuedAt(), t.c.getIssuedAt(), null, null), t.c, t.b, t.a);
+        assertRows(filter(SUBJECT, null, null, t.b.getIssuedAt(), null, null, null), t.e, t.c, t.b);
+        assertRows(filter(SUBJECT, null, null, null, null, null, t.now), t.b);
+        assertRows(filter(SUBJECT, null, null, null, null, t.a.getExpiresAt(), t.a.getExpiresAt()), t.c, t.a);
+    }
+
+    @Test
+    @DisplayName("Status filters join the denylist: revoked, expired and active are disjoint")
+    void filterByStatus() {
+        Tokens t = insertTokens();
+
+        List<JwtTokenView> revoked = assertRows(status("revoked"), t.c);
+        assertNotNull(revoked.get(0).getRevokedAt());
+        assertEquals("test", revoked.get(0).getRevocationReason());
+        assertRows(status("expired"), t.b);
+        assertRows(status("active"), t.e, t.a);
+        // Unknown status values do not filter
+        assertRows(status("unknown"), t.e, t.c, t.b, t.a);
+    }
+
+    @Test
+    @DisplayName("Keyset and offset pages walk the same order as the full listing")
+    void pagination() {
+        Tokens t = insertTokens();
+        JwtTokenFilter filter = filter(SUBJECT, null, null, null, null, null, null);
+
+        List<JwtTokenView> first = repository.findTokenViews(filter, null, null, 0, 2);
+        assertEquals(List.of(t.e.getJwtUuid(), t.c.getJwtUuid()), jtis(first));
+        JwtTokenView last = first.get(1);
+        assertEquals(List.of(t.b.getJwtUuid(), t.a.getJwtUuid()),
+            jtis(repository.findTokenViews(filter, last.getIssuedAtMicros(), last.getId(), 0, 2)));
+        assertEquals(List.of(t.c.getJwtUuid(), t.b.getJwtUuid()),
+            jtis(repository.findTokenViews(filter, null, null, 1, 2)));
+    }
+
+    @Test
+    @DisplayName("A filter without subject and issuer is rejected")
+    void filterWithoutSubjectOrIssuer() {
+        JwtTokenFilter filter = filter(null, null, "TEST_TOKEN", null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> repository.findTokenViews(filter, null, null, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> repository.countTokens(filter));
+    }
+
+    @Test
+    @DisplayName("An export streams every matching row in listing order and leaves auto-commit on")
+    void exportStreamsAcrossFetches() throws Exception {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        int size = CustomJwtMetadataJdbcRepo.EXPORT_FETCH_SIZE * 2 + 5;
+        List<CustomJwtMetadata> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CustomJwtMetadata row = token(UUID.randomUUID(), now.minusSeconds(i), now.plusSeconds(3600), null);
+            row.setOriginalJwtUuid(row.getJwtUuid());
+            rows.add(row);
+        }
+        repository.insertAll(rows);
+
+        try (Connection connection = dataSource.getConnection()) {
+            CustomJwtMetadataJdbcRepo onConnection = onConnection(connection);
+            List<UUID> exported = new ArrayList<>();
+
+            long count = onConnection.exportTokenViews(filter(SUBJECT, null, null, null, null, null, null),
+                view -> exported.add(view.getJwtUuid()));
+
+            assertEquals(size, count);
+            assertEquals(rows.stream().map(CustomJwtMetadata::getJwtUuid).toList(), exported);
+            assertTrue(connection.getAutoCommit());
+
+            // Writes on the same connection afterwards still commit on their own
+            CustomJwtMetadata later = token(UUID.randomUUID(), now, now.plusSeconds(3600), null);
+            later.setOriginalJwtUuid(later.getJwtUuid());
+            onConnection.insertAll(List.of(later));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM custom_jwt.jwt_metadata WHERE jwt_uuid = ?", Integer.class, later.getJwtUuid()));
+        }
+    }
+
+    @Test
+    @DisplayName("An export inside the caller's transaction sees its writes and does not end it")
+    void exportInsideCallerTransaction() throws Exception {
+        Tokens t = insertTokens();
+
+        try (Connection connection = dataSource.getConnection()) {
+            CustomJwtMetadataJdbcRepo onConnection = onConnection(connection);
+            connection.setAutoCommit(false);
+            try {
+                CustomJwtMetadata pending = token(UUID.randomUUID(), t.now, t.now.plusSeconds(3600), null);
+                pending.setOriginalJwtUuid(pending.getJwtUuid());
+                onConnection.insertAll(List.of(pending));
+                List<UUID> exported = new ArrayList<>();
+
+                long count = onConnection.exportTokenViews(status("active"), view -> exported.add(view.getJwtUuid()));
+
+                assertEquals(3, count);
+                assertEquals(List.of(pending.getJwtUuid(), t.e.getJwtUuid(), t.a.getJwtUuid()), exported);
+                assertFalse(connection.getAutoCommit());
+
+                connection.commit();
+                assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM custom_jwt.jwt_metadata WHERE jwt_uuid = ?", Integer.class, pending.getJwtUuid()));
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("An export applies the same filters as the listing")
+    void exportMatchesListing() {
+        Tokens t = insertTokens();
+        JwtTokenFilter filter = filter(null, ISSUER, null, t.b.getIssuedAt(), null, null, null);
+        List<JwtTokenView> exported = new ArrayList<>();
+
+        long count = repository.exportTokenViews(filter, exported::add);
+
+        assertEquals(3, count);
+        assertEquals(List.of(t.d.getJwtUuid(), t.c.getJwtUuid(), t.b.getJwtUuid()), jtis(exported));
+        assertEquals(jtis(repository.findTokenViews(filter, null, null, 0, 100)), jtis(exported));
+        assertNotNull(exported.get(1).getRevokedAt());
+    }
+
+    // Repository bound to one connection, so the test can inspect that connection's state
+    private static CustomJwtMetadataJdbcRepo onConnection(Connection connection) {
+        return new CustomJwtMetadataJdbcRepo(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+    }
+
+    /**
+     * a, b, c and e belong to SUBJECT; d to another subject and e to another issuer.
+     * b is expired and c is revoked; issued_at order is a, b, c, d, e.
+     */
+    private Tokens insertTokens() {
+        Tokens t = new Tokens();
+        t.now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        t.a = token(UUID.randomUUID(), t.now.minusSeconds(3 * 3600), t.now.plusSeconds(3600), null);
+        t.b = token(UUID.randomUUID(), t.now.minusSeconds(2 * 3600), t.now.minusSeconds(3600), null);
+        t.b.setJwtName("OTHER_TOKEN");
+        t.c = token(UUID.randomUUID(), t.now.minusSeconds(3600), t.now.plusSeconds(3600), null);
+        t.d = token(UUID.randomUUID(), t.now.minusSeconds(1800), t.now.plusSeconds(3600), null);
+        t.d.setSubject("otheruser");
+        t.e = token(UUID.randomUUID(), t.now.minusSeconds(600), t.now.plusSeconds(7200), null);
+        t.e.setIssuer("OTHER_ISSUER");
+        List<CustomJwtMetadata> all = List.of(t.a, t.b, t.c, t.d, t.e);
+        all.forEach(m -> m.setOriginalJwtUuid(m.getJwtUuid()));
+        repository.insertAll(all);
+        jdbcTemplate.update("INSERT INTO custom_jwt.denylist (jwt_uuid, expires_at, reason) " +
+            "VALUES (?, now() AT TIME ZONE 'UTC' + interval '1 hour', 'test')", t.c.getJwtUuid());
+        return t;
+    }
+
+    private static final class Tokens {
+        Instant now;
+        CustomJwtMetadata a, b, c, d, e;
+    }
+
+    private List<JwtTokenView> assertRows(JwtTokenFilter filter, CustomJwtMetadata... expected) {
+        List<JwtTokenView> rows = repository.findTokenViews(filter, null, null, 0, 100);
+        assertEquals(Arrays.stream(expected).map(CustomJwtMetadata::getJwtUuid).toList(), jtis(rows));
+        assertEquals(expected.length, repository.countTokens(filter));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getIssuedAt(), rows.get(i).getIssuedAt());
+            assertEquals(expected[i].getExpiresAt(), rows.get(i).getExpiresAt());
+        }
+        return rows;
+    }
+
+    private static List<UUID> jtis(List<JwtTokenView> rows) {
+        return rows.stream().map(JwtTokenView::getJwtUuid).toList();
+    }
+
+    private static JwtTokenFilter filter(String subject, String issuer, String jwtName, Instant issuedAfter,
+                                         Instant issuedBefore, Instant expiresAfter, Instant expiresBefore) {
+        return new JwtTokenFilter(subject, null, issuedAfter, issuedBefore, expiresAfter, expiresBefore, jwtName, issuer);
+    }
+
+    private static JwtTokenFilter status(String status) {
+        return new JwtTokenFilter(SUBJECT, status, null, null, null, null, null);
+    }
+
+    private static CustomJwtMetadata token(UUID jti, Instant issuedAt, Instant expiresAt, UUID originalJwtUuid) {
+        CustomJwtMetadata metadata = new CustomJwtMetadata(jti, "sub,iat,exp", issuedAt, expiresAt, originalJwtUuid);
+        metadata.setSubject(SUBJECT);
+        metadata.setIssuer(ISSUER);
+        metadata.setJwtName("TEST_TOKEN");
+        return metadata;
+    }
+}
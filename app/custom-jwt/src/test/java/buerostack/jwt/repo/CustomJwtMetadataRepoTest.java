@@ -4,6 +4,8 @@ import buerostack.jwt.entity.CustomJwtMetadata;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +18,10 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+// Native queries need PostgreSQL, see src/test/resources/application-test.properties
 @DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "CUSTOM_JWT_TEST_DB_URL", matches = ".+")
 @ActiveProfiles("test")
 class CustomJwtMetadataRepoTest {
 
@@ -1,11 +1,27 @@
 package buerostack.jwt.service;
 
 import buerostack.config.JwtSignerService;
+import buerostack.config.ParsedToken;
+import buerostack.config.SignedToken;
+import buerostack.jwt.api.JwtExportRequest;
+import buerostack.jwt.api.JwtTokenSummary;
+import buerostack.jwt.api.JwtListResponse;
+import buerostack.jwt.api.JwtListRequest;
+import buerostack.jwt.config.JwtCustomConfig;
 import buerostack.jwt.entity.CustomDenylist;
 import buerostack.jwt.entity.CustomJwtMetadata;
+import buerostack.jwt.repo.CustomDenylistJdbcRepo;
 import buerostack.jwt.repo.CustomDenylistRepo;
+import buerostack.jwt.repo.CustomJwtMetadataJdbcRepo;
 import buerostack.jwt.repo.CustomJwtMetadataRepo;
+import buerostack.jwt.repo.JwtTokenFilter;
+import buerostack.jwt.repo.JwtTokenView;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,6 +35,7 @@ import static org.mockito.Mockito.*;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
 
 @ExtendWith(MockitoExtension.class)
 class CustomJwtServiceTest {
@@ -32,14 +49,25 @@ class CustomJwtServiceTest {
     @Mock
     private CustomJwtMetadataRepo metadataRepo;
 
+    @Mock
+    private RevocationCache revocationCache;
+
+    @Mock
+    private CustomDenylistJdbcRepo denylistJdbcRepo;
+
+    @Mock
+    private CustomJwtMetadataJdbcRepo metadataJdbcRepo;
+
     private CustomJwtService customJwtService;
 
-    private final String TEST_TOKEN = "eyJhbGciOiJSUzI1NiIsInR5cCI6IkpXVCJ9.eyJzdWIiOiJ0ZXN0dXNlciIsInJvbGUiOiJhZG1pbiIsImlhdCI6MTYzMDAwMDAwMCwiZXhwIjoxNjMwMDAzNjAwLCJqdGkiOiJ0ZXN0LWp0aS0xMjM0NTYiLCJpc3MiOiJUSU0iLCJhdWQiOlsidGVzdC1hdWRpZW5jZSJdLCJ0b2tlbl90eXBlIjoiY3VzdG9tX2p3dCJ9";
-    private final String EXTENDED_TOKEN = "eyJhbGciOiJSUzI1NiIsInR5cCI6IkpXVCJ9.eyJzdWIiOiJ0ZXN0dXNlciIsInJvbGUiOiJhZG1pbiIsImlhdCI6MTYzMDAwMzUwMCwiZXhwIjoxNjMwMDA3MjAwLCJqdGkiOiJleHRlbmRlZC1qdGktNzg5MDEyIiwiaXNzIjoiVElNIiwiYXVkIjpbInRlc3QtYXVkaWVuY2UiXSwidG9rZW5fdHlwZSI6ImN1c3RvbV9qd3QifQ";
+    // Real compact JWS with UUID jtis; the signature itself is never checked, the signer is mocked
+    private final String TEST_TOKEN = testToken("12345678-1234-1234-1234-123456789012", Instant.now().plusSeconds(600));
+    private final String EXTENDED_TOKEN = testToken("87654321-4321-4321-4321-210987654321", Instant.now().plusSeconds(3600));
 
     @BeforeEach
     void setUp() {
-        customJwtService = new CustomJwtService(jwtSignerService, denylistRepo, metadataRepo);
+        TokenMetadataWriter metadataWriter = new TokenMetadataWriter(metadataRepo, metadataJdbcRepo, new JwtCustomConfig(), new SimpleMeterRegistry());
+        customJwtService = new CustomJwtService(jwtSignerService, denylistRepo, metadataRepo, revocationCache, denylistJdbcRepo, metadataJdbcRepo, metadataWriter);
     }
 
     @Test
@@ -55,8 +83,8 @@ class CustomJwtServiceTest {
         List<String> audiences = List.of("test-audience");
         long ttl = 3600L;
 
-        when(jwtSignerService.sign(any(), eq(issuer), eq(audiences), eq(ttl)))
-            .thenReturn(TEST_TOKEN);
+        when(jwtSignerService.signWithClaims(any(), eq(issuer), eq(audiences), eq(ttl)))
+            .thenReturn(signed(TEST_TOKEN));
 
         // Act
         String result = customJwtService.generate(jwtName, claims, issuer, audiences, ttl);
@@ -81,7 +109,7 @@ class CustomJwtServiceTest {
         }));
 
         // Verify token_type claim was added
-        verify(jwtSignerService).sign(argThat(claimsWithType -> {
+        verify(jwtSignerService).signWithClaims(argThat(claimsWithType -> {
             Map<String, Object> claimsMap = (Map<String, Object>) claimsWithType;
             assertEquals("custom_jwt", claimsMap.get("token_type"));
             assertEquals("testuser", claimsMap.get("sub"));
@@ -108,12 +136,16 @@ class CustomJwtServiceTest {
         existingMetadata.setSubject("testuser");
         existingMetadata.setJwtName("TEST_TOKEN");
 
-        when(jwtSignerService.verify(TEST_TOKEN)).thenReturn(true);
-        when(denylistRepo.findById(originalJwtId)).thenReturn(Optional.empty());
-        when(metadataRepo.findCurrentVersionByJwtUuid(originalJwtId))
-            .thenReturn(Optional.of(existingMetadata));
-        when(jwtSignerService.sign(any(), eq("TIM"), anyList(), eq(3600L)))
-            .thenReturn(EXTENDED_TOKEN);
+        when(jwtSignerService.verify(any(ParsedToken.class))).thenReturn(true);
+        // The database links the new version to the current one in the same statement
+        when(metadataJdbcRepo.extend(eq(originalJwtId), anyLong(), any())).thenAnswer(invocation -> {
+            CustomJwtMetadata extended = invocation.getArgument(2);
+            extended.setSupersedes(existingMetadata.getId());
+            extended.setOriginalJwtUuid(existingMetadata.getOriginalJwtUuid());
+            return CustomJwtMetadataJdbcRepo.ExtendOutcome.EXTENDED;
+        });
+        when(jwtSignerService.signWithClaims(any(), eq("TIM"), anyList(), eq(3600L)))
+            .thenReturn(signed(EXTENDED_TOKEN));
 
         // Act
         String result = customJwtService.extend(TEST_TOKEN, "TIM", List.of("test-audience"), 3600L);
@@ -121,8 +153,8 @@ class CustomJwtServiceTest {
         // Assert
         assertEquals(EXTENDED_TOKEN, result);
 
-        // Verify new metadata was saved with extension chain
-        verify(metadataRepo).save(argThat(metadata -> {
+        // Verify the new version and the denylisting of the old token went out as one statement
+        verify(metadataJdbcRepo).extend(eq(originalJwtId), anyLong(), argThat(metadata -> {
             assertNotNull(metadata.getId(), "New metadata should have ID");
             assertNotNull(metadata.getCreatedAt(), "Created at should be set");
             assertEquals(originalJwtId, metadata.getOriginalJwtUuid(),
@@ -133,13 +165,8 @@ class CustomJwtServiceTest {
                           "Extended token should have new JWT UUID");
             return true;
         }));
-
-        // Verify old token was denylisted
-        verify(denylistRepo).save(argThat(denylistEntry -> {
-            assertEquals(originalJwtId, denylistEntry.getJwtUuid());
-            assertNotNull(denylistEntry.getDenylistedAt());
-            return true;
-        }));
+        verify(revocationCache).recordRevocation(eq(originalJwtId), any());
+        verifyNoInteractions(metadataRepo, denylistRepo);
     }
 
     @Test
@@ -148,7 +175,7 @@ class CustomJwtServiceTest {
         // Arrange - create an expired token
         String expiredToken = createExpiredTestToken();
 
-        when(jwtSignerService.verify(expiredToken)).thenReturn(true);
+        when(jwtSignerService.verify(any(ParsedToken.class))).thenReturn(true);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -168,8 +195,12 @@ class CustomJwtServiceTest {
         // Arrange
         UUID revokedJwtId = UUID.fromString("12345678-1234-1234-1234-123456789012");
 
-        when(jwtSignerService.verify(TEST_TOKEN)).thenReturn(true);
-        when(denylistRepo.findById(revokedJwtId)).thenReturn(Optional.of(new CustomDenylist()));
+        when(jwtSignerService.verify(any(ParsedToken.class))).thenReturn(true);
+        when(jwtSignerService.signWithClaims(any(), eq("TIM"), anyList(), eq(3600L)))
+            .thenReturn(signed(EXTENDED_TOKEN));
+        // Already in the denylist, or revoked by a concurrent extension: nothing is written
+        when(metadataJdbcRepo.extend(eq(revokedJwtId), anyLong(), any()))
+            .thenReturn(CustomJwtMetadataJdbcRepo.ExtendOutcome.REVOKED);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -177,13 +208,14 @@ class CustomJwtServiceTest {
         });
 
         assertEquals("Token revoked - cannot extend", exception.getMessage());
+        verify(revocationCache, never()).recordRevocation(any(), any());
     }
 
     @Test
     @DisplayName("Should reject extension of token with invalid signature")
     void testRejectExtensionOfInvalidToken() throws Exception {
         // Arrange
-        when(jwtSignerService.verify(TEST_TOKEN)).thenReturn(false);
+        when(jwtSignerService.verify(any(ParsedToken.class))).thenReturn(false);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -208,6 +240,23 @@ class CustomJwtServiceTest {
         assertFalse(customJwtService.isRevoked(TEST_TOKEN));
     }
 
+    @Test
+    @DisplayName("Revocation checks are answered by the local set only while it is ready")
+    void testIsRevokedUsesCacheOnlyWhenReady() throws Exception {
+        UUID jwtId = UUID.fromString("12345678-1234-1234-1234-123456789012");
+
+        when(revocationCache.isReady()).thenReturn(true);
+        when(revocationCache.contains(jwtId)).thenReturn(true);
+        assertTrue(customJwtService.isRevoked(TEST_TOKEN));
+        verify(denylistRepo, never()).findById(any());
+
+        // Listener down: the set may be stale, so the denylist table is asked instead
+        when(revocationCache.isReady()).thenReturn(false);
+        when(denylistRepo.findById(jwtId)).thenReturn(Optional.empty());
+        assertFalse(customJwtService.isRevoked(TEST_TOKEN));
+        verify(denylistRepo).findById(jwtId);
+    }
+
     @Test
     @DisplayName("Should denylist token successfully")
     void testDenylistToken() throws Exception {
@@ -276,12 +325,15 @@ class CustomJwtServiceTest {
         extension1Metadata.setId(extension1Id);
         extension1Metadata.setSupersedes(originalMetadata.getId());
 
-        when(jwtSignerService.verify(EXTENDED_TOKEN)).thenReturn(true);
-        when(denylistRepo.findById(extension1JwtId)).thenReturn(Optional.empty());
-        when(metadataRepo.findCurrentVersionByJwtUuid(extension1JwtId))
-            .thenReturn(Optional.of(extension1Metadata));
-        when(jwtSignerService.sign(any(), eq("TIM"), anyList(), eq(3600L)))
-            .thenReturn("second-extension-token");
+        when(jwtSignerService.verify(any(ParsedToken.class))).thenReturn(true);
+        when(metadataJdbcRepo.extend(eq(extension1JwtId), anyLong(), any())).thenAnswer(invocation -> {
+            CustomJwtMetadata extended = invocation.getArgument(2);
+            extended.setSupersedes(extension1Metadata.getId());
+            extended.setOriginalJwtUuid(extension1Metadata.getOriginalJwtUuid());
+            return CustomJwtMetadataJdbcRepo.ExtendOutcome.EXTENDED;
+        });
+        when(jwtSignerService.signWithClaims(any(), eq("TIM"), anyList(), eq(3600L)))
+            .thenReturn(signed("second-extension-token"));
 
         // Act - extend the first extension
         String result = customJwtService.extend(EXTENDED_TOKEN, "TIM", List.of("test-audience"), 3600L);
@@ -289,7 +341,7 @@ class CustomJwtServiceTest {
         // Assert
         assertEquals("second-extension-token", result);
 
-        verify(metadataRepo).save(argThat(metadata -> {
+        verify(metadataJdbcRepo).extend(eq(extension1JwtId), anyLong(), argThat(metadata -> {
             assertEquals(originalJwtId, metadata.getOriginalJwtUuid(),
                         "Should still point to original JWT");
             assertEquals(extension1Id, metadata.getSupersedes(),
@@ -299,8 +351,114 @@ class CustomJwtServiceTest {
     }
 
     private String createExpiredTestToken() {
-        // This would normally create a properly formatted JWT with expired timestamp
-        // For testing purposes, we'll use a mock that the service recognizes as expired
-        return "expired.jwt.token";
+        return testToken("12345678-1234-1234-1234-123456789012", Instant.now().minusSeconds(60));
+    }
+
+    private static String testToken(String jti, Instant expiresAt) {
+        try {
+            JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("testuser")
+                .claim("role", "admin")
+                .issuer("TIM")
+                .audience("test-audience")
+                .issueTime(Date.from(expiresAt.minusSeconds(3600)))
+                .expirationTime(Date.from(expiresAt))
+                .jwtID(jti)
+                .claim("token_type", "custom_jwt")
+                .build();
+            SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+            jwt.sign(new MACSigner(new byte[32]));
+            return jwt.serialize();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk generation returns tokens in order and inserts all metadata at once")
+    void testGenerateAllInsertsMetadataOnce() throws Exception {
+        when(jwtSignerService.signWithClaims(any(), eq("TIM"), anyList(), eq(3600L)))
+            .thenAnswer(invocation -> signed("token-" + ((Map<String, Object>) invocation.getArgument(0)).get("sub")));
+        List<CustomJwtService.TokenSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            specs.add(new CustomJwtService.TokenSpec("DEVICE_TOKEN", Map.of("sub", "device-" + i), List.of("test-audience"), 3600L));
+        }
+
+        List<SignedToken> result = customJwtService.generateAll(specs, "TIM");
+
+        assertEquals(50, result.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("token-device-" + i, result.get(i).getToken());
+        }
+        verify(metadataJdbcRepo, times(1)).insertAll(argThat(rows -> {
+            assertEquals(50, rows.size());
+            assertEquals(result.get(7).getJti(), rows.get(7).getJwtUuid());
+            assertEquals("DEVICE_TOKEN", rows.get(7).getJwtName());
+            return true;
+        }));
+        verifyNoInteractions(metadataRepo);
+    }
+
+    @Test
+    @DisplayName("Export streams rows of an issuer with their status, without collecting them")
+    void testExportTokensByIssuer() {
+        Instant now = Instant.now();
+        when(metadataJdbcRepo.exportTokenViews(any(), any())).thenAnswer(invocation -> {
+            Consumer<JwtTokenView> rows = invocation.getArgument(1);
+            rows.accept(new JwtTokenView(UUID.randomUUID(), UUID.randomUUID(), "user-1", "API", now, 0L,
+                now.plusSeconds(3600), "TIM", "aud", null, null));
+            rows.accept(new JwtTokenView(UUID.randomUUID(), UUID.randomUUID(), "user-2", "API", now, 0L,
+                now.plusSeconds(3600), "TIM", "aud", now, "compromised"));
+            return 2L;
+        });
+        JwtExportRequest request = new JwtExportRequest();
+        request.setIssuer("TIM");
+        request.setSubject(" ");
+        request.setStatus("ALL");
+
+        List<JwtTokenSummary> exported = new ArrayList<>();
+        assertEquals(2L, customJwtService.exportTokens(request, exported::add));
+
+        assertEquals(List.of("active", "revoked"), exported.stream().map(JwtTokenSummary::getStatus).toList());
+        assertEquals("compromised", exported.get(1).getRevocationReason());
+        verify(metadataJdbcRepo).exportTokenViews(argThat((JwtTokenFilter filter) ->
+            "TIM".equals(filter.getIssuer()) && filter.getSubject() == null && filter.getStatus() == null), any());
+    }
+
+    @Test
+    @DisplayName("A zero page size returns an empty page without a next cursor, in offset and cursor mode")
+    void testListWithZeroLimit() {
+        Instant now = Instant.now();
+        when(metadataJdbcRepo.findTokenViews(any(), any(), any(), anyInt(), eq(1))).thenReturn(List.of(
+            new JwtTokenView(UUID.randomUUID(), UUID.randomUUID(), "user-1", "API", now, 0L, now.plusSeconds(3600), "TIM", "aud", null, null)));
+
+        JwtListRequest offsetRequest = new JwtListRequest();
+        offsetRequest.setLimit(0);
+        JwtListResponse offsetPage = customJwtService.listUserTokens("user-1", offsetRequest);
+        assertTrue(offsetPage.getTokens().isEmpty());
+        assertNull(offsetPage.getNextCursor());
+
+        JwtListRequest cursorRequest = new JwtListRequest();
+        cursorRequest.setLimit(0);
+        cursorRequest.setCursor("");
+        JwtListResponse cursorPage = customJwtService.listUserTokens("user-1", cursorRequest);
+        assertTrue(cursorPage.getTokens().isEmpty());
+        assertNull(cursorPage.getNextCursor());
+    }
+
+    /**
+     * What the signer hands back: the token plus the claims it was built from.
+     */
+    private static SignedToken signed(String token) {
+        Instant now = Instant.now().truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject("testuser")
+            .issuer("TIM")
+            .audience("test-audience")
+            .issueTime(Date.from(now))
+            .expirationTime(Date.from(now.plusSeconds(3600)))
+            .jwtID(UUID.randomUUID().toString())
+            .build();
+        return new SignedToken(token, claims);
     }
-}
\ No newline at end of file
+}
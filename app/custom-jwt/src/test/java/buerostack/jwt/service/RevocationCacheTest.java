@@ -0,0 +1,177 @@
+package buerostack.jwt.service;
+
+import buerostack.jwt.config.JwtCustomConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevocationCacheTest {
+
+    private static final UUID LOADED = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID NOTIFIED = UUID.fromString("22222222-2222-2222-2222-222222222222");
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private RevocationCache.ListenerConnections listenerConnections;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private PreparedStatement load;
+
+    @Mock
+    private ResultSet rows;
+
+    @Mock
+    private PGConnection pg;
+
+    @Mock
+    private PGNotification notification;
+
+    private final AtomicBoolean notifyOnce = new AtomicBoolean();
+    private JwtCustomConfig config;
+    private RevocationCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        config = new JwtCustomConfig();
+        config.getRevocationCache().setListenerPollMillis(10);
+
+        long exp = Instant.now().plusSeconds(600).getEpochSecond();
+        lenient().when(listenerConnections.open()).thenReturn(connection);
+        lenient().when(connection.createStatement()).thenReturn(statement);
+        lenient().when(connection.prepareStatement(anyString())).thenReturn(load);
+        lenient().when(load.executeQuery()).thenReturn(rows);
+        lenient().when(rows.next()).thenReturn(true, false);
+        lenient().when(rows.getObject(1, UUID.class)).thenReturn(LOADED);
+        lenient().when(rows.getLong(2)).thenReturn(exp);
+        lenient().when(connection.unwrap(PGConnection.class)).thenReturn(pg);
+        lenient().when(notification.getParameter()).thenReturn(NOTIFIED + ":" + exp);
+        lenient().when(pg.getNotifications(anyInt())).thenAnswer(invocation -> {
+            if (notifyOnce.compareAndSet(true, false)) {
+                return new PGNotification[] { notification };
+            }
+            Thread.sleep(invocation.<Integer>getArgument(0));
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Unexpired denylist rows are loaded on the listener connection after LISTEN")
+    void loadsDenylistOnStart() throws Exception {
+        cache = new RevocationCache(dataSource, listenerConnections, config, 60_000);
+        cache.start();
+
+        awaitTrue(cache::isReady);
+        assertTrue(cache.contains(LOADED));
+        assertEquals(1, cache.size());
+        verify(statement).execute("LISTEN " + RevocationCache.CHANNEL);
+        // The listener never borrows from the pool
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("A NOTIFY from another node adds the jti and notifies revocation listeners")
+    void appliesNotification() {
+        cache = new RevocationCache(dataSource, listenerConnections, config, 60_000);
+        UUID[] seen = new UUID[1];
+        cache.addRevocationListener(jti -> { if (jti.equals(NOTIFIED)) seen[0] = jti; });
+        cache.start();
+        awaitTrue(cache::isReady);
+        assertFalse(cache.contains(NOTIFIED));
+
+        notifyOnce.set(true);
+
+        awaitTrue(() -> cache.contains(NOTIFIED));
+        assertEquals(NOTIFIED, seen[0]);
+    }
+
+    @Test
+    @DisplayName("A failed liveness probe drops readiness and unsubscribes the connection before closing it")
+    void failedProbeDropsReadiness() throws Exception {
+        when(listenerConnections.open()).thenReturn(connection).thenThrow(new SQLException("database down"));
+        AtomicBoolean probeFails = new AtomicBoolean();
+        lenient().when(statement.execute("SELECT 1")).thenAnswer(invocation -> {
+            if (probeFails.get()) {
+                throw new SQLException("Read timed out");
+            }
+            return true;
+        });
+        cache = new RevocationCache(dataSource, listenerConnections, config, 20);
+        cache.start();
+        awaitTrue(cache::isReady);
+
+        probeFails.set(true);
+
+        awaitTrue(() -> !cache.isReady());
+        awaitTrue(() -> mockingDetails(connection).getInvocations().stream()
+                .anyMatch(invocation -> invocation.getMethod().getName().equals("close")));
+        var order = inOrder(statement, connection);
+        order.verify(statement).execute("UNLISTEN *");
+        order.verify(connection).close();
+        // Entries stay in the set, but callers no longer trust it
+        assertTrue(cache.contains(LOADED));
+    }
+
+    @Test
+    @DisplayName("The cache never reports ready while the listener cannot connect")
+    void notReadyWithoutListener() throws Exception {
+        when(listenerConnections.open()).thenThrow(new SQLException("connection refused"));
+        cache = new RevocationCache(dataSource, listenerConnections, config, 60_000);
+        cache.start();
+
+        verify(listenerConnections, timeout(2000)).open();
+        assertFalse(cache.isReady());
+        assertEquals(0, cache.size());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 5s");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package buerostack.jwt.service;
+
+import buerostack.jwt.config.JwtCustomConfig;
+import buerostack.jwt.entity.CustomJwtMetadata;
+import buerostack.jwt.repo.CustomJwtMetadataJdbcRepo;
+import buerostack.jwt.repo.CustomJwtMetadataRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class TokenMetadataWriterTest {
+
+    @Mock
+    private CustomJwtMetadataRepo metadataRepo;
+
+    @Mock
+    private CustomJwtMetadataJdbcRepo metadataJdbcRepo;
+
+    private TokenMetadataWriter writer;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Sync mode saves through JPA in the caller's thread")
+    void syncModeSavesDirectly() {
+        writer = start("sync", "flush", 10, 100, 1000);
+        CustomJwtMetadata meta = metadata();
+
+        writer.write(meta);
+
+        verify(metadataRepo).save(meta);
+        verifyNoInteractions(metadataJdbcRepo);
+    }
+
+    @Test
+    @DisplayName("Concurrent writes with ack after flush share batched inserts and return once committed")
+    void flushDurabilityBatchesConcurrentWrites() throws Exception {
+        List<UUID> written = new CopyOnWriteArrayList<>();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<CustomJwtMetadata> rows = invocation.getArgument(0);
+            Thread.sleep(20); // a commit
+            rows.forEach(row -> written.add(row.getId()));
+            batchSizes.add(rows.size());
+            return null;
+        }).when(metadataJdbcRepo).insertAll(anyList());
+        writer = start("write-behind", "flush", 1000, 100, 5000);
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<UUID>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(callers.submit(() -> {
+                    CustomJwtMetadata meta = metadata();
+                    writer.write(meta);
+                    // Acknowledged only after the row was committed
+                    assertTrue(written.contains(meta.getId()));
+                    return meta.getId();
+                }));
+            }
+            for (Future<UUID> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(200, written.size());
+        assertTrue(batchSizes.size() < 200, "writes should have been batched: " + batchSizes);
+        verifyNoInteractions(metadataRepo);
+    }
+
+    @Test
+    @DisplayName("A full queue rejects writes after the timeout instead of growing")
+    void fullQueueAppliesBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(metadataJdbcRepo).insertAll(anyList());
+        writer = start("write-behind", "enqueue", 2, 1, 200);
+
+        // One record is held by the stalled writer, two fill the queue
+        writer.write(metadata());
+        Thread.sleep(100);
+        writer.write(metadata());
+        writer.write(metadata());
+
+        assertThrows(MetadataBacklogException.class, () -> writer.write(metadata()));
+        release.countDown();
+        assertTrue(writer.awaitWritten());
+        assertEquals(0, writer.backlog());
+    }
+
+    @Test
+    @DisplayName("Records the writer has taken but not committed still count as backlog")
+    void backlogIncludesRecordsBeingWritten() throws Exception {
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            inserting.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(metadataJdbcRepo).insertAll(anyList());
+        writer = start("write-behind", "enqueue", 10, 10, 1000);
+
+        writer.write(metadata());
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, writer.backlog());
+        release.countDown();
+        assertTrue(writer.awaitWritten());
+        assertEquals(0, writer.backlog());
+    }
+
+    @Test
+    @DisplayName("A flush that times out withdraws a queued record; one already being inserted is waited for")
+    void flushTimeoutWithdrawsQueuedRecord() throws Exception {
+        List<UUID> written = new CopyOnWriteArrayList<>();
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            inserting.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            List<CustomJwtMetadata> rows = invocation.getArgument(0);
+            rows.forEach(row -> written.add(row.getId()));
+            return null;
+        }).when(metadataJdbcRepo).insertAll(anyList());
+        writer = start("write-behind", "flush", 10, 1, 200);
+
+        CustomJwtMetadata taken = metadata();
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = caller.submit(() -> writer.write(taken));
+            assertTrue(inserting.await(5, TimeUnit.SECONDS));
+
+            CustomJwtMetadata queued = metadata();
+            assertThrows(MetadataBacklogException.class, () -> writer.write(queued));
+            assertEquals(1, writer.backlog());
+
+            // Past its timeout, but the writer had it: answered by the insert's outcome
+            Thread.sleep(300);
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            assertTrue(writer.awaitWritten());
+            assertEquals(List.of(taken.getId()), written);
+            assertEquals(0, writer.backlog());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("A failed batch insert is retried and the caller is answered once it succeeds")
+    void failedBatchIsRetried() {
+        doThrow(new IllegalStateException("connection reset")).doNothing().when(metadataJdbcRepo).insertAll(anyList());
+        writer = start("write-behind", "flush", 10, 10, 5000);
+
+        writer.write(metadata());
+
+        verify(metadataJdbcRepo, times(2)).insertAll(anyList());
+        assertEquals(0.0, meterRegistry.counter(TokenMetadataWriter.FAILURES_METRIC).count());
+    }
+
+    @Test
+    @DisplayName("A batch that keeps failing is given up after the configured attempts and counted")
+    void batchIsGivenUpAfterRetries() {
+        doThrow(new IllegalStateException("database down")).when(metadataJdbcRepo).insertAll(anyList());
+        writer = start("write-behind", "flush", 10, 10, 5000);
+
+        assertThrows(IllegalStateException.class, () -> writer.write(metadata()));
+
+        verify(metadataJdbcRepo, times(3)).insertAll(anyList());
+        assertEquals(1.0, meterRegistry.counter(TokenMetadataWriter.FAILURES_METRIC).count());
+        assertEquals(0, writer.backlog());
+    }
+
+    private TokenMetadataWriter start(String mode, String durability, int capacity, int batchSize, long timeoutMillis) {
+        JwtCustomConfig config = new JwtCustomConfig();
+        config.getMetadataWrite().setMode(mode);
+        config.getMetadataWrite().setDurability(durability);
+        config.getMetadataWrite().setQueueCapacity(capacity);
+        config.getMetadataWrite().setBatchSize(batchSize);
+        config.getMetadataWrite().setTimeoutMillis(timeoutMillis);
+        config.getMetadataWrite().setRetryBackoffMillis(10);
+        TokenMetadataWriter w = new TokenMetadataWriter(metadataRepo, metadataJdbcRepo, config, meterRegistry);
+        w.start();
+        return w;
+    }
+
+    private static CustomJwtMetadata metadata() {
+        UUID jti = UUID.randomUUID();
+        return new CustomJwtMetadata(jti, "sub", Instant.now(), Instant.now().plusSeconds(60), jti);
+    }
+}
@@ -0,0 +1,27 @@
+-- Tables used by the JDBC repositories, as in db/init.sql; emptied before every test
+CREATE SCHEMA IF NOT EXISTS custom_jwt;
+
+CREATE TABLE IF NOT EXISTS custom_jwt.denylist (
+  jwt_uuid uuid PRIMARY KEY,
+  created_at timestamp NOT NULL DEFAULT now(),
+  denylisted_at timestamp NOT NULL DEFAULT now(),
+  expires_at timestamp NOT NULL,
+  reason text
+);
+
+CREATE TABLE IF NOT EXISTS custom_jwt.jwt_metadata (
+  id uuid PRIMARY KEY,
+  jwt_uuid uuid NOT NULL,
+  created_at timestamp NOT NULL DEFAULT now(),
+  claim_keys text NOT NULL,
+  issued_at timestamp NOT NULL,
+  expires_at timestamp NOT NULL,
+  subject text,
+  jwt_name text,
+  audience text,
+  issuer text,
+  supersedes uuid,
+  original_jwt_uuid uuid NOT NULL
+);
+
+TRUNCATE custom_jwt.jwt_metadata, custom_jwt.denylist;
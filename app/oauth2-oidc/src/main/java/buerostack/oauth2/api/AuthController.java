@@ -7,13 +7,17 @@ import buerostack.oauth2.service.OAuth2AuthenticationService.AuthenticationIniti
 import buerostack.oauth2.service.OAuth2AuthenticationService.CallbackValidation;
 import buerostack.oauth2.service.OAuth2AuthenticationService.ProviderInfo;
 import buerostack.oauth2.service.OAuth2TokenService;
-import buerostack.oauth2.service.OAuth2TokenService.TokenExchangeResult;
+import buerostack.oauth2.service.ProviderCircuitBreaker;
+import buerostack.oauth2.service.ProviderHttpClient;
+import buerostack.oauth2.service.ProviderUnavailableException;
+import buerostack.oauth2.service.ProviderWarmupService;
 import buerostack.oauth2.service.JwtValidationService;
 import buerostack.oauth2.service.JwtValidationService.JwtValidationResult;
 import buerostack.oauth2.service.SessionManagementService;
 import buerostack.oauth2.service.SessionManagementService.SessionValidationResult;
 import buerostack.oauth2.service.UserProfileService;
 import buerostack.oauth2.model.AuthSession;
+import buerostack.oauth2.model.TokenResponse;
 import buerostack.oauth2.model.UserProfile;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
@@ -21,6 +25,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -40,6 +46,8 @@ public class AuthController {
     private final JwtValidationService jwtValidationService;
     private final SessionManagementService sessionService;
     private final UserProfileService userProfileService;
+    private final ProviderWarmupService warmupService;
+    private final ProviderHttpClient httpClient;
 
     @Autowired
     public AuthController(OAuth2ProvidersProperties providersProperties,
@@ -47,13 +55,17 @@ public class AuthController {
                          OAuth2TokenService tokenService,
                          JwtValidationService jwtValidationService,
                          SessionManagementService sessionService,
-                         UserProfileService userProfileService) {
+                         UserProfileService userProfileService,
+                         ProviderWarmupService warmupService,
+                         ProviderHttpClient httpClient) {
         this.providersProperties = providersProperties;
         this.authService = authService;
         this.tokenService = tokenService;
         this.jwtValidationService = jwtValidationService;
         this.sessionService = sessionService;
         this.userProfileService = userProfileService;
+        this.warmupService = warmupService;
+        this.httpClient = httpClient;
     }
 
     /**
@@ -141,6 +153,9 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (ProviderUnavailableException e) {
+            logger.warn("Authentication initiation for provider {} rejected: {}", providerId, e.getMessage());
+            return providerUnavailable(e);
         } catch (Exception e) {
             logger.error("Error initiating authentication for provider {}: {}", providerId, e.getMessage());
             return ResponseEntity.internalServerError()
@@ -152,120 +167,155 @@ public class AuthController {
     /**
      * Handle OAuth2 callback
      * GET /auth/callback/{providerId}
+     *
+     * Token exchange, ID token validation and userinfo are composed as a Mono, so the servlet
+     * thread is released while the provider responds; ID token validation and userinfo run concurrently.
+     * The session is then created on a worker thread, as the session store may block on the database.
      */
     @GetMapping("/callback/{providerId}")
-    public ResponseEntity<?> handleCallback(@PathVariable String providerId,
-                                          @RequestParam(required = false) String code,
-                                          @RequestParam(required = false) String state,
-                                          @RequestParam(required = false) String error,
-                                          @RequestParam(required = false) String error_description,
-                                          HttpServletRequest request) {
-        try {
-            logger.info("Handling OAuth2 callback for provider: {}", providerId);
+    public Mono<ResponseEntity<?>> handleCallback(@PathVariable String providerId,
+                                                @RequestParam(required = false) String code,
+                                                @RequestParam(required = false) String state,
+                                                @RequestParam(required = false) String error,
+                                                @RequestParam(required = false) String error_description,
+                                                HttpServletRequest request) {
+        logger.info("Handling OAuth2 callback for provider: {}", providerId);
+
+        // Validate provider
+        if (!providersProperties.isProviderAvailable(providerId)) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "provider_not_available",
+                               "message", "Provider not found or disabled: " + providerId)));
+        }
 
-            // Validate provider
-            if (!providersProperties.isProviderAvailable(providerId)) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "provider_not_available",
-                                   "message", "Provider not found or disabled: " + providerId));
-            }
+        // Handle OAuth2 error responses
+        if (error != null) {
+            logger.warn("OAuth2 error in callback: {} - {}", error, error_description);
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", error,
+                               "message", error_description != null ? error_description : "Authentication failed",
+                               "provider", providerId)));
+        }
 
-            // Handle OAuth2 error responses
-            if (error != null) {
-                logger.warn("OAuth2 error in callback: {} - {}", error, error_description);
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", error,
-                                   "message", error_description != null ? error_description : "Authentication failed",
-                                   "provider", providerId));
-            }
+        // Validate callback parameters
+        CallbackValidation validation = authService.validateCallback(providerId, code, state, error);
 
-            // Validate callback parameters
-            CallbackValidation validation = authService.validateCallback(providerId, code, state, error);
+        if (!validation.isValid()) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "invalid_callback",
+                               "message", validation.getMessage(),
+                               "provider", providerId)));
+        }
 
-            if (!validation.isValid()) {
-                return ResponseEntity.badRequest()
-                        .body(Map.of("error", "invalid_callback",
-                                   "message", validation.getMessage(),
-                                   "provider", providerId));
-            }
+        // Read from the request before the response is completed on another thread
+        String ipAddress = getClientIpAddress(request);
+        String userAgent = request.getHeader("User-Agent");
+
+        // Exchange authorization code for tokens
+        return tokenService.exchangeCodeForTokensAsync(providerId, validation.getCode(), validation.getNonce())
+                .<ResponseEntity<?>>flatMap(tokenResult -> {
+                    if (!tokenResult.isSuccess()) {
+                        return Mono.just(ResponseEntity.badRequest()
+                                .body(Map.of("error", "token_exchange_failed",
+                                           "message", tokenResult.getMessage(),
+                                           "provider", providerId,
+                                           "details", tokenResult.getErrorDetails() != null ?
+                                                    tokenResult.getErrorDetails() : Map.of())));
+                    }
+
+                    TokenResponse tokens = tokenResult.getTokenResponse();
+                    if (tokens.getIdToken() == null) {
+                        return completeCallbackAsync(providerId, tokens, null, null, ipAddress, userAgent);
+                    }
+
+                    // Validate ID token and fetch userinfo concurrently; userinfo is optional
+                    Mono<JwtValidationResult> idTokenValidation = jwtValidationService.validateIdTokenAsync(
+                            providerId, tokens.getIdToken(), validation.getNonce());
+                    Mono<Map<String, Object>> userInfo = tokens.getAccessToken() == null
+                            ? Mono.just(Map.of())
+                            : tokenService.getUserInfoAsync(providerId, tokens.getAccessToken())
+                                    .map(result -> result.isSuccess() ? result.getUserInfo() : Map.<String, Object>of());
+
+                    return Mono.zip(idTokenValidation, userInfo)
+                            .flatMap(results -> completeCallbackAsync(providerId, tokens, results.getT1(),
+                                    results.getT2().isEmpty() ? null : results.getT2(), ipAddress, userAgent));
+                })
+                .onErrorResume(ProviderUnavailableException.class, e -> {
+                    logger.warn("Callback for provider {} rejected: {}", providerId, e.getMessage());
+                    return Mono.just(providerUnavailable(e));
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error handling callback for provider {}: {}", providerId, e.getMessage());
+                    return Mono.just(ResponseEntity.internalServerError()
+                            .body(Map.of("error", "callback_failed",
+                                       "message", "Failed to process callback: " + e.getMessage(),
+                                       "provider", providerId)));
+                });
+    }
 
-            // Exchange authorization code for tokens
-            TokenExchangeResult tokenResult = tokenService.exchangeCodeForTokens(
-                    providerId, validation.getCode(), validation.getNonce());
+    /**
+     * {@link #completeCallback} on a bounded elastic thread, off the HTTP client's event loop
+     */
+    private Mono<ResponseEntity<?>> completeCallbackAsync(String providerId, TokenResponse tokens, JwtValidationResult jwtResult,
+                                                          Map<String, Object> userInfo, String ipAddress, String userAgent) {
+        return Mono.<ResponseEntity<?>>fromCallable(
+                        () -> completeCallback(providerId, tokens, jwtResult, userInfo, ipAddress, userAgent))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 
-            if (!tokenResult.isSuccess()) {
+    /**
+     * Create the session and build the callback response once the provider round trips are done
+     */
+    private ResponseEntity<?> completeCallback(String providerId, TokenResponse tokens, JwtValidationResult jwtResult,
+                                               Map<String, Object> userInfo, String ipAddress, String userAgent) {
+        UserProfile userProfile = null;
+
+        if (jwtResult != null) {
+            if (!jwtResult.isValid()) {
+                logger.warn("ID token validation failed for provider {}: {}", providerId, jwtResult.getMessage());
                 return ResponseEntity.badRequest()
-                        .body(Map.of("error", "token_exchange_failed",
-                                   "message", tokenResult.getMessage(),
-                                   "provider", providerId,
-                                   "details", tokenResult.getErrorDetails() != null ?
-                                            tokenResult.getErrorDetails() : Map.of()));
+                        .body(Map.of("error", "invalid_id_token",
+                                   "message", jwtResult.getMessage(),
+                                   "provider", providerId));
             }
 
-            // Validate ID token if present
-            JwtValidationResult jwtResult = null;
-            UserProfile userProfile = null;
-
-            if (tokenResult.getTokenResponse().getIdToken() != null) {
-                jwtResult = jwtValidationService.validateIdToken(
-                        providerId, tokenResult.getTokenResponse().getIdToken(), validation.getNonce());
-
-                if (!jwtResult.isValid()) {
-                    logger.warn("ID token validation failed for provider {}: {}", providerId, jwtResult.getMessage());
-                    return ResponseEntity.badRequest()
-                            .body(Map.of("error", "invalid_id_token",
-                                       "message", jwtResult.getMessage(),
-                                       "provider", providerId));
-                }
-
-                // Extract user profile from validated ID token
-                try {
-                    ProviderConfig providerConfig = providersProperties.getProvider(providerId);
-                    String[] scopes = providerConfig.getScopes().toArray(new String[0]);
-                    userProfile = userProfileService.extractUserProfile(
-                            providerId, jwtResult.getClaimsSet(), null, scopes);
-                } catch (Exception e) {
-                    logger.warn("Error extracting user profile for provider {}: {}", providerId, e.getMessage());
-                }
-            }
-
-            // Create session
-            String ipAddress = getClientIpAddress(request);
-            String userAgent = request.getHeader("User-Agent");
-
-            AuthSession session = sessionService.createSession(
-                    providerId,
-                    tokenResult.getTokenResponse(),
-                    jwtResult != null ? jwtResult.getClaimsSet() : null,
-                    ipAddress,
-                    userAgent
-            );
-
-            // Prepare response
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "authentication_success");
-            response.put("provider", providerId);
-            response.put("session_id", session.getSessionId());
-            response.put("expires_at", session.getExpiresAt());
-
-            if (userProfile != null) {
-                response.put("user_profile", userProfile);
+            // Extract user profile from validated ID token
+            try {
+                ProviderConfig providerConfig = providersProperties.getProvider(providerId);
+                String[] scopes = providerConfig.getScopes().toArray(new String[0]);
+                userProfile = userProfileService.extractUserProfile(
+                        providerId, jwtResult.getClaimsSet(), userInfo, scopes);
+            } catch (Exception e) {
+                logger.warn("Error extracting user profile for provider {}: {}", providerId, e.getMessage());
             }
+        }
 
-            // Don't expose raw tokens in response (they're stored in session)
-            response.put("message", "Authentication completed successfully");
+        // Create session
+        AuthSession session = sessionService.createSession(
+                providerId,
+                tokens,
+                jwtResult != null ? jwtResult.getClaimsSet() : null,
+                ipAddress,
+                userAgent
+        );
+
+        // Prepare response
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "authentication_success");
+        response.put("provider", providerId);
+        response.put("session_id", session.getSessionId());
+        response.put("expires_at", session.getExpiresAt());
+
+        if (userProfile != null) {
+            response.put("user_profile", userProfile);
+        }
 
-            logger.info("OAuth2 authentication completed successfully for provider: {}", providerId);
+        // Don't expose raw tokens in response (they're stored in session)
+        response.put("message", "Authentication completed successfully");
 
-            return ResponseEntity.ok(response);
+        logger.info("OAuth2 authentication completed successfully for provider: {}", providerId);
 
-        } catch (Exception e) {
-            logger.error("Error handling callback for provider {}: {}", providerId, e.getMessage());
-            return ResponseEntity.internalServerError()
-                    .body(Map.of("error", "callback_failed",
-                               "message", "Failed to process callback: " + e.getMessage(),
-                               "provider", providerId));
-        }
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -282,10 +332,51 @@ public class AuthController {
         Map<String, ProviderInfo> providers = authService.getAvailableProviders();
         health.put("available_providers", providers.size());
         health.put("provider_ids", providers.keySet());
+        health.put("provider_readiness", warmupService.getProviderReadiness());
+        health.put("sessions", sessionService.getSessionCount());
+
+        Map<String, Object> breakers = new HashMap<>();
+        boolean anyOpen = false;
+        for (String id : providers.keySet()) {
+            ProviderCircuitBreaker breaker = httpClient.getCircuitBreaker(id);
+            anyOpen |= breaker.getState() == ProviderCircuitBreaker.State.OPEN;
+            breakers.put(id, breaker.snapshot());
+        }
+        health.put("circuit_breakers", breakers);
+        if (anyOpen) {
+            health.put("status", "degraded");
+        }
 
         return ResponseEntity.ok(health);
     }
 
+    /**
+     * 503 for a provider call rejected by its circuit breaker or bulkhead
+     */
+    private ResponseEntity<?> providerUnavailable(ProviderUnavailableException e) {
+        return ResponseEntity.status(503)
+                .header("Retry-After", String.valueOf(Math.max(1, e.getRetryAfterSeconds())))
+                .body(Map.of("error", "provider_unavailable",
+                           "message", e.getMessage(),
+                           "provider", e.getProviderId()));
+    }
+
+    /**
+     * Readiness probe: 503 until provider warm-up has finished and all critical providers are warm
+     * GET /auth/ready
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<?> ready() {
+        boolean ready = warmupService.isReady();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", ready ? "ready" : "not_ready");
+        response.put("warmup_complete", warmupService.isPhaseComplete());
+        response.put("providers", warmupService.getProviderReadiness());
+
+        return ready ? ResponseEntity.ok(response) : ResponseEntity.status(503).body(response);
+    }
+
     /**
      * Validate session
      * GET /auth/session/validate
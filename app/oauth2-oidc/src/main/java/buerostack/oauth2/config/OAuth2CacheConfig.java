@@ -21,7 +21,7 @@ public class OAuth2CacheConfig {
         cacheManager.setCaffeine(caffeineCacheBuilder());
 
         // Register cache names
-        cacheManager.setCacheNames(java.util.Arrays.asList("oidc-discovery", "jwks-keys", "token-validation"));
+        cacheManager.setCacheNames(java.util.Arrays.asList("token-validation"));
 
         return cacheManager;
     }
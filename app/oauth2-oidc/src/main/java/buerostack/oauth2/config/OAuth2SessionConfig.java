@@ -0,0 +1,96 @@
+package buerostack.oauth2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage of OAuth2 authentication sessions (oauth2.session.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.session")
+public class OAuth2SessionConfig {
+
+    /**
+     * "memory" (node-local) or "postgres" (auth.oauth_session, shared by all nodes)
+     */
+    private String store = "memory";
+
+    /**
+     * Resolution of in-memory expiry; sessions are removed at most this long after expires_at
+     */
+    private long expiryTickMillis = 1000;
+
+    /**
+     * How long a node serves a Postgres-backed session from its local cache before re-reading it.
+     * Bounds how late a revocation made on another node is seen here; 0 disables the cache.
+     */
+    private long cacheTtlSeconds = 5;
+    private long cacheMaximumSize = 100_000;
+    private long purgeIntervalSeconds = 60;
+
+    /**
+     * Last activity is only advanced when the recorded value is at least this old
+     */
+    private long activityGranularitySeconds = 60;
+
+    /**
+     * How often buffered last-activity updates are written to the store
+     */
+    private long activityFlushIntervalSeconds = 10;
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public long getExpiryTickMillis() {
+        return expiryTickMillis;
+    }
+
+    public void setExpiryTickMillis(long expiryTickMillis) {
+        this.expiryTickMillis = expiryTickMillis;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    public long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    public void setCacheMaximumSize(long cacheMaximumSize) {
+        this.cacheMaximumSize = cacheMaximumSize;
+    }
+
+    public long getPurgeIntervalSeconds() {
+        return purgeIntervalSeconds;
+    }
+
+    public void setPurgeIntervalSeconds(long purgeIntervalSeconds) {
+        this.purgeIntervalSeconds = purgeIntervalSeconds;
+    }
+
+    public long getActivityGranularitySeconds() {
+        return activityGranularitySeconds;
+    }
+
+    public void setActivityGranularitySeconds(long activityGranularitySeconds) {
+        this.activityGranularitySeconds = activityGranularitySeconds;
+    }
+
+    public long getActivityFlushIntervalSeconds() {
+        return activityFlushIntervalSeconds;
+    }
+
+    public void setActivityFlushIntervalSeconds(long activityFlushIntervalSeconds) {
+        this.activityFlushIntervalSeconds = activityFlushIntervalSeconds;
+    }
+}
@@ -0,0 +1,52 @@
+package buerostack.oauth2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Storage of pending OAuth2 authorization states (oauth2.state.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.state")
+public class OAuth2StateConfig {
+
+    /**
+     * "memory" (node-local) or "postgres" (auth.oauth_state, shared by all nodes)
+     */
+    private String store = "memory";
+    private long ttlSeconds = 300;
+    private long maximumSize = 100_000;
+    private long purgeIntervalSeconds = 60;
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getPurgeIntervalSeconds() {
+        return purgeIntervalSeconds;
+    }
+
+    public void setPurgeIntervalSeconds(long purgeIntervalSeconds) {
+        this.purgeIntervalSeconds = purgeIntervalSeconds;
+    }
+}
@@ -0,0 +1,103 @@
+package buerostack.oauth2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Outbound HTTP client for OAuth2/OIDC provider calls (oauth2.http.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.http")
+public class ProviderHttpClientConfig {
+
+    private long connectTimeoutMs = 3_000;
+    private long readTimeoutMs = 5_000;
+    private long totalTimeoutMs = 10_000;
+    private int maxConnectionsPerProvider = 50;
+    private long maxIdleTimeSeconds = 60;
+    private long maxLifeTimeSeconds = 600;
+    private long pendingAcquireTimeoutMs = 2_000;
+    private int maxConcurrentCallsPerProvider = 20;
+    private int breakerFailureThreshold = 5;
+    private long breakerOpenSeconds = 30;
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeoutMs(long readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public long getTotalTimeoutMs() {
+        return totalTimeoutMs;
+    }
+
+    public void setTotalTimeoutMs(long totalTimeoutMs) {
+        this.totalTimeoutMs = totalTimeoutMs;
+    }
+
+    public int getMaxConnectionsPerProvider() {
+        return maxConnectionsPerProvider;
+    }
+
+    public void setMaxConnectionsPerProvider(int maxConnectionsPerProvider) {
+        this.maxConnectionsPerProvider = maxConnectionsPerProvider;
+    }
+
+    public long getMaxIdleTimeSeconds() {
+        return maxIdleTimeSeconds;
+    }
+
+    public void setMaxIdleTimeSeconds(long maxIdleTimeSeconds) {
+        this.maxIdleTimeSeconds = maxIdleTimeSeconds;
+    }
+
+    public long getMaxLifeTimeSeconds() {
+        return maxLifeTimeSeconds;
+    }
+
+    public void setMaxLifeTimeSeconds(long maxLifeTimeSeconds) {
+        this.maxLifeTimeSeconds = maxLifeTimeSeconds;
+    }
+
+    public long getPendingAcquireTimeoutMs() {
+        return pendingAcquireTimeoutMs;
+    }
+
+    public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) {
+        this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+    }
+
+    public int getMaxConcurrentCallsPerProvider() {
+        return maxConcurrentCallsPerProvider;
+    }
+
+    public void setMaxConcurrentCallsPerProvider(int maxConcurrentCallsPerProvider) {
+        this.maxConcurrentCallsPerProvider = maxConcurrentCallsPerProvider;
+    }
+
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public void setBreakerFailureThreshold(int breakerFailureThreshold) {
+        this.breakerFailureThreshold = breakerFailureThreshold;
+    }
+
+    public long getBreakerOpenSeconds() {
+        return breakerOpenSeconds;
+    }
+
+    public void setBreakerOpenSeconds(long breakerOpenSeconds) {
+        this.breakerOpenSeconds = breakerOpenSeconds;
+    }
+}
@@ -0,0 +1,58 @@
+package buerostack.oauth2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup warm-up of provider discovery documents and JWKS (oauth2.warmup.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.warmup")
+public class ProviderWarmupConfig {
+
+    private boolean enabled = true;
+    private long deadlineSeconds = 30;
+    private int maxConcurrency = 8;
+    private long retryInitialBackoffMillis = 5_000;
+    private long retryMaxBackoffMillis = 300_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getDeadlineSeconds() {
+        return deadlineSeconds;
+    }
+
+    public void setDeadlineSeconds(long deadlineSeconds) {
+        this.deadlineSeconds = deadlineSeconds;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public long getRetryInitialBackoffMillis() {
+        return retryInitialBackoffMillis;
+    }
+
+    public void setRetryInitialBackoffMillis(long retryInitialBackoffMillis) {
+        this.retryInitialBackoffMillis = retryInitialBackoffMillis;
+    }
+
+    public long getRetryMaxBackoffMillis() {
+        return retryMaxBackoffMillis;
+    }
+
+    public void setRetryMaxBackoffMillis(long retryMaxBackoffMillis) {
+        this.retryMaxBackoffMillis = retryMaxBackoffMillis;
+    }
+}
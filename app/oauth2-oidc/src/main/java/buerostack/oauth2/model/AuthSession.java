@@ -1,12 +1,21 @@
 package buerostack.oauth2.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Authentication session model
+ *
+ * Status and expiry are packed into one AtomicLong (expiry in epoch millis shifted left by two,
+ * status ordinal in the low two bits), so a session's state is read with a single volatile read
+ * and changed with compare-and-set. Expiry is not a stored transition: an active session counts
+ * as expired as soon as the clock passes its expiry. Once revoked, a session stays revoked;
+ * a concurrent {@link #extend} either happens before the revocation or fails.
  */
 public class AuthSession {
 
@@ -24,15 +33,17 @@ public class AuthSession {
     @JsonProperty("last_activity")
     private Instant lastActivity;
 
-    @JsonProperty("expires_at")
-    private Instant expiresAt;
-
     private TokenData tokens;
 
     @JsonProperty("session_metadata")
     private SessionMetadata sessionMetadata;
 
-    private String status; // active, expired, revoked
+    private static final int STATUS_BITS = 2;
+    private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+    private static final long NO_EXPIRY = Long.MAX_VALUE >>> STATUS_BITS;
+
+    @JsonIgnore
+    private final AtomicLong state = new AtomicLong(pack(NO_EXPIRY, SessionStatus.ACTIVE));
 
     // Default constructor
     public AuthSession() {}
@@ -44,7 +55,6 @@ public class AuthSession {
         this.provider = provider;
         this.createdAt = Instant.now();
         this.lastActivity = Instant.now();
-        this.status = "active";
     }
 
     // Getters and setters
@@ -63,8 +73,20 @@ public class AuthSession {
     public Instant getLastActivity() { return lastActivity; }
     public void setLastActivity(Instant lastActivity) { this.lastActivity = lastActivity; }
 
-    public Instant getExpiresAt() { return expiresAt; }
-    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+    @JsonProperty("expires_at")
+    public Instant getExpiresAt() {
+        long expiry = expiryOf(state.get());
+        return expiry == NO_EXPIRY ? null : Instant.ofEpochMilli(expiry);
+    }
+
+    /**
+     * Set the expiry while the session is being built or loaded; use {@link #extend} on a live session.
+     */
+    @JsonProperty("expires_at")
+    public void setExpiresAt(Instant expiresAt) {
+        long expiry = expiresAt != null ? expiresAt.toEpochMilli() : NO_EXPIRY;
+        state.updateAndGet(current -> pack(expiry, statusOf(current)));
+    }
 
     public TokenData getTokens() { return tokens; }
     public void setTokens(TokenData tokens) { this.tokens = tokens; }
@@ -72,11 +94,84 @@ public class AuthSession {
     public SessionMetadata getSessionMetadata() { return sessionMetadata; }
     public void setSessionMetadata(SessionMetadata sessionMetadata) { this.sessionMetadata = sessionMetadata; }
 
-    public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    /**
+     * Status name as of now: "active", "expired" or "revoked"
+     */
+    @JsonProperty("status")
+    public String getStatus() {
+        return statusAt(Instant.now()).getValue();
+    }
+
+    @JsonProperty("status")
+    public void setStatus(String status) {
+        SessionStatus value = SessionStatus.fromValue(status);
+        state.updateAndGet(current -> pack(expiryOf(current), value));
+    }
+
+    /**
+     * Status at the given time, from a single read of the session state
+     */
+    public SessionStatus statusAt(Instant now) {
+        long current = state.get();
+        SessionStatus status = statusOf(current);
+        if (status == SessionStatus.ACTIVE && expiryOf(current) <= now.toEpochMilli()) {
+            return SessionStatus.EXPIRED;
+        }
+        return status;
+    }
+
+    /**
+     * Revoke the session, whatever its current status.
+     *
+     * @return false if it was already revoked
+     */
+    public boolean revoke() {
+        while (true) {
+            long current = state.get();
+            if (statusOf(current) == SessionStatus.REVOKED) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(expiryOf(current), SessionStatus.REVOKED))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Move the expiry of an active, unexpired session later by {@code duration}.
+     *
+     * @return the new expiry, or null if the session is revoked or expired at {@code now}
+     */
+    public Instant extend(Duration duration, Instant now) {
+        while (true) {
+            long current = state.get();
+            long expiry = expiryOf(current);
+            if (statusOf(current) != SessionStatus.ACTIVE || expiry <= now.toEpochMilli() || expiry == NO_EXPIRY) {
+                return null;
+            }
+            long extended = Math.min(expiry + duration.toMillis(), NO_EXPIRY - 1);
+            if (state.compareAndSet(current, pack(extended, SessionStatus.ACTIVE))) {
+                return Instant.ofEpochMilli(extended);
+            }
+        }
+    }
+
+    private static long pack(long expiryMillis, SessionStatus status) {
+        return (expiryMillis << STATUS_BITS) | status.ordinal();
+    }
+
+    private static long expiryOf(long packed) {
+        return packed >>> STATUS_BITS;
+    }
+
+    private static SessionStatus statusOf(long packed) {
+        return SessionStatus.values()[(int) (packed & STATUS_MASK)];
+    }
 
     /**
-     * Token data (encrypted in storage)
+     * Provider tokens of the session. Held in memory only: the shared session store
+     * (oauth2.session.store=postgres) does not persist them, so a session loaded from
+     * auth.oauth_session has none.
      */
     public static class TokenData {
         @JsonProperty("access_token")
@@ -0,0 +1,24 @@
+package buerostack.oauth2.model;
+
+/**
+ * Pending authorization request, keyed by its state parameter until the callback arrives
+ */
+public class OAuth2State {
+
+    private final String providerId;
+    private final String nonce;
+    private final String redirectUri;
+    private final long createdAtMillis;
+
+    public OAuth2State(String providerId, String nonce, String redirectUri, long createdAtMillis) {
+        this.providerId = providerId;
+        this.nonce = nonce;
+        this.redirectUri = redirectUri;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    public String getProviderId() { return providerId; }
+    public String getNonce() { return nonce; }
+    public String getRedirectUri() { return redirectUri; }
+    public long getCreatedAtMillis() { return createdAtMillis; }
+}
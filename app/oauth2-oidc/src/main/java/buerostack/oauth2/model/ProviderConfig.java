@@ -55,6 +55,9 @@ public class ProviderConfig {
     @JsonProperty("token_validation")
     private TokenValidationConfig tokenValidation;
 
+    // Readiness waits until critical providers are warm
+    private Boolean critical = false;
+
     // Default constructor
     public ProviderConfig() {}
 
@@ -98,6 +101,9 @@ public class ProviderConfig {
     public TokenValidationConfig getTokenValidation() { return tokenValidation; }
     public void setTokenValidation(TokenValidationConfig tokenValidation) { this.tokenValidation = tokenValidation; }
 
+    public Boolean getCritical() { return critical; }
+    public void setCritical(Boolean critical) { this.critical = critical; }
+
     /**
      * Token validation configuration
      */
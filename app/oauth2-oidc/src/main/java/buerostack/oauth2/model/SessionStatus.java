@@ -0,0 +1,32 @@
+package buerostack.oauth2.model;
+
+/**
+ * Lifecycle state of an {@link AuthSession}
+ */
+public enum SessionStatus {
+    ACTIVE("active"),
+    EXPIRED("expired"),
+    REVOKED("revoked");
+
+    private final String value;
+
+    SessionStatus(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Name used in JSON and in auth.oauth_session.status
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public static SessionStatus fromValue(String value) {
+        for (SessionStatus status : values()) {
+            if (status.value.equalsIgnoreCase(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown session status: " + value);
+    }
+}
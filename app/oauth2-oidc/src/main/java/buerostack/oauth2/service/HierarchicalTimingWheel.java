@@ -0,0 +1,140 @@
+package buerostack.oauth2.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for expiring keys in O(1) per key.
+ *
+ * Time is divided into ticks of {@code tickMillis}. Level 0 has one slot per tick; each higher
+ * level has slots {@code 2^bits} times wider. A key is placed in the lowest level whose window
+ * still covers its deadline and moves down one level each time its slot comes up, so adding a
+ * key and firing it are both constant time regardless of how many keys are scheduled.
+ * Deadlines beyond the top level wait in an overflow list that is re-examined once per top-level
+ * revolution.
+ *
+ * Keys are never cancelled: a key fires at the deadline it was added with, and the owner decides
+ * whether it is really due (and re-adds it otherwise). Thread-safe; callbacks run outside the lock.
+ */
+class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int levels;
+    private final long mask;
+    private final ArrayDeque<Entry<K>>[][] slots;
+    private final ArrayDeque<Entry<K>> overflow = new ArrayDeque<>();
+
+    // Guarded by this
+    private long currentTick;
+    private long size;
+
+    @SuppressWarnings("unchecked")
+    HierarchicalTimingWheel(long tickMillis, int bits, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.levels = levels;
+        this.mask = (1L << bits) - 1;
+        this.slots = new ArrayDeque[levels][1 << bits];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < (1 << bits); slot++) {
+                slots[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a key to fire once {@code deadlineMillis} has passed.
+     *
+     * @return false if the deadline has already passed; the key is then not scheduled
+     */
+    synchronized boolean add(K key, long deadlineMillis) {
+        // Round up so a key never fires before its deadline
+        long expireTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        if (expireTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(key, expireTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis} and hand every due key to {@code expired}.
+     */
+    void advance(long nowMillis, Consumer<K> expired) {
+        List<K> due = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMillis;
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                ArrayDeque<Entry<K>> bucket = slots[0][(int) (currentTick & mask)];
+                Entry<K> entry;
+                while ((entry = bucket.poll()) != null) {
+                    due.add(entry.key);
+                    size--;
+                }
+            }
+        }
+        due.forEach(expired);
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private void cascade() {
+        for (int level = levels - 1; level >= 1; level--) {
+            long lowerBits = (1L << (bits * level)) - 1;
+            if ((currentTick & lowerBits) != 0) {
+                continue;
+            }
+            ArrayDeque<Entry<K>> bucket = slots[level][(int) ((currentTick >>> (bits * level)) & mask)];
+            redistribute(bucket);
+        }
+        if ((currentTick & ((1L << (bits * levels)) - 1)) == 0) {
+            redistribute(overflow);
+        }
+    }
+
+    private void redistribute(ArrayDeque<Entry<K>> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry<K>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<K> entry : entries) {
+            place(entry);
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        if (entry.expireTick <= currentTick) {
+            // Due in the current tick: level 0 slot of the current tick is drained right after cascading
+            slots[0][(int) (currentTick & mask)].add(entry);
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            int shift = bits * (level + 1);
+            if ((entry.expireTick >>> shift) == (currentTick >>> shift)) {
+                slots[level][(int) ((entry.expireTick >>> (bits * level)) & mask)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private final long expireTick;
+
+        private Entry(K key, long expireTick) {
+            this.key = key;
+            this.expireTick = expireTick;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2StateConfig;
+import buerostack.oauth2.model.OAuth2State;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Node-local state store: a Caffeine cache with expireAfterWrite and a size cap.
+ * Callbacks must reach the node that started the login.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2.state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOAuth2StateStore implements OAuth2StateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryOAuth2StateStore.class);
+
+    private final Cache<String, OAuth2State> states;
+
+    public InMemoryOAuth2StateStore(OAuth2StateConfig config) {
+        this.states = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(config.getTtlSeconds()))
+                .maximumSize(config.getMaximumSize())
+                .build();
+        logger.info("OAuth2 state store: in-memory (TTL {}s, maximum size {})",
+                config.getTtlSeconds(), config.getMaximumSize());
+    }
+
+    @Override
+    public void save(String state, OAuth2State info) {
+        states.put(state, info);
+    }
+
+    @Override
+    public OAuth2State consume(String state) {
+        // Expired entries are not visible even before they are cleaned up
+        OAuth2State info = states.getIfPresent(state);
+        return info != null && states.asMap().remove(state, info) ? info : null;
+    }
+
+    @Override
+    public long size() {
+        return states.estimatedSize();
+    }
+}
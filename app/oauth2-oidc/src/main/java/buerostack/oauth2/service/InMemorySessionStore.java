@@ -0,0 +1,116 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import buerostack.oauth2.model.AuthSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-local session store.
+ *
+ * Every session is scheduled on a {@link HierarchicalTimingWheel} at its expires_at when first
+ * saved, so expiry costs O(1) per session instead of a scan over all of them. When a session's
+ * slot comes up it is removed, unless it was extended meanwhile, in which case it is scheduled
+ * again at the new expiry.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2.session.store", havingValue = "memory", matchIfMissing = true)
+public class InMemorySessionStore implements SessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemorySessionStore.class);
+
+    // 64 slots per level, 4 levels: one second ticks cover about 194 days before overflow
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final ConcurrentMap<String, AuthSession> sessions = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<String> expiryWheel;
+    private final ScheduledExecutorService ticker;
+
+    public InMemorySessionStore(OAuth2SessionConfig config) {
+        long tickMillis = Math.max(10, config.getExpiryTickMillis());
+        this.expiryWheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oauth-session-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        logger.info("Session store: in-memory (expiry resolution {}ms)", tickMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public boolean save(AuthSession session) {
+        AuthSession previous = sessions.put(session.getSessionId(), session);
+        // Later saves of the same session are picked up when its first deadline fires
+        if (previous == null && !schedule(session)) {
+            sessions.remove(session.getSessionId(), session);
+        }
+        // One shared instance per session, whose revocation is final, so there is no stale copy to overwrite
+        return true;
+    }
+
+    @Override
+    public AuthSession find(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    @Override
+    public void updateLastActivity(Map<String, Instant> lastActivity) {
+        lastActivity.forEach((sessionId, at) -> {
+            AuthSession session = sessions.get(sessionId);
+            if (session != null && (session.getLastActivity() == null || session.getLastActivity().isBefore(at))) {
+                session.setLastActivity(at);
+            }
+        });
+    }
+
+    @Override
+    public long size() {
+        return sessions.size();
+    }
+
+    long scheduledCount() {
+        return expiryWheel.size();
+    }
+
+    void tick() {
+        try {
+            expiryWheel.advance(System.currentTimeMillis(), this::expire);
+        } catch (RuntimeException e) {
+            logger.warn("Session expiry failed: {}", e.getMessage());
+        }
+    }
+
+    private void expire(String sessionId) {
+        AuthSession session = sessions.get(sessionId);
+        if (session != null && !schedule(session)) {
+            sessions.remove(sessionId, session);
+            logger.debug("Removed expired session {}", sessionId);
+        }
+    }
+
+    /**
+     * @return false if the session has no expiry in the future
+     */
+    private boolean schedule(AuthSession session) {
+        Instant expiresAt = session.getExpiresAt();
+        return expiresAt != null && expiryWheel.add(session.getSessionId(), expiresAt.toEpochMilli());
+    }
+}
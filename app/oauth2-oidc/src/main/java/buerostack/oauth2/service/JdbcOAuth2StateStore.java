@@ -0,0 +1,129 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2StateConfig;
+import buerostack.oauth2.model.OAuth2State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State store on auth.oauth_state, so a callback can be completed on any node.
+ *
+ * A state is consumed with a single DELETE ... RETURNING, which makes it single-use across
+ * nodes and ignores rows past expires_at. Expired rows are purged periodically, and the
+ * oldest rows beyond oauth2.state.maximum-size are dropped at the same time.
+ *
+ * Saves enforce the cap too, without counting the table on every login: each node adds its own
+ * inserts to the last count it took, and once that estimate reaches the cap the oldest rows are
+ * dropped and the table is counted again before inserting. Inserts made by other nodes since that
+ * count are only seen at the next one, so with several nodes the table can briefly exceed the cap
+ * by what the others inserted in the meantime. Timestamps are stored as UTC.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2.state.store", havingValue = "postgres")
+public class JdbcOAuth2StateStore implements OAuth2StateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcOAuth2StateStore.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO auth.oauth_state (state, created_at, expires_at, provider_id, nonce, redirect_uri) " +
+        "VALUES (?, now() AT TIME ZONE 'UTC', (now() AT TIME ZONE 'UTC') + ? * interval '1 second', ?, ?, ?)";
+
+    private static final String CONSUME_SQL =
+        "DELETE FROM auth.oauth_state WHERE state = ? AND expires_at > (now() AT TIME ZONE 'UTC') " +
+        "RETURNING provider_id, nonce, redirect_uri, CAST(extract(epoch from created_at) * 1000 AS bigint) AS created_at_millis";
+
+    private static final String PURGE_EXPIRED_SQL =
+        "DELETE FROM auth.oauth_state WHERE expires_at <= (now() AT TIME ZONE 'UTC')";
+
+    private static final String TRIM_SQL =
+        "DELETE FROM auth.oauth_state WHERE state IN " +
+        "(SELECT state FROM auth.oauth_state ORDER BY created_at DESC OFFSET ?)";
+
+    private static final String COUNT_SQL = "SELECT count(*) FROM auth.oauth_state";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OAuth2StateConfig config;
+    private final ScheduledExecutorService purger;
+    private volatile long lastCount;
+    // Inserts by this node since lastCount was taken
+    private final AtomicLong savedSinceCount = new AtomicLong();
+
+    public JdbcOAuth2StateStore(@Qualifier("authJdbcTemplate") JdbcTemplate jdbcTemplate, OAuth2StateConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oauth-state-purger");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, config.getPurgeIntervalSeconds());
+        purger.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.SECONDS);
+        logger.info("OAuth2 state store: auth.oauth_state (TTL {}s, maximum size {})",
+                config.getTtlSeconds(), config.getMaximumSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    @Override
+    public void save(String state, OAuth2State info) {
+        if (lastCount + savedSinceCount.get() >= config.getMaximumSize()) {
+            // Make room for this state
+            trim(config.getMaximumSize() - 1);
+        }
+        jdbcTemplate.update(INSERT_SQL, state, config.getTtlSeconds(),
+                info.getProviderId(), info.getNonce(), info.getRedirectUri());
+        savedSinceCount.incrementAndGet();
+    }
+
+    @Override
+    public OAuth2State consume(String state) {
+        List<OAuth2State> rows = jdbcTemplate.query(CONSUME_SQL, (rs, rowNum) -> new OAuth2State(
+                rs.getString("provider_id"),
+                rs.getString("nonce"),
+                rs.getString("redirect_uri"),
+                rs.getLong("created_at_millis")), state);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public long size() {
+        return lastCount;
+    }
+
+    void purge() {
+        try {
+            trim(config.getMaximumSize());
+        } catch (RuntimeException e) {
+            logger.warn("OAuth2 state purge failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete expired rows and all but the newest {@code keep}, then take a fresh count.
+     */
+    private void trim(long keep) {
+        int expired = jdbcTemplate.update(PURGE_EXPIRED_SQL);
+        int trimmed = jdbcTemplate.update(TRIM_SQL, Math.max(0, keep));
+        // Reset before counting: an insert landing in between is counted twice rather than missed
+        savedSinceCount.set(0);
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        lastCount = count != null ? count : 0;
+        if (expired > 0 || trimmed > 0) {
+            logger.debug("Purged {} expired and {} excess OAuth2 states, {} remaining", expired, trimmed, lastCount);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import buerostack.oauth2.model.AuthSession;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session store on auth.oauth_session, so any node can validate or revoke any session.
+ *
+ * Reads go through a short-lived node-local cache (oauth2.session.cache-ttl-seconds), which keeps
+ * repeated validations of the same session off the database; writes go to the database first and
+ * then replace the cached copy, or drop it when the write lost to a stored revocation. A revocation
+ * made on another node is therefore seen here at most one cache TTL later. Rows past expires_at
+ * are purged periodically. Timestamps are stored as UTC.
+ *
+ * Provider tokens ({@link AuthSession.TokenData}) are never written to the data column; they stay
+ * in memory on the node that created the session and are absent from sessions loaded from the table.
+ */
+@Component
+@ConditionalOnProperty(name = "oauth2.session.store", havingValue = "postgres")
+public class JdbcSessionStore implements SessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcSessionStore.class);
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO auth.oauth_session (session_id, user_id, provider_id, status, created_at, last_activity, expires_at, data) " +
+        "VALUES (?, ?, ?, ?, to_timestamp(? / 1000.0) AT TIME ZONE 'UTC', to_timestamp(? / 1000.0) AT TIME ZONE 'UTC', " +
+        "to_timestamp(? / 1000.0) AT TIME ZONE 'UTC', CAST(? AS jsonb)) " +
+        "ON CONFLICT (session_id) DO UPDATE SET status = EXCLUDED.status, last_activity = EXCLUDED.last_activity, " +
+        "expires_at = EXCLUDED.expires_at, data = EXCLUDED.data " +
+        // Revocation wins over a concurrent write of the still-active session from another node
+        "WHERE auth.oauth_session.status <> 'revoked'";
+
+    private static final String UPDATE_ACTIVITY_SQL =
+        "UPDATE auth.oauth_session SET last_activity = to_timestamp(? / 1000.0) AT TIME ZONE 'UTC', " +
+        "data = jsonb_set(data, '{last_activity}', to_jsonb(CAST(? AS text))) " +
+        "WHERE session_id = ? AND last_activity < to_timestamp(? / 1000.0) AT TIME ZONE 'UTC'";
+
+    private static final String SELECT_SQL =
+        "SELECT data FROM auth.oauth_session WHERE session_id = ?";
+
+    private static final String PURGE_EXPIRED_SQL =
+        "DELETE FROM auth.oauth_session WHERE expires_at <= (now() AT TIME ZONE 'UTC')";
+
+    private static final String COUNT_SQL = "SELECT count(*) FROM auth.oauth_session";
+
+    /**
+     * Keeps provider tokens out of auth.oauth_session.data, which is plain jsonb
+     */
+    abstract static class WithoutTokens {
+        @JsonIgnore
+        abstract AuthSession.TokenData getTokens();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .addMixIn(AuthSession.class, WithoutTokens.class)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Cache<String, AuthSession> cache;
+    private final ScheduledExecutorService purger;
+    private volatile long lastCount;
+
+    public JdbcSessionStore(@Qualifier("authJdbcTemplate") JdbcTemplate jdbcTemplate, OAuth2SessionConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(config.getCacheTtlSeconds()))
+                .maximumSize(config.getCacheMaximumSize())
+                .build();
+        this.purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oauth-session-purger");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, config.getPurgeIntervalSeconds());
+        purger.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.SECONDS);
+        logger.info("Session store: auth.oauth_session (local cache TTL {}s, maximum size {})",
+                config.getCacheTtlSeconds(), config.getCacheMaximumSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdownNow();
+    }
+
+    @Override
+    public boolean save(AuthSession session) {
+        int updated = jdbcTemplate.update(UPSERT_SQL,
+                session.getSessionId(),
+                session.getUserId(),
+                session.getProvider(),
+                session.getStatus(),
+                toMillis(session.getCreatedAt()),
+                toMillis(session.getLastActivity()),
+                toMillis(session.getExpiresAt()),
+                toJson(session));
+        if (updated == 0) {
+            // Revoked meanwhile; drop the cached copy so the revocation is seen from now on
+            cache.invalidate(session.getSessionId());
+            return false;
+        }
+        cache.put(session.getSessionId(), session);
+        return true;
+    }
+
+    @Override
+    public void updateLastActivity(Map<String, Instant> lastActivity) {
+        if (lastActivity.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(lastActivity.size());
+        lastActivity.forEach((sessionId, at) -> {
+            batch.add(new Object[] {at.toEpochMilli(), at.toString(), sessionId, at.toEpochMilli()});
+            AuthSession cached = cache.getIfPresent(sessionId);
+            if (cached != null && (cached.getLastActivity() == null || cached.getLastActivity().isBefore(at))) {
+                cached.setLastActivity(at);
+            }
+        });
+        jdbcTemplate.batchUpdate(UPDATE_ACTIVITY_SQL, batch);
+    }
+
+    @Override
+    public AuthSession find(String sessionId) {
+        // A null from the loader is not cached, so unknown ids always reach the database
+        return cache.get(sessionId, this::load);
+    }
+
+    @Override
+    public long size() {
+        return lastCount;
+    }
+
+    private AuthSession load(String sessionId) {
+        List<String> rows = jdbcTemplate.queryForList(SELECT_SQL, String.class, sessionId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(rows.get(0), AuthSession.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Unreadable session {} in auth.oauth_session: {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    private String toJson(AuthSession session) {
+        try {
+            return objectMapper.writeValueAsString(session);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize session " + session.getSessionId(), e);
+        }
+    }
+
+    private static long toMillis(Instant instant) {
+        return (instant != null ? instant : Instant.now()).toEpochMilli();
+    }
+
+    void purge() {
+        try {
+            int expired = jdbcTemplate.update(PURGE_EXPIRED_SQL);
+            Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+            lastCount = count != null ? count : 0;
+            if (expired > 0) {
+                logger.debug("Purged {} expired sessions, {} remaining", expired, lastCount);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Session purge failed: {}", e.getMessage());
+        }
+    }
+}
@@ -3,24 +3,17 @@ package buerostack.oauth2.service;
 import buerostack.oauth2.config.OAuth2ProvidersConfig.OAuth2ProvidersProperties;
 import buerostack.oauth2.model.OidcDiscovery;
 import buerostack.oauth2.model.ProviderConfig;
-import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
-import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -35,18 +28,22 @@ public class JwtValidationService {
 
     private final OAuth2ProvidersProperties providersProperties;
     private final OidcDiscoveryService discoveryService;
-    private final WebClient webClient;
+    private final ProviderKeyStore keyStore;
 
     @Autowired
     public JwtValidationService(OAuth2ProvidersProperties providersProperties,
-                               OidcDiscoveryService discoveryService) {
+                               OidcDiscoveryService discoveryService,
+                               ProviderKeyStore keyStore) {
         this.providersProperties = providersProperties;
         this.discoveryService = discoveryService;
-        this.webClient = WebClient.builder().build();
+        this.keyStore = keyStore;
     }
 
     /**
      * Validate an ID token from an OAuth2/OIDC provider
+     *
+     * @throws ProviderUnavailableException if the discovery or JWKS fetch is rejected by the provider's
+     *         circuit breaker; the token may well be valid, so this is not reported as an invalid result
      */
     public JwtValidationResult validateIdToken(String providerId, String idToken, String nonce) {
         logger.debug("Validating ID token for provider: {}", providerId);
@@ -66,7 +63,7 @@ public class JwtValidationService {
             OidcDiscovery discovery = discoveryService.getDiscovery(providerId, providerConfig);
 
             // Validate JWT signature
-            if (!validateSignature(signedJWT, discovery.getJwksUri())) {
+            if (!validateSignature(providerId, providerConfig, signedJWT, discovery.getJwksUri())) {
                 return new JwtValidationResult(false, "Invalid JWT signature", null);
             }
 
@@ -124,78 +121,70 @@ public class JwtValidationService {
         } catch (ParseException e) {
             logger.error("Failed to parse JWT token for provider {}: {}", providerId, e.getMessage());
             return new JwtValidationResult(false, "Invalid JWT format: " + e.getMessage(), null);
+        } catch (ProviderUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error validating JWT token for provider {}: {}", providerId, e.getMessage());
             return new JwtValidationResult(false, "Token validation failed: " + e.getMessage(), null);
         }
     }
 
+    /**
+     * Non-blocking variant of {@link #validateIdToken}. When the provider's discovery document and
+     * signing key are already cached, validation runs inline on the calling thread (CPU only);
+     * otherwise the fetches happen on a worker thread. A rejected fetch errors the Mono with
+     * {@link ProviderUnavailableException}.
+     */
+    public Mono<JwtValidationResult> validateIdTokenAsync(String providerId, String idToken, String nonce) {
+        Mono<JwtValidationResult> validation = Mono.fromCallable(() -> validateIdToken(providerId, idToken, nonce));
+        return canValidateWithoutFetch(providerId, idToken)
+                ? validation
+                : validation.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private boolean canValidateWithoutFetch(String providerId, String idToken) {
+        ProviderConfig providerConfig = providersProperties.getProvider(providerId);
+        if (providerConfig == null || !discoveryService.isDiscoveryCached(providerId)) {
+            return providerConfig == null;
+        }
+        try {
+            String jwksUri = discoveryService.getDiscovery(providerId, providerConfig).getJwksUri();
+            String keyId = SignedJWT.parse(idToken).getHeader().getKeyID();
+            return keyStore.hasVerifier(providerId, jwksUri, keyId);
+        } catch (ParseException e) {
+            return true; // Rejected by validateIdToken without any fetch
+        }
+    }
+
     /**
      * Validate JWT signature using provider's JWKS
      */
-    private boolean validateSignature(SignedJWT signedJWT, String jwksUri) {
+    private boolean validateSignature(String providerId, ProviderConfig providerConfig, SignedJWT signedJWT, String jwksUri) {
         try {
             // Get the key ID from JWT header
             String keyId = signedJWT.getHeader().getKeyID();
 
-            // Fetch JWKS and find the matching key
-            JWKSet jwkSet = fetchJwks(jwksUri);
-            JWK jwk = jwkSet.getKeyByKeyId(keyId);
-
-            if (jwk == null) {
-                // If no specific key ID, try the first RSA key
-                for (JWK key : jwkSet.getKeys()) {
-                    if (key instanceof RSAKey) {
-                        jwk = key;
-                        break;
-                    }
-                }
-            }
+            int ttlSeconds = providerConfig.getTokenValidation() != null ?
+                providerConfig.getTokenValidation().getCacheTtlSeconds() : 3600;
+
+            // Pre-built verifier from the provider's key store; no JWKS fetch on the request path
+            JWSVerifier verifier = keyStore.getVerifier(providerId, jwksUri, keyId, ttlSeconds);
 
-            if (jwk == null || !(jwk instanceof RSAKey)) {
+            if (verifier == null) {
                 logger.error("No suitable RSA key found in JWKS for key ID: {}", keyId);
                 return false;
             }
 
-            RSAKey rsaKey = (RSAKey) jwk;
-            RSAPublicKey publicKey = rsaKey.toRSAPublicKey();
-
-            // Verify signature
-            JWSVerifier verifier = new RSASSAVerifier(publicKey);
             return signedJWT.verify(verifier);
 
+        } catch (ProviderUnavailableException e) {
+            throw e; // Reported as such by validateIdToken rather than as a bad signature
         } catch (Exception e) {
             logger.error("Error validating JWT signature: {}", e.getMessage());
             return false;
         }
     }
 
-    /**
-     * Fetch JWKS from provider with caching
-     */
-    @Cacheable(value = "jwks-keys", key = "#jwksUri")
-    private JWKSet fetchJwks(String jwksUri) {
-        try {
-            logger.debug("Fetching JWKS from: {}", jwksUri);
-
-            String jwksJson = webClient.get()
-                    .uri(jwksUri)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            if (jwksJson == null) {
-                throw new RuntimeException("JWKS response is null");
-            }
-
-            return JWKSet.parse(jwksJson);
-
-        } catch (Exception e) {
-            logger.error("Failed to fetch JWKS from {}: {}", jwksUri, e.getMessage());
-            throw new RuntimeException("Failed to fetch JWKS", e);
-        }
-    }
-
     /**
      * Extract standard claims from JWT
      */
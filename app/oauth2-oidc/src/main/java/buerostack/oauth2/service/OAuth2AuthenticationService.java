@@ -1,6 +1,8 @@
 package buerostack.oauth2.service;
 
 import buerostack.oauth2.config.OAuth2ProvidersConfig.OAuth2ProvidersProperties;
+import buerostack.oauth2.config.OAuth2StateConfig;
+import buerostack.oauth2.model.OAuth2State;
 import buerostack.oauth2.model.OidcDiscovery;
 import buerostack.oauth2.model.ProviderConfig;
 import org.slf4j.Logger;
@@ -13,7 +15,6 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Core OAuth2 authentication service handling the authorization code flow
@@ -25,16 +26,22 @@ public class OAuth2AuthenticationService {
 
     private final OAuth2ProvidersProperties providersProperties;
     private final OidcDiscoveryService discoveryService;
+    private final ProviderHttpClient httpClient;
+    private final OAuth2StateStore stateStore;
+    private final long stateTtlMillis;
     private final SecureRandom secureRandom = new SecureRandom();
 
-    // Temporary storage for state and nonce values (in production, use Redis or database)
-    private final Map<String, StateInfo> stateStorage = new ConcurrentHashMap<>();
-
     @Autowired
     public OAuth2AuthenticationService(OAuth2ProvidersProperties providersProperties,
-                                     OidcDiscoveryService discoveryService) {
+                                     OidcDiscoveryService discoveryService,
+                                     ProviderHttpClient httpClient,
+                                     OAuth2StateStore stateStore,
+                                     OAuth2StateConfig stateConfig) {
         this.providersProperties = providersProperties;
         this.discoveryService = discoveryService;
+        this.httpClient = httpClient;
+        this.stateStore = stateStore;
+        this.stateTtlMillis = stateConfig.getTtlSeconds() * 1000;
     }
 
     /**
@@ -57,8 +64,7 @@ public class OAuth2AuthenticationService {
         String nonce = generateSecureRandomString(32);
 
         // Store state information for validation
-        StateInfo stateInfo = new StateInfo(providerId, nonce, clientRedirectUri, System.currentTimeMillis());
-        stateStorage.put(state, stateInfo);
+        stateStore.save(state, new OAuth2State(providerId, nonce, clientRedirectUri, System.currentTimeMillis()));
 
         // Build authorization URL
         String authUrl = buildAuthorizationUrl(discovery, providerConfig, state, nonce, clientRedirectUri);
@@ -122,7 +128,7 @@ public class OAuth2AuthenticationService {
         }
 
         // Validate state
-        StateInfo stateInfo = stateStorage.remove(state);
+        OAuth2State stateInfo = stateStore.consume(state);
         if (stateInfo == null) {
             logger.warn("Invalid or expired state parameter: {}", state);
             return new CallbackValidation(false, "Invalid or expired state parameter", null, null);
@@ -133,8 +139,8 @@ public class OAuth2AuthenticationService {
             return new CallbackValidation(false, "State provider mismatch", null, null);
         }
 
-        // Check state expiration (5 minutes)
-        if (System.currentTimeMillis() - stateInfo.getTimestamp() > 300_000) {
+        // The store already drops expired states; this guards against clock drift between nodes
+        if (System.currentTimeMillis() - stateInfo.getCreatedAtMillis() > stateTtlMillis) {
             logger.warn("State parameter expired");
             return new CallbackValidation(false, "State parameter expired", null, null);
         }
@@ -159,11 +165,13 @@ public class OAuth2AuthenticationService {
         Map<String, ProviderInfo> providers = new HashMap<>();
 
         providersProperties.getEnabledProviders().forEach((id, config) -> {
+            ProviderCircuitBreaker breaker = httpClient.getCircuitBreaker(id);
             providers.put(id, new ProviderInfo(
                 config.getId(),
                 config.getName(),
                 config.getScopes(),
-                true // For now, assume all enabled providers are available
+                breaker.getState() != ProviderCircuitBreaker.State.OPEN,
+                breaker.snapshot()
             ));
         });
 
@@ -212,37 +220,20 @@ public class OAuth2AuthenticationService {
         private final String name;
         private final List<String> scopes;
         private final boolean available;
+        private final Map<String, Object> circuitBreaker;
 
-        public ProviderInfo(String id, String name, List<String> scopes, boolean available) {
+        public ProviderInfo(String id, String name, List<String> scopes, boolean available, Map<String, Object> circuitBreaker) {
             this.id = id;
             this.name = name;
             this.scopes = scopes;
             this.available = available;
+            this.circuitBreaker = circuitBreaker;
         }
 
         public String getId() { return id; }
         public String getName() { return name; }
         public List<String> getScopes() { return scopes; }
         public boolean isAvailable() { return available; }
+        public Map<String, Object> getCircuitBreaker() { return circuitBreaker; }
     }
-
-    // Internal state storage class
-    private static class StateInfo {
-        private final String providerId;
-        private final String nonce;
-        private final String redirectUri;
-        private final long timestamp;
-
-        public StateInfo(String providerId, String nonce, String redirectUri, long timestamp) {
-            this.providerId = providerId;
-            this.nonce = nonce;
-            this.redirectUri = redirectUri;
-            this.timestamp = timestamp;
-        }
-
-        public String getProviderId() { return providerId; }
-        public String getNonce() { return nonce; }
-        public String getRedirectUri() { return redirectUri; }
-        public long getTimestamp() { return timestamp; }
-    }
-}
\ No newline at end of file
+}
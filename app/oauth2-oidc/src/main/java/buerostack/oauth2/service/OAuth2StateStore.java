@@ -0,0 +1,25 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.model.OAuth2State;
+
+/**
+ * Pending authorization states between login initiation and callback.
+ *
+ * Entries expire after oauth2.state.ttl-seconds and the store never holds more than
+ * oauth2.state.maximum-size entries, so abandoned logins cannot grow it without bound.
+ */
+public interface OAuth2StateStore {
+
+    void save(String state, OAuth2State info);
+
+    /**
+     * Remove and return the state; null if it is unknown, expired or already used.
+     * A state can be consumed only once, also across nodes for shared stores.
+     */
+    OAuth2State consume(String state);
+
+    /**
+     * Number of stored states, possibly approximate.
+     */
+    long size();
+}
@@ -5,14 +5,14 @@ import buerostack.oauth2.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,76 +25,82 @@ public class OAuth2TokenService {
 
     private static final Logger logger = LoggerFactory.getLogger(OAuth2TokenService.class);
 
+    private static final ParameterizedTypeReference<Map<String, Object>> USER_INFO_TYPE =
+            new ParameterizedTypeReference<>() {};
+
     private final OAuth2ProvidersProperties providersProperties;
     private final OidcDiscoveryService discoveryService;
-    private final WebClient webClient;
+    private final ProviderHttpClient httpClient;
 
     @Autowired
     public OAuth2TokenService(OAuth2ProvidersProperties providersProperties,
-                             OidcDiscoveryService discoveryService) {
+                             OidcDiscoveryService discoveryService,
+                             ProviderHttpClient httpClient) {
         this.providersProperties = providersProperties;
         this.discoveryService = discoveryService;
-        this.webClient = WebClient.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
-                .build();
+        this.httpClient = httpClient;
     }
 
     /**
      * Exchange authorization code for tokens
      */
     public TokenExchangeResult exchangeCodeForTokens(String providerId, String code, String nonce) {
+        return exchangeCodeForTokensAsync(providerId, code, nonce).block();
+    }
+
+    /**
+     * Exchange authorization code for tokens without blocking the calling thread.
+     * Failures are reported in the result rather than as an error signal, except
+     * {@link ProviderUnavailableException} when the provider's circuit breaker rejects the call.
+     */
+    public Mono<TokenExchangeResult> exchangeCodeForTokensAsync(String providerId, String code, String nonce) {
         logger.info("Exchanging authorization code for tokens with provider: {}", providerId);
 
-        try {
-            // Get provider configuration
-            ProviderConfig providerConfig = providersProperties.getProvider(providerId);
-            if (providerConfig == null) {
-                throw new RuntimeException("Provider not found: " + providerId);
-            }
-
-            // Get discovery document
-            OidcDiscovery discovery = discoveryService.getDiscovery(providerId, providerConfig);
-
-            // Prepare token request
-            MultiValueMap<String, String> tokenRequest = new LinkedMultiValueMap<>();
-            tokenRequest.add("grant_type", "authorization_code");
-            tokenRequest.add("client_id", providerConfig.getClientId());
-            tokenRequest.add("client_secret", providerConfig.getClientSecret());
-            tokenRequest.add("redirect_uri", getCallbackUrl(providerId));
-            tokenRequest.add("code", code);
-
-            // Make token request
-            TokenResponse tokenResponse = webClient.post()
-                    .uri(discovery.getTokenEndpoint())
-                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .bodyValue(tokenRequest)
-                    .retrieve()
-                    .bodyToMono(TokenResponse.class)
-                    .timeout(Duration.ofSeconds(10))
-                    .block();
-
-            if (tokenResponse == null) {
-                throw new RuntimeException("Token response is null");
-            }
-
-            logger.info("Successfully exchanged authorization code for tokens with provider: {}", providerId);
-
-            return new TokenExchangeResult(true, "Token exchange successful", tokenResponse, null);
-
-        } catch (WebClientResponseException e) {
-            logger.error("HTTP error during token exchange for provider {}: {} - {}",
-                    providerId, e.getStatusCode(), e.getResponseBodyAsString());
-
-            Map<String, Object> errorDetails = new HashMap<>();
-            errorDetails.put("status_code", e.getStatusCode().value());
-            errorDetails.put("response_body", e.getResponseBodyAsString());
-
-            return new TokenExchangeResult(false, "Token exchange failed: " + e.getMessage(), null, errorDetails);
-
-        } catch (Exception e) {
-            logger.error("Error during token exchange for provider {}: {}", providerId, e.getMessage());
-            return new TokenExchangeResult(false, "Token exchange failed: " + e.getMessage(), null, null);
+        // Get provider configuration
+        ProviderConfig providerConfig = providersProperties.getProvider(providerId);
+        if (providerConfig == null) {
+            return Mono.just(new TokenExchangeResult(false, "Token exchange failed: Provider not found: " + providerId, null, null));
         }
+
+        // Prepare token request
+        MultiValueMap<String, String> tokenRequest = new LinkedMultiValueMap<>();
+        tokenRequest.add("grant_type", "authorization_code");
+        tokenRequest.add("client_id", providerConfig.getClientId());
+        tokenRequest.add("client_secret", providerConfig.getClientSecret());
+        tokenRequest.add("redirect_uri", getCallbackUrl(providerId));
+        tokenRequest.add("code", code);
+
+        return discoveryService.getDiscoveryAsync(providerId, providerConfig)
+                .flatMap(discovery -> httpClient.forProvider(providerId).post()
+                        .uri(discovery.getTokenEndpoint())
+                        .attribute(ProviderHttpClient.OPERATION_ATTRIBUTE, "token")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .bodyValue(tokenRequest)
+                        .retrieve()
+                        .bodyToMono(TokenResponse.class)
+                        .timeout(httpClient.getTotalTimeout()))
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Token response is null")))
+                .map(tokenResponse -> {
+                    logger.info("Successfully exchanged authorization code for tokens with provider: {}", providerId);
+                    return new TokenExchangeResult(true, "Token exchange successful", tokenResponse, null);
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof ProviderUnavailableException) {
+                        return Mono.error(e); // Surfaced as 503 rather than a failed exchange
+                    }
+                    if (e instanceof WebClientResponseException responseException) {
+                        logger.error("HTTP error during token exchange for provider {}: {} - {}",
+                                providerId, responseException.getStatusCode(), responseException.getResponseBodyAsString());
+
+                        Map<String, Object> errorDetails = new HashMap<>();
+                        errorDetails.put("status_code", responseException.getStatusCode().value());
+                        errorDetails.put("response_body", responseException.getResponseBodyAsString());
+
+                        return Mono.just(new TokenExchangeResult(false, "Token exchange failed: " + e.getMessage(), null, errorDetails));
+                    }
+                    logger.error("Error during token exchange for provider {}: {}", providerId, e.getMessage());
+                    return Mono.just(new TokenExchangeResult(false, "Token exchange failed: " + e.getMessage(), null, null));
+                });
     }
 
     /**
@@ -109,49 +115,51 @@ public class OAuth2TokenService {
      * Validate an access token with the provider's userinfo endpoint
      */
     public UserInfoResult getUserInfo(String providerId, String accessToken) {
+        return getUserInfoAsync(providerId, accessToken).block();
+    }
+
+    /**
+     * Userinfo request without blocking the calling thread.
+     * Failures are reported in the result rather than as an error signal.
+     */
+    public Mono<UserInfoResult> getUserInfoAsync(String providerId, String accessToken) {
         logger.debug("Getting user info from provider: {}", providerId);
 
-        try {
-            // Get provider configuration
-            ProviderConfig providerConfig = providersProperties.getProvider(providerId);
-            if (providerConfig == null) {
-                throw new RuntimeException("Provider not found: " + providerId);
-            }
-
-            // Get discovery document
-            OidcDiscovery discovery = discoveryService.getDiscovery(providerId, providerConfig);
-
-            if (discovery.getUserinfoEndpoint() == null) {
-                logger.warn("Provider {} does not have userinfo endpoint", providerId);
-                return new UserInfoResult(false, "Provider does not support userinfo endpoint", null);
-            }
-
-            // Make userinfo request
-            Map<String, Object> userInfo = webClient.get()
-                    .uri(discovery.getUserinfoEndpoint())
-                    .header("Authorization", "Bearer " + accessToken)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .timeout(Duration.ofSeconds(10))
-                    .block();
-
-            if (userInfo == null) {
-                throw new RuntimeException("UserInfo response is null");
-            }
-
-            logger.debug("Successfully retrieved user info from provider: {}", providerId);
-
-            return new UserInfoResult(true, "UserInfo retrieval successful", userInfo);
-
-        } catch (WebClientResponseException e) {
-            logger.error("HTTP error during userinfo request for provider {}: {} - {}",
-                    providerId, e.getStatusCode(), e.getResponseBodyAsString());
-            return new UserInfoResult(false, "UserInfo request failed: " + e.getMessage(), null);
-
-        } catch (Exception e) {
-            logger.error("Error during userinfo request for provider {}: {}", providerId, e.getMessage());
-            return new UserInfoResult(false, "UserInfo request failed: " + e.getMessage(), null);
+        // Get provider configuration
+        ProviderConfig providerConfig = providersProperties.getProvider(providerId);
+        if (providerConfig == null) {
+            return Mono.just(new UserInfoResult(false, "UserInfo request failed: Provider not found: " + providerId, null));
         }
+
+        return discoveryService.getDiscoveryAsync(providerId, providerConfig)
+                .flatMap(discovery -> {
+                    if (discovery.getUserinfoEndpoint() == null) {
+                        logger.warn("Provider {} does not have userinfo endpoint", providerId);
+                        return Mono.just(new UserInfoResult(false, "Provider does not support userinfo endpoint", null));
+                    }
+
+                    return httpClient.forProvider(providerId).get()
+                            .uri(discovery.getUserinfoEndpoint())
+                            .attribute(ProviderHttpClient.OPERATION_ATTRIBUTE, "userinfo")
+                            .header("Authorization", "Bearer " + accessToken)
+                            .retrieve()
+                            .bodyToMono(USER_INFO_TYPE)
+                            .timeout(httpClient.getTotalTimeout())
+                            .switchIfEmpty(Mono.error(() -> new RuntimeException("UserInfo response is null")))
+                            .map(userInfo -> {
+                                logger.debug("Successfully retrieved user info from provider: {}", providerId);
+                                return new UserInfoResult(true, "UserInfo retrieval successful", userInfo);
+                            });
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof WebClientResponseException responseException) {
+                        logger.error("HTTP error during userinfo request for provider {}: {} - {}",
+                                providerId, responseException.getStatusCode(), responseException.getResponseBodyAsString());
+                    } else {
+                        logger.error("Error during userinfo request for provider {}: {}", providerId, e.getMessage());
+                    }
+                    return Mono.just(new UserInfoResult(false, "UserInfo request failed: " + e.getMessage(), null));
+                });
     }
 
     // Result classes
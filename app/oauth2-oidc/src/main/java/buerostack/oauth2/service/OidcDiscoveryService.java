@@ -4,49 +4,140 @@ import buerostack.oauth2.model.OidcDiscovery;
 import buerostack.oauth2.model.ProviderConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for discovering and caching OAuth2/OIDC provider configurations
+ *
+ * One cache entry per provider, refreshed in the background every health_check_interval.
+ * A failed refresh keeps serving the last good document, and concurrent misses for the
+ * same provider share a single fetch, so only the very first request for a provider can
+ * wait on the discovery endpoint.
  */
 @Service
 public class OidcDiscoveryService {
 
     private static final Logger logger = LoggerFactory.getLogger(OidcDiscoveryService.class);
 
-    private final WebClient webClient;
+    // Used when a provider has no health_check_interval
+    private static final int DEFAULT_REFRESH_SECONDS = 300;
+
+    // Retry delay after a failed background refresh
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    private final ProviderHttpClient httpClient;
     private final ConcurrentMap<String, OidcDiscovery> discoveryCache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<OidcDiscovery>> inFlight = new ConcurrentHashMap<>();
+    // providerId -> scheduled refresh, at most one per provider
+    private final ConcurrentMap<String, ScheduledFuture<?>> refreshes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
 
-    public OidcDiscoveryService() {
-        this.webClient = WebClient.builder()
-                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
-                .build();
+    public OidcDiscoveryService(ProviderHttpClient httpClient) {
+        this.httpClient = httpClient;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oidc-discovery-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
     }
 
     /**
-     * Discover OIDC configuration for a provider
+     * Fetch the discovery document now, update the cache and (re)start background refresh.
+     * Concurrent calls for the same provider share one fetch.
      */
-    @Cacheable(value = "oidc-discovery", key = "#providerId")
     public OidcDiscovery discoverProvider(String providerId, ProviderConfig config) {
+        CompletableFuture<OidcDiscovery> created = new CompletableFuture<>();
+        CompletableFuture<OidcDiscovery> existing = inFlight.putIfAbsent(providerId, created);
+        if (existing != null) {
+            return join(existing, providerId);
+        }
+        try {
+            OidcDiscovery discovery = fetchDiscovery(providerId, config);
+            discoveryCache.put(providerId, discovery);
+            scheduleRefresh(providerId, config, refreshSeconds(config));
+            created.complete(discovery);
+            return discovery;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(providerId, created);
+        }
+    }
+
+    private OidcDiscovery join(CompletableFuture<OidcDiscovery> future, String providerId) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to discover OIDC configuration for provider: " + providerId, e.getCause());
+        }
+    }
+
+    private void scheduleRefresh(String providerId, ProviderConfig config, long delaySeconds) {
+        try {
+            ScheduledFuture<?> next = refresher.schedule(() -> refresh(providerId, config), delaySeconds, TimeUnit.SECONDS);
+            ScheduledFuture<?> previous = refreshes.put(providerId, next);
+            if (previous != null) {
+                previous.cancel(false);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Discovery refresh for provider {} not scheduled: {}", providerId, e.getMessage());
+        }
+    }
+
+    private void refresh(String providerId, ProviderConfig config) {
+        try {
+            discoverProvider(providerId, config);
+        } catch (RuntimeException e) {
+            // The last good document stays in the cache
+            logger.warn("Background discovery refresh for provider {} failed, serving cached document: {}",
+                    providerId, e.getMessage());
+            scheduleRefresh(providerId, config, Math.min(RETRY_DELAY_SECONDS, refreshSeconds(config)));
+        }
+    }
+
+    private static long refreshSeconds(ProviderConfig config) {
+        Integer interval = config.getHealthCheckInterval();
+        return interval != null && interval > 0 ? interval : DEFAULT_REFRESH_SECONDS;
+    }
+
+    private OidcDiscovery fetchDiscovery(String providerId, ProviderConfig config) {
         logger.info("Discovering OIDC configuration for provider: {}", providerId);
 
         try {
-            OidcDiscovery discovery = webClient.get()
+            OidcDiscovery discovery = httpClient.forProvider(providerId).get()
                     .uri(config.getDiscoveryUrl())
+                    .attribute(ProviderHttpClient.OPERATION_ATTRIBUTE, "discovery")
                     .retrieve()
                     .bodyToMono(OidcDiscovery.class)
                     .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
-                            .maxBackoff(Duration.ofSeconds(10)))
-                    .timeout(Duration.ofSeconds(10))
+                            .maxBackoff(Duration.ofSeconds(10))
+                            // Rejected by the circuit breaker: retrying would only be rejected again
+                            .filter(e -> !(e instanceof ProviderUnavailableException)))
+                    .timeout(httpClient.getTotalTimeout())
                     .block();
 
             if (discovery == null) {
@@ -54,13 +145,15 @@ public class OidcDiscoveryService {
             }
 
             validateDiscoveryDocument(discovery, providerId);
-            discoveryCache.put(providerId, discovery);
 
             logger.info("Successfully discovered OIDC configuration for provider: {} (issuer: {})",
                     providerId, discovery.getIssuer());
 
             return discovery;
 
+        } catch (ProviderUnavailableException e) {
+            logger.warn("Discovery for provider {} rejected: {}", providerId, e.getMessage());
+            throw e;
         } catch (WebClientResponseException e) {
             logger.error("HTTP error discovering OIDC configuration for provider {}: {} - {}",
                     providerId, e.getStatusCode(), e.getResponseBodyAsString());
@@ -72,7 +165,8 @@ public class OidcDiscoveryService {
     }
 
     /**
-     * Get cached discovery document or fetch if not cached
+     * Get cached discovery document or fetch if not cached.
+     * A cached document is returned even while its refresh is pending or failing.
      */
     public OidcDiscovery getDiscovery(String providerId, ProviderConfig config) {
         OidcDiscovery cached = discoveryCache.get(providerId);
@@ -82,6 +176,19 @@ public class OidcDiscoveryService {
         return discoverProvider(providerId, config);
     }
 
+    /**
+     * Non-blocking variant of {@link #getDiscovery}: a cached document is returned immediately,
+     * a cold miss is fetched on a worker thread instead of the caller's.
+     */
+    public Mono<OidcDiscovery> getDiscoveryAsync(String providerId, ProviderConfig config) {
+        OidcDiscovery cached = discoveryCache.get(providerId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.fromCallable(() -> discoverProvider(providerId, config))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
     /**
      * Validate discovery document has required fields
      */
@@ -129,6 +236,10 @@ public class OidcDiscoveryService {
      */
     public void clearDiscoveryCache(String providerId) {
         discoveryCache.remove(providerId);
+        ScheduledFuture<?> refresh = refreshes.remove(providerId);
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
         logger.info("Cleared discovery cache for provider: {}", providerId);
     }
 
@@ -137,6 +248,8 @@ public class OidcDiscoveryService {
      */
     public void clearAllDiscoveryCache() {
         discoveryCache.clear();
+        refreshes.values().forEach(refresh -> refresh.cancel(false));
+        refreshes.clear();
         logger.info("Cleared all discovery cache");
     }
 
@@ -144,8 +257,9 @@ public class OidcDiscoveryService {
      * Test connectivity to a provider's discovery endpoint
      */
     public Mono<Boolean> testProviderConnectivity(ProviderConfig config) {
-        return webClient.get()
+        return httpClient.forProvider(config.getId()).get()
                 .uri(config.getDiscoveryUrl())
+                .attribute(ProviderHttpClient.OPERATION_ATTRIBUTE, "connectivity")
                 .retrieve()
                 .bodyToMono(String.class)
                 .timeout(Duration.ofSeconds(5))
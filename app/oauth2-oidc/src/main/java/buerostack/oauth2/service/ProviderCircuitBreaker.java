@@ -0,0 +1,157 @@
+package buerostack.oauth2.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker and bulkhead for calls to one provider.
+ *
+ * The breaker opens after {@code failureThreshold} consecutive failures (connect errors,
+ * timeouts, 5xx responses) and rejects calls for {@code openMillis}. It then lets a single
+ * trial call through (half-open): success closes it, failure opens it again. Independently,
+ * at most {@code maxConcurrentCalls} calls may be in flight; further calls are rejected at once.
+ */
+public class ProviderCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String providerId;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int maxConcurrentCalls;
+    private final Semaphore bulkhead;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean trialInFlight;
+    private long rejectedCalls;
+    private String lastFailure;
+    private long lastFailureAtMillis;
+
+    public ProviderCircuitBreaker(String providerId, int failureThreshold, long openMillis, int maxConcurrentCalls) {
+        this(providerId, failureThreshold, openMillis, maxConcurrentCalls, System::currentTimeMillis);
+    }
+
+    ProviderCircuitBreaker(String providerId, int failureThreshold, long openMillis, int maxConcurrentCalls, LongSupplier clock) {
+        this.providerId = providerId;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrentCalls));
+        this.clock = clock;
+    }
+
+    /**
+     * Take a bulkhead slot and breaker permission for one call.
+     * Every successful acquire must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure(String)} or {@link #onCancel()}.
+     *
+     * @throws ProviderUnavailableException if the call must not be made
+     */
+    public void acquire() {
+        if (!bulkhead.tryAcquire()) {
+            synchronized (this) {
+                rejectedCalls++;
+            }
+            throw new ProviderUnavailableException(providerId, "too many concurrent requests", 1);
+        }
+        synchronized (this) {
+            long now = clock.getAsLong();
+            if (state == State.OPEN && now - openedAtMillis >= openMillis) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+                logger.info("Circuit breaker for provider {} half-open, allowing a trial call", providerId);
+            }
+            if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+                rejectedCalls++;
+                bulkhead.release();
+                throw new ProviderUnavailableException(providerId, "circuit breaker open", retryAfterSeconds(now));
+            }
+            if (state == State.HALF_OPEN) {
+                trialInFlight = true;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                logger.info("Circuit breaker for provider {} closed", providerId);
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+        bulkhead.release();
+    }
+
+    public void onFailure(String reason) {
+        synchronized (this) {
+            long now = clock.getAsLong();
+            lastFailure = reason;
+            lastFailureAtMillis = now;
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                logger.warn("Circuit breaker for provider {} opened after {} consecutive failures (last: {})",
+                        providerId, consecutiveFailures, reason);
+                state = State.OPEN;
+                openedAtMillis = now;
+            }
+            trialInFlight = false;
+        }
+        bulkhead.release();
+    }
+
+    /**
+     * The caller gave up before an outcome was known; counts as neither success nor failure.
+     */
+    public void onCancel() {
+        synchronized (this) {
+            trialInFlight = false;
+        }
+        bulkhead.release();
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAtMillis >= openMillis) {
+            return State.HALF_OPEN; // Next call will be let through as the trial
+        }
+        return state;
+    }
+
+    /**
+     * State for health and provider endpoints.
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("state", getState().name());
+        snapshot.put("consecutive_failures", consecutiveFailures);
+        snapshot.put("rejected_calls", rejectedCalls);
+        snapshot.put("in_flight", maxConcurrentCalls - bulkhead.availablePermits());
+        snapshot.put("max_concurrent_calls", maxConcurrentCalls);
+        if (state == State.OPEN) {
+            snapshot.put("retry_after_seconds", retryAfterSeconds(clock.getAsLong()));
+        }
+        if (lastFailure != null) {
+            snapshot.put("last_failure", lastFailure);
+            snapshot.put("last_failure_at", Instant.ofEpochMilli(lastFailureAtMillis).toString());
+        }
+        return snapshot;
+    }
+
+    private long retryAfterSeconds(long now) {
+        long remaining = openMillis - (now - openedAtMillis);
+        return Math.max(1, (remaining + 999) / 1000);
+    }
+}
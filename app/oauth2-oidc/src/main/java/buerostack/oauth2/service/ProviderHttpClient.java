@@ -0,0 +1,247 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.ProviderHttpClientConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The one outbound HTTP client for calls to OAuth2/OIDC providers.
+ *
+ * Each provider gets its own keep-alive connection pool, so TLS sessions to a provider are
+ * reused across discovery, JWKS, token and userinfo calls and a slow provider cannot take
+ * connections from the others. Connect and read timeouts are set on the connection; callers
+ * apply {@link #getTotalTimeout()} to the whole exchange.
+ *
+ * Calls also pass through the provider's {@link ProviderCircuitBreaker}: while the breaker is
+ * open or the provider's concurrency limit is reached, they fail at once with
+ * {@link ProviderUnavailableException} instead of waiting for the timeout.
+ *
+ * Every request is recorded in the "oauth2.provider.requests" timer (with histogram), tagged
+ * with provider, operation (see {@link #OPERATION_ATTRIBUTE}), status and outcome. Both the
+ * breaker outcome and the timing are taken once the response body has been consumed.
+ */
+@Component
+public class ProviderHttpClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderHttpClient.class);
+
+    /**
+     * Request attribute naming the call for metrics, e.g. "discovery", "jwks", "token", "userinfo".
+     */
+    public static final String OPERATION_ATTRIBUTE = ProviderHttpClient.class.getName() + ".operation";
+
+    static final String METRIC_NAME = "oauth2.provider.requests";
+
+    private final ProviderHttpClientConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, WebClient> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConnectionProvider> pools = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ProviderCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProviderHttpClient(ProviderHttpClientConfig config, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(config, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    ProviderHttpClient(ProviderHttpClientConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * WebClient bound to the provider's connection pool and metrics.
+     */
+    public WebClient forProvider(String providerId) {
+        return clients.computeIfAbsent(providerId, this::build);
+    }
+
+    /**
+     * The provider's circuit breaker, created on first use.
+     */
+    public ProviderCircuitBreaker getCircuitBreaker(String providerId) {
+        return breakers.computeIfAbsent(providerId, id -> new ProviderCircuitBreaker(id,
+                config.getBreakerFailureThreshold(),
+                config.getBreakerOpenSeconds() * 1000,
+                config.getMaxConcurrentCallsPerProvider()));
+    }
+
+    /**
+     * Upper bound for a complete exchange with a provider, including reading the body.
+     */
+    public Duration getTotalTimeout() {
+        return Duration.ofMillis(config.getTotalTimeoutMs());
+    }
+
+    private WebClient build(String providerId) {
+        ConnectionProvider pool = pools.computeIfAbsent(providerId, id -> ConnectionProvider.builder("oauth2-" + id)
+                .maxConnections(config.getMaxConnectionsPerProvider())
+                .maxIdleTime(Duration.ofSeconds(config.getMaxIdleTimeSeconds()))
+                .maxLifeTime(Duration.ofSeconds(config.getMaxLifeTimeSeconds()))
+                .pendingAcquireTimeout(Duration.ofMillis(config.getPendingAcquireTimeoutMs()))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build());
+
+        HttpClient httpClient = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) config.getConnectTimeoutMs())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(config.getReadTimeoutMs()));
+
+        logger.debug("Created HTTP client for provider {} (max {} connections)", providerId, config.getMaxConnectionsPerProvider());
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB
+                .filter(metrics(providerId))
+                .filter(circuitBreaker(providerId))
+                .build();
+    }
+
+    private ExchangeFilterFunction metrics(String providerId) {
+        return (request, next) -> {
+            String operation = request.attribute(OPERATION_ATTRIBUTE).map(Object::toString).orElse("other");
+            long startedAt = System.nanoTime();
+            return whenFinished(next.exchange(request), (response, error, cancelled) -> {
+                if (cancelled) {
+                    record(providerId, operation, status(response), "CANCELLED", startedAt);
+                } else if (error != null) {
+                    record(providerId, operation, status(response), outcome(error), startedAt);
+                } else {
+                    record(providerId, operation, status(response), outcome(response), startedAt);
+                }
+            });
+        };
+    }
+
+    private ExchangeFilterFunction circuitBreaker(String providerId) {
+        ProviderCircuitBreaker breaker = getCircuitBreaker(providerId);
+        return (request, next) -> Mono.defer(() -> {
+            breaker.acquire();
+            return whenFinished(next.exchange(request), (response, error, cancelled) -> {
+                if (cancelled) {
+                    breaker.onCancel();
+                } else if (error != null) {
+                    breaker.onFailure(error.getClass().getSimpleName() + ": " + error.getMessage());
+                } else if (response != null && response.statusCode().is5xxServerError()) {
+                    breaker.onFailure("HTTP " + response.statusCode().value());
+                } else {
+                    breaker.onSuccess();
+                }
+            });
+        });
+    }
+
+    /**
+     * Reports the end of an exchange exactly once. With a response, that is when its body has been
+     * read to the end, has failed or has been cancelled, not when the headers arrive, so a body read
+     * that times out or is reset counts as a failure and the timing covers the whole exchange.
+     * Without one, it is when the exchange itself fails or is cancelled.
+     */
+    private static Mono<ClientResponse> whenFinished(Mono<ClientResponse> exchange, ExchangeListener listener) {
+        return Mono.defer(() -> {
+            AtomicBoolean responded = new AtomicBoolean();
+            AtomicBoolean finished = new AtomicBoolean();
+            return exchange
+                    .map(response -> {
+                        responded.set(true);
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnComplete(() -> finish(finished, listener, response, null, false))
+                                        .doOnError(e -> finish(finished, listener, response, e, false))
+                                        .doOnCancel(() -> finish(finished, listener, response, null, true)))
+                                .build();
+                    })
+                    .doOnSuccess(response -> {
+                        if (response == null) {
+                            finish(finished, listener, null, null, false);
+                        }
+                    })
+                    .doOnError(e -> finish(finished, listener, null, e, false))
+                    .doOnCancel(() -> {
+                        // Once the response is out, its body decides
+                        if (!responded.get()) {
+                            finish(finished, listener, null, null, true);
+                        }
+                    });
+        });
+    }
+
+    private static void finish(AtomicBoolean finished, ExchangeListener listener,
+                               ClientResponse response, Throwable error, boolean cancelled) {
+        if (finished.compareAndSet(false, true)) {
+            listener.finished(response, error, cancelled);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExchangeListener {
+        void finished(ClientResponse response, Throwable error, boolean cancelled);
+    }
+
+    private static String status(ClientResponse response) {
+        return response != null ? String.valueOf(response.statusCode().value()) : "none";
+    }
+
+    private static String outcome(ClientResponse response) {
+        if (response == null) {
+            return "UNKNOWN";
+        }
+        if (response.statusCode().is5xxServerError()) {
+            return "SERVER_ERROR";
+        }
+        return response.statusCode().is4xxClientError() ? "CLIENT_ERROR" : "SUCCESS";
+    }
+
+    private static String outcome(Throwable error) {
+        if (error instanceof ProviderUnavailableException) {
+            return "REJECTED";
+        }
+        // Connect and read timeouts arrive wrapped in a WebClientRequestException
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof io.netty.handler.timeout.TimeoutException
+                    || t instanceof ConnectTimeoutException) {
+                return "TIMEOUT";
+            }
+        }
+        return "ERROR";
+    }
+
+    private void record(String providerId, String operation, String status, String outcome, long startedAt) {
+        Timer.builder(METRIC_NAME)
+                .description("Outbound requests to OAuth2/OIDC providers")
+                .tag("provider", providerId)
+                .tag("operation", operation)
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(ConnectionProvider::dispose);
+    }
+}
@@ -0,0 +1,262 @@
+package buerostack.oauth2.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Parsed JWKS verifiers per OIDC provider, indexed by (providerId, kid).
+ *
+ * Keys are fetched once, then refreshed in the background before the provider's
+ * token_validation.cache_ttl_seconds runs out, so validation never waits on the JWKS
+ * endpoint after the first fetch. A token signed with an unknown kid (key rotation)
+ * triggers at most one refetch per provider per {@link #DEFAULT_MIN_REFETCH_INTERVAL}.
+ * When a fetch fails the previous keys stay in use.
+ */
+@Service
+public class ProviderKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderKeyStore.class);
+
+    static final Duration DEFAULT_MIN_REFETCH_INTERVAL = Duration.ofSeconds(30);
+
+    // Refresh when this fraction of the TTL has passed
+    private static final double REFRESH_AHEAD_FACTOR = 0.8;
+
+    // Retry delay after a failed background refresh
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    // (providerId, jwksUri) -> JWKS document
+    private final BiFunction<String, String, String> jwksFetcher;
+    private final long minRefetchIntervalMillis;
+    private final ConcurrentMap<String, ProviderKeys> keysByProvider = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    @Autowired
+    public ProviderKeyStore(ProviderHttpClient httpClient) {
+        this(httpFetcher(httpClient), DEFAULT_MIN_REFETCH_INTERVAL);
+    }
+
+    ProviderKeyStore(Function<String, String> jwksFetcher, Duration minRefetchInterval) {
+        this((providerId, jwksUri) -> jwksFetcher.apply(jwksUri), minRefetchInterval);
+    }
+
+    private ProviderKeyStore(BiFunction<String, String, String> jwksFetcher, Duration minRefetchInterval) {
+        this.jwksFetcher = jwksFetcher;
+        this.minRefetchIntervalMillis = minRefetchInterval.toMillis();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwks-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Verifier for a provider's key.
+     *
+     * @param kid key ID from the JWS header; null selects the provider's first RSA key
+     * @param ttlSeconds how long fetched keys are considered fresh
+     * @return the verifier, or null if the provider publishes no such key
+     */
+    public JWSVerifier getVerifier(String providerId, String jwksUri, String kid, long ttlSeconds) {
+        ProviderKeys keys = keysByProvider.get(providerId);
+        if (keys == null || !keys.jwksUri.equals(jwksUri)) {
+            keys = loadInitial(providerId, jwksUri, ttlSeconds);
+        }
+
+        JWSVerifier verifier = keys.find(kid);
+        if (verifier != null || kid == null) {
+            return verifier;
+        }
+
+        // Unknown kid: the provider may have rotated keys since the last fetch
+        keys = refetchForUnknownKid(providerId, jwksUri, kid, ttlSeconds);
+        return keys != null ? keys.find(kid) : null;
+    }
+
+    /**
+     * True if {@link #getVerifier} can answer for this kid from loaded keys, without a fetch.
+     */
+    public boolean hasVerifier(String providerId, String jwksUri, String kid) {
+        ProviderKeys keys = keysByProvider.get(providerId);
+        return keys != null && keys.jwksUri.equals(jwksUri) && keys.find(kid) != null;
+    }
+
+    /**
+     * True once keys for the provider have been fetched at least once.
+     */
+    public boolean isLoaded(String providerId) {
+        return keysByProvider.containsKey(providerId);
+    }
+
+    /**
+     * Fetch keys for a provider now if they are not loaded yet, e.g. during startup warm-up.
+     */
+    public void preload(String providerId, String jwksUri, long ttlSeconds) {
+        ProviderKeys keys = keysByProvider.get(providerId);
+        if (keys == null || !keys.jwksUri.equals(jwksUri)) {
+            loadInitial(providerId, jwksUri, ttlSeconds);
+        }
+    }
+
+    private ProviderKeys loadInitial(String providerId, String jwksUri, long ttlSeconds) {
+        synchronized (lockFor(providerId)) {
+            ProviderKeys keys = keysByProvider.get(providerId);
+            if (keys != null && keys.jwksUri.equals(jwksUri)) {
+                return keys; // Loaded by a concurrent caller
+            }
+            keys = fetch(providerId, jwksUri);
+            keysByProvider.put(providerId, keys);
+            scheduleRefresh(providerId, jwksUri, ttlSeconds, refreshDelaySeconds(ttlSeconds));
+            return keys;
+        }
+    }
+
+    private ProviderKeys refetchForUnknownKid(String providerId, String jwksUri, String kid, long ttlSeconds) {
+        synchronized (lockFor(providerId)) {
+            ProviderKeys keys = keysByProvider.get(providerId);
+            if (keys.find(kid) != null) {
+                return keys; // Another caller already refetched
+            }
+            if (System.currentTimeMillis() - keys.fetchedAtMillis < minRefetchIntervalMillis) {
+                logger.debug("Unknown kid {} for provider {}, JWKS refetched recently, not fetching again", kid, providerId);
+                return keys;
+            }
+            logger.info("Unknown kid {} for provider {}, refetching JWKS", kid, providerId);
+            try {
+                keys = fetch(providerId, jwksUri);
+                keysByProvider.put(providerId, keys);
+            } catch (RuntimeException e) {
+                logger.warn("JWKS refetch for provider {} failed, keeping previous keys: {}", providerId, e.getMessage());
+                // Count the failed attempt against the rate limit as well
+                keys = keys.touched();
+                keysByProvider.put(providerId, keys);
+            }
+            return keys;
+        }
+    }
+
+    private void scheduleRefresh(String providerId, String jwksUri, long ttlSeconds, long delaySeconds) {
+        try {
+            refresher.schedule(() -> refresh(providerId, jwksUri, ttlSeconds), delaySeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            logger.debug("JWKS refresh for provider {} not scheduled: {}", providerId, e.getMessage());
+        }
+    }
+
+    private void refresh(String providerId, String jwksUri, long ttlSeconds) {
+        ProviderKeys current = keysByProvider.get(providerId);
+        if (current == null || !current.jwksUri.equals(jwksUri)) {
+            return; // Superseded by a load for a different JWKS URI, which scheduled its own refresh
+        }
+        try {
+            ProviderKeys keys = fetch(providerId, jwksUri);
+            keysByProvider.put(providerId, keys);
+            logger.debug("Refreshed JWKS for provider {} ({} keys)", providerId, keys.verifiers.size());
+            scheduleRefresh(providerId, jwksUri, ttlSeconds, refreshDelaySeconds(ttlSeconds));
+        } catch (RuntimeException e) {
+            logger.warn("Background JWKS refresh for provider {} failed, serving previous keys: {}", providerId, e.getMessage());
+            scheduleRefresh(providerId, jwksUri, ttlSeconds, Math.min(RETRY_DELAY_SECONDS, refreshDelaySeconds(ttlSeconds)));
+        }
+    }
+
+    private ProviderKeys fetch(String providerId, String jwksUri) {
+        logger.debug("Fetching JWKS for provider {} from: {}", providerId, jwksUri);
+        String json = jwksFetcher.apply(providerId, jwksUri);
+        if (json == null) {
+            throw new IllegalStateException("JWKS response is null");
+        }
+        try {
+            return ProviderKeys.from(jwksUri, JWKSet.parse(json));
+        } catch (ParseException | JOSEException e) {
+            throw new IllegalStateException("Invalid JWKS from " + jwksUri + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Object lockFor(String providerId) {
+        return locks.computeIfAbsent(providerId, id -> new Object());
+    }
+
+    private static long refreshDelaySeconds(long ttlSeconds) {
+        return Math.max(1, (long) (ttlSeconds * REFRESH_AHEAD_FACTOR));
+    }
+
+    private static BiFunction<String, String, String> httpFetcher(ProviderHttpClient httpClient) {
+        return (providerId, jwksUri) -> httpClient.forProvider(providerId).get()
+                .uri(jwksUri)
+                .attribute(ProviderHttpClient.OPERATION_ATTRIBUTE, "jwks")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(httpClient.getTotalTimeout());
+    }
+
+    /**
+     * Immutable snapshot of one provider's keys; replaced as a whole on refresh.
+     */
+    private static final class ProviderKeys {
+        private final String jwksUri;
+        private final Map<String, JWSVerifier> verifiers;
+        private final JWSVerifier defaultVerifier;
+        private final long fetchedAtMillis;
+
+        private ProviderKeys(String jwksUri, Map<String, JWSVerifier> verifiers, JWSVerifier defaultVerifier, long fetchedAtMillis) {
+            this.jwksUri = jwksUri;
+            this.verifiers = verifiers;
+            this.defaultVerifier = defaultVerifier;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
+
+        static ProviderKeys from(String jwksUri, JWKSet jwkSet) throws JOSEException {
+            Map<String, JWSVerifier> verifiers = new HashMap<>();
+            JWSVerifier first = null;
+            for (JWK jwk : jwkSet.getKeys()) {
+                if (!(jwk instanceof RSAKey rsaKey)) {
+                    continue;
+                }
+                JWSVerifier verifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
+                if (first == null) {
+                    first = verifier;
+                }
+                if (rsaKey.getKeyID() != null) {
+                    verifiers.put(rsaKey.getKeyID(), verifier);
+                }
+            }
+            return new ProviderKeys(jwksUri, Collections.unmodifiableMap(verifiers), first, System.currentTimeMillis());
+        }
+
+        JWSVerifier find(String kid) {
+            return kid != null ? verifiers.get(kid) : defaultVerifier;
+        }
+
+        ProviderKeys touched() {
+            return new ProviderKeys(jwksUri, verifiers, defaultVerifier, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package buerostack.oauth2.service;
+
+/**
+ * A provider call rejected without being sent, because the provider's circuit breaker is open
+ * or its concurrency limit is reached.
+ */
+public class ProviderUnavailableException extends RuntimeException {
+
+    private final String providerId;
+    private final long retryAfterSeconds;
+
+    public ProviderUnavailableException(String providerId, String reason, long retryAfterSeconds) {
+        super("Provider " + providerId + " is temporarily unavailable: " + reason);
+        this.providerId = providerId;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+
+    /**
+     * Seconds until the provider may accept calls again; 0 when unknown.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
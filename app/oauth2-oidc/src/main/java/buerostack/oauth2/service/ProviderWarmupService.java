@@ -0,0 +1,266 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2ProvidersConfig.OAuth2ProvidersProperties;
+import buerostack.oauth2.config.ProviderWarmupConfig;
+import buerostack.oauth2.model.OidcDiscovery;
+import buerostack.oauth2.model.ProviderConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches discovery documents and JWKS for all enabled providers once the application is up,
+ * so the first login or ID token validation after a restart does not pay for them.
+ *
+ * Providers are warmed concurrently under one total deadline (oauth2.warmup.deadline-seconds).
+ * A provider that is not warm by then is fetched lazily on first use, as before. The service
+ * is ready once the warm-up phase has ended and every enabled provider marked critical is warm.
+ * Critical providers that are not warm when the phase ends are retried in the background with
+ * exponential backoff (oauth2.warmup.retry-*) until they are, so readiness recovers on its own.
+ */
+@Service
+public class ProviderWarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProviderWarmupService.class);
+
+    public enum WarmupState { PENDING, WARM, FAILED }
+
+    private final OAuth2ProvidersProperties providersProperties;
+    private final OidcDiscoveryService discoveryService;
+    private final ProviderKeyStore keyStore;
+    private final ProviderWarmupConfig config;
+
+    private final ConcurrentMap<String, ProviderStatus> statuses = new ConcurrentHashMap<>();
+    private volatile boolean phaseComplete;
+    private volatile ExecutorService executor;
+    private volatile ScheduledExecutorService retryScheduler;
+
+    public ProviderWarmupService(OAuth2ProvidersProperties providersProperties,
+                                 OidcDiscoveryService discoveryService,
+                                 ProviderKeyStore keyStore,
+                                 ProviderWarmupConfig config) {
+        this.providersProperties = providersProperties;
+        this.discoveryService = discoveryService;
+        this.keyStore = keyStore;
+        this.config = config;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!config.isEnabled()) {
+            logger.info("Provider warm-up disabled");
+            phaseComplete = true;
+            return;
+        }
+        warmUp();
+    }
+
+    /**
+     * Start warming all enabled providers; returns without waiting for them.
+     */
+    public CompletableFuture<Void> warmUp() {
+        Map<String, ProviderConfig> providers = providersProperties.getEnabledProviders();
+        if (providers.isEmpty()) {
+            phaseComplete = true;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long startedAt = System.currentTimeMillis();
+        int threads = Math.max(1, Math.min(providers.size(), config.getMaxConcurrency()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "provider-warmup");
+            t.setDaemon(true);
+            return t;
+        });
+        executor = pool;
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        providers.forEach((providerId, providerConfig) -> {
+            statuses.put(providerId, ProviderStatus.pending());
+            tasks.add(CompletableFuture.runAsync(() -> warm(providerId, providerConfig), pool));
+        });
+
+        logger.info("Warming up {} OAuth2 providers (deadline {}s)", providers.size(), config.getDeadlineSeconds());
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                .orTimeout(config.getDeadlineSeconds(), TimeUnit.SECONDS)
+                .handle((ignored, error) -> {
+                    if (error instanceof TimeoutException) {
+                        statuses.replaceAll((id, status) -> status.state == WarmupState.PENDING
+                                ? ProviderStatus.failed("warm-up deadline exceeded", 0) : status);
+                    }
+                    phaseComplete = true;
+                    pool.shutdownNow();
+                    logger.info("Provider warm-up finished in {} ms: {} of {} providers warm",
+                            System.currentTimeMillis() - startedAt, countWarm(), providers.size());
+                    retryCriticalProviders(providers);
+                    return null;
+                });
+    }
+
+    private void warm(String providerId, ProviderConfig providerConfig) {
+        long startedAt = System.currentTimeMillis();
+        try {
+            OidcDiscovery discovery = discoveryService.getDiscovery(providerId, providerConfig);
+            int ttlSeconds = providerConfig.getTokenValidation() != null ?
+                providerConfig.getTokenValidation().getCacheTtlSeconds() : 3600;
+            keyStore.preload(providerId, discovery.getJwksUri(), ttlSeconds);
+            long took = System.currentTimeMillis() - startedAt;
+            statuses.put(providerId, ProviderStatus.warm(took));
+            logger.info("Provider {} warm in {} ms", providerId, took);
+        } catch (RuntimeException e) {
+            long took = System.currentTimeMillis() - startedAt;
+            statuses.put(providerId, ProviderStatus.failed(e.getMessage(), took));
+            logger.warn("Provider {} warm-up failed after {} ms: {}", providerId, took, e.getMessage());
+        }
+    }
+
+    private void retryCriticalProviders(Map<String, ProviderConfig> providers) {
+        List<String> cold = providers.entrySet().stream()
+                .filter(entry -> Boolean.TRUE.equals(entry.getValue().getCritical()) && !isWarm(entry.getKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (cold.isEmpty()) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "provider-warmup-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        ScheduledExecutorService previous = retryScheduler;
+        if (previous != null) {
+            previous.shutdownNow();
+        }
+        retryScheduler = scheduler;
+        logger.warn("Critical providers {} are not warm; retrying in the background", cold);
+        cold.forEach(providerId -> scheduleRetry(scheduler, providerId, providers.get(providerId), 1));
+    }
+
+    private void scheduleRetry(ScheduledExecutorService scheduler, String providerId, ProviderConfig providerConfig, int attempt) {
+        long delayMillis = Math.min(config.getRetryMaxBackoffMillis(),
+                config.getRetryInitialBackoffMillis() << Math.min(attempt - 1, 20));
+        try {
+            scheduler.schedule(() -> {
+                if (!isWarm(providerId)) {
+                    warm(providerId, providerConfig);
+                }
+                if (isWarm(providerId)) {
+                    logger.info("Critical provider {} warm after {} retries", providerId, attempt);
+                } else {
+                    scheduleRetry(scheduler, providerId, providerConfig, attempt + 1);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * True once the warm-up phase has ended and every enabled critical provider is warm.
+     */
+    public boolean isReady() {
+        if (!phaseComplete) {
+            return false;
+        }
+        for (ProviderConfig providerConfig : providersProperties.getEnabledProviders().values()) {
+            if (Boolean.TRUE.equals(providerConfig.getCritical()) && !isWarm(providerConfig.getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isPhaseComplete() {
+        return phaseComplete;
+    }
+
+    /**
+     * A provider is warm when both its discovery document and its keys are cached,
+     * whether by warm-up or by a later lazy fetch.
+     */
+    public boolean isWarm(String providerId) {
+        return discoveryService.isDiscoveryCached(providerId) && keyStore.isLoaded(providerId);
+    }
+
+    /**
+     * Per-provider readiness for the enabled providers, keyed by provider ID.
+     */
+    public Map<String, Map<String, Object>> getProviderReadiness() {
+        Map<String, Map<String, Object>> readiness = new LinkedHashMap<>();
+        providersProperties.getEnabledProviders().forEach((providerId, providerConfig) -> {
+            ProviderStatus status = statuses.get(providerId);
+            boolean warm = isWarm(providerId);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ready", warm);
+            entry.put("critical", Boolean.TRUE.equals(providerConfig.getCritical()));
+            entry.put("state", warm ? WarmupState.WARM.name() : status != null ? status.state.name() : WarmupState.PENDING.name());
+            if (status != null && status.durationMs > 0) {
+                entry.put("warmup_ms", status.durationMs);
+            }
+            if (!warm && status != null && status.error != null) {
+                entry.put("error", status.error);
+            }
+            readiness.put(providerId, entry);
+        });
+        return readiness;
+    }
+
+    private long countWarm() {
+        return statuses.keySet().stream().filter(this::isWarm).count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ExecutorService pool = executor;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        ScheduledExecutorService scheduler = retryScheduler;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static final class ProviderStatus {
+        private final WarmupState state;
+        private final String error;
+        private final long durationMs;
+
+        private ProviderStatus(WarmupState state, String error, long durationMs) {
+            this.state = state;
+            this.error = error;
+            this.durationMs = durationMs;
+        }
+
+        static ProviderStatus pending() {
+            return new ProviderStatus(WarmupState.PENDING, null, 0);
+        }
+
+        static ProviderStatus warm(long durationMs) {
+            return new ProviderStatus(WarmupState.WARM, null, durationMs);
+        }
+
+        static ProviderStatus failed(String error, long durationMs) {
+            return new ProviderStatus(WarmupState.FAILED, error, durationMs);
+        }
+    }
+}
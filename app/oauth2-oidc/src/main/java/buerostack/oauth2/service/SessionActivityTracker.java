@@ -0,0 +1,88 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-node buffer of session last-activity updates.
+ *
+ * Validating a session only records the time here, and only when the last known activity is
+ * older than oauth2.session.activity-granularity-seconds. The buffer is written to the
+ * {@link SessionStore} in one batch every oauth2.session.activity-flush-interval-seconds, so
+ * a busy session costs at most one store write per granularity instead of one per request.
+ */
+@Component
+public class SessionActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionActivityTracker.class);
+
+    private final SessionStore sessionStore;
+    private final Duration granularity;
+    private final ConcurrentMap<String, Instant> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public SessionActivityTracker(SessionStore sessionStore, OAuth2SessionConfig config) {
+        this.sessionStore = sessionStore;
+        this.granularity = Duration.ofSeconds(Math.max(0, config.getActivityGranularitySeconds()));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oauth-session-activity");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, config.getActivityFlushIntervalSeconds());
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * Note activity on a session whose stored last activity is {@code lastActivity}.
+     */
+    public void record(String sessionId, Instant lastActivity, Instant now) {
+        pending.compute(sessionId, (id, buffered) -> {
+            Instant known = buffered != null ? buffered : lastActivity;
+            return known == null || !now.isBefore(known.plus(granularity)) ? now : buffered;
+        });
+    }
+
+    /**
+     * Write everything buffered so far to the store.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Instant> batch = new HashMap<>();
+        for (Map.Entry<String, Instant> entry : pending.entrySet()) {
+            // Keep entries that were advanced after we read them for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            sessionStore.updateLastActivity(batch);
+            logger.debug("Flushed last activity of {} sessions", batch.size());
+        } catch (RuntimeException e) {
+            // Put the batch back unless newer values arrived meanwhile; it is retried on the next flush
+            batch.forEach((id, at) -> pending.merge(id, at, (current, failed) -> current.isAfter(failed) ? current : failed));
+            logger.warn("Flushing last activity of {} sessions failed: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package buerostack.oauth2.service;
 
 import buerostack.oauth2.model.AuthSession;
+import buerostack.oauth2.model.SessionStatus;
 import buerostack.oauth2.model.TokenResponse;
 import com.nimbusds.jwt.JWTClaimsSet;
 import org.slf4j.Logger;
@@ -8,11 +9,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing OAuth2 authentication sessions
@@ -24,8 +24,13 @@ public class SessionManagementService {
 
     private final SecureRandom secureRandom = new SecureRandom();
 
-    // In-memory session storage (in production, use Redis or database)
-    private final Map<String, AuthSession> sessionStorage = new ConcurrentHashMap<>();
+    private final SessionStore sessionStore;
+    private final SessionActivityTracker activityTracker;
+
+    public SessionManagementService(SessionStore sessionStore, SessionActivityTracker activityTracker) {
+        this.sessionStore = sessionStore;
+        this.activityTracker = activityTracker;
+    }
 
     /**
      * Create a new authentication session
@@ -50,7 +55,7 @@ public class SessionManagementService {
         }
         session.setExpiresAt(sessionExpiry);
 
-        // Store tokens (in production, encrypt these)
+        // Provider tokens stay in memory; JdbcSessionStore does not persist them
         AuthSession.TokenData tokenData = new AuthSession.TokenData();
         tokenData.setAccessToken(tokenResponse.getAccessToken());
         tokenData.setRefreshToken(tokenResponse.getRefreshToken());
@@ -85,7 +90,7 @@ public class SessionManagementService {
         session.setSessionMetadata(metadata);
 
         // Store session
-        sessionStorage.put(sessionId, session);
+        sessionStore.save(session);
 
         logger.info("Session {} created successfully, expires at {}", sessionId, session.getExpiresAt());
 
@@ -100,24 +105,23 @@ public class SessionManagementService {
             return new SessionValidationResult(false, "Session ID is required", null);
         }
 
-        AuthSession session = sessionStorage.get(sessionId);
+        AuthSession session = sessionStore.find(sessionId);
         if (session == null) {
             return new SessionValidationResult(false, "Session not found", null);
         }
 
-        // Check if session is expired
-        if (session.getExpiresAt() != null && session.getExpiresAt().isBefore(Instant.now())) {
-            session.setStatus("expired");
-            return new SessionValidationResult(false, "Session has expired", session);
-        }
-
-        // Check if session is revoked
-        if ("revoked".equals(session.getStatus())) {
+        Instant now = Instant.now();
+        SessionStatus status = session.statusAt(now);
+        if (status == SessionStatus.REVOKED) {
             return new SessionValidationResult(false, "Session has been revoked", session);
         }
+        // Expired sessions are removed by the store shortly after
+        if (status == SessionStatus.EXPIRED) {
+            return new SessionValidationResult(false, "Session has expired", session);
+        }
 
-        // Update last activity
-        session.setLastActivity(Instant.now());
+        // Last activity is buffered and written in batches, so validation does not write to the store
+        activityTracker.record(sessionId, session.getLastActivity(), now);
 
         logger.debug("Session {} validated successfully", sessionId);
 
@@ -128,13 +132,16 @@ public class SessionManagementService {
      * Revoke/logout session
      */
     public boolean revokeSession(String sessionId, String reason) {
-        AuthSession session = sessionStorage.get(sessionId);
+        AuthSession session = sessionStore.find(sessionId);
         if (session == null) {
             return false;
         }
 
-        session.setStatus("revoked");
+        // The session is kept until it expires so it reports as revoked, but its tokens are not needed anymore
+        session.revoke();
+        session.setTokens(null);
         session.setLastActivity(Instant.now());
+        sessionStore.save(session);
 
         logger.info("Session {} revoked. Reason: {}", sessionId, reason != null ? reason : "User logout");
 
@@ -145,14 +152,21 @@ public class SessionManagementService {
      * Extend session validity
      */
     public boolean extendSession(String sessionId, int additionalMinutes) {
-        AuthSession session = sessionStorage.get(sessionId);
-        if (session == null || !"active".equals(session.getStatus())) {
+        AuthSession session = sessionStore.find(sessionId);
+        if (session == null) {
             return false;
         }
 
-        Instant newExpiry = session.getExpiresAt().plus(additionalMinutes, ChronoUnit.MINUTES);
-        session.setExpiresAt(newExpiry);
+        // Fails if the session was revoked or expired, also when that happens concurrently
+        Instant newExpiry = session.extend(Duration.ofMinutes(additionalMinutes), Instant.now());
+        if (newExpiry == null) {
+            return false;
+        }
         session.setLastActivity(Instant.now());
+        if (!sessionStore.save(session)) {
+            logger.info("Session {} was revoked before it could be extended", sessionId);
+            return false;
+        }
 
         logger.info("Session {} extended until {}", sessionId, newExpiry);
 
@@ -163,28 +177,14 @@ public class SessionManagementService {
      * Get session information
      */
     public AuthSession getSession(String sessionId) {
-        return sessionStorage.get(sessionId);
+        return sessionStore.find(sessionId);
     }
 
     /**
-     * Clean up expired sessions
+     * Number of stored sessions, including revoked ones that have not expired yet
      */
-    public void cleanupExpiredSessions() {
-        final Instant now = Instant.now();
-        final int[] cleanedCount = {0};
-
-        sessionStorage.entrySet().removeIf(entry -> {
-            AuthSession session = entry.getValue();
-            boolean isExpired = session.getExpiresAt() != null && session.getExpiresAt().isBefore(now);
-            if (isExpired) {
-                cleanedCount[0]++;
-            }
-            return isExpired;
-        });
-
-        if (cleanedCount[0] > 0) {
-            logger.info("Cleaned up {} expired sessions", cleanedCount[0]);
-        }
+    public long getSessionCount() {
+        return sessionStore.size();
     }
 
     /**
@@ -0,0 +1,40 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.model.AuthSession;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Storage of authentication sessions.
+ *
+ * A session is kept until its expires_at has passed, also when it was revoked earlier, and is
+ * then removed by the store itself; callers never have to clean up.
+ */
+public interface SessionStore {
+
+    /**
+     * Insert the session or replace the stored copy. Changes made to a session returned by
+     * {@link #find(String)} are only guaranteed to be kept once it is saved again.
+     *
+     * @return false if nothing was written because the stored copy had been revoked meanwhile,
+     *         possibly on another node; revocation always wins
+     */
+    boolean save(AuthSession session);
+
+    /**
+     * The session, or null if it is unknown or has already been removed.
+     */
+    AuthSession find(String sessionId);
+
+    /**
+     * Advance last_activity of the given sessions, in one batch. A session's last activity never
+     * moves backwards; unknown sessions are skipped.
+     */
+    void updateLastActivity(Map<String, Instant> lastActivity);
+
+    /**
+     * Number of stored sessions, possibly approximate.
+     */
+    long size();
+}
@@ -0,0 +1,282 @@
+package buerostack.oauth2.api;
+
+import buerostack.oauth2.config.OAuth2ProvidersConfig.OAuth2ProvidersProperties;
+import buerostack.oauth2.config.ProviderHttpClientConfig;
+import buerostack.oauth2.model.AuthSession;
+import buerostack.oauth2.model.ProviderConfig;
+import buerostack.oauth2.model.TokenResponse;
+import buerostack.oauth2.model.UserProfile;
+import buerostack.oauth2.service.JwtValidationService;
+import buerostack.oauth2.service.OAuth2AuthenticationService;
+import buerostack.oauth2.service.OAuth2AuthenticationService.CallbackValidation;
+import buerostack.oauth2.service.OAuth2TokenService;
+import buerostack.oauth2.service.OidcDiscoveryService;
+import buerostack.oauth2.service.ProviderHttpClient;
+import buerostack.oauth2.service.ProviderKeyStore;
+import buerostack.oauth2.service.ProviderWarmupService;
+import buerostack.oauth2.service.SessionManagementService;
+import buerostack.oauth2.service.UserProfileService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the OAuth2 callback against a local stub IdP serving discovery, token, userinfo and JWKS.
+ * Token exchange, ID token validation and userinfo go through the real provider HTTP client.
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthControllerTest {
+
+    private static final String PROVIDER = "stub";
+    private static final String CLIENT_ID = "tim-client";
+    private static final String CODE = "auth-code";
+    private static final String STATE = "state-1";
+    private static final String NONCE = "nonce-1";
+
+    @Mock
+    private OAuth2AuthenticationService authService;
+
+    @Mock
+    private SessionManagementService sessionService;
+
+    @Mock
+    private ProviderWarmupService warmupService;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String issuer;
+    private RSAKey signingKey;
+    private final AtomicInteger tokenStatus = new AtomicInteger(200);
+    private final AtomicInteger userInfoStatus = new AtomicInteger(200);
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final AtomicReference<String> idToken = new AtomicReference<>();
+
+    private ProviderHttpClient httpClient;
+    private OidcDiscoveryService discoveryService;
+    private ProviderKeyStore keyStore;
+    private AuthController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signingKey = new RSAKeyGenerator(2048).keyID("key-1").generate();
+
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        issuer = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/.well-known/openid-configuration", exchange -> respond(exchange, 200, """
+                {"issuer":"%1$s","authorization_endpoint":"%1$s/authorize","token_endpoint":"%1$s/token",
+                 "userinfo_endpoint":"%1$s/userinfo","jwks_uri":"%1$s/jwks",
+                 "response_types_supported":["code"],"grant_types_supported":["authorization_code"],
+                 "subject_types_supported":["public"],"id_token_signing_alg_values_supported":["RS256"]}
+                """.formatted(issuer)));
+        server.createContext("/jwks", exchange ->
+                respond(exchange, 200, new JWKSet(signingKey.toPublicJWK()).toString()));
+        server.createContext("/token", exchange -> {
+            tokenRequests.incrementAndGet();
+            if (tokenStatus.get() != 200) {
+                respond(exchange, tokenStatus.get(), "{\"error\":\"temporarily_unavailable\"}");
+                return;
+            }
+            respond(exchange, 200, """
+                    {"access_token":"provider-access","token_type":"Bearer","expires_in":300,"id_token":"%s"}
+                    """.formatted(idToken.get()));
+        });
+        server.createContext("/userinfo", exchange -> {
+            if (userInfoStatus.get() != 200) {
+                respond(exchange, userInfoStatus.get(), "{\"error\":\"server_error\"}");
+                return;
+            }
+            respond(exchange, 200, "{\"sub\":\"user-1\",\"email\":\"userinfo@example.org\",\"given_name\":\"Mari\"}");
+        });
+        server.start();
+
+        ProviderConfig provider = new ProviderConfig();
+        provider.setId(PROVIDER);
+        provider.setDiscoveryUrl(issuer + "/.well-known/openid-configuration");
+        provider.setClientId(CLIENT_ID);
+        provider.setClientSecret("secret");
+        provider.setScopes(List.of("openid", "email"));
+        OAuth2ProvidersProperties providersProperties = new OAuth2ProvidersProperties();
+        providersProperties.setProviders(Map.of(PROVIDER, provider));
+
+        ProviderHttpClientConfig httpConfig = new ProviderHttpClientConfig();
+        httpConfig.setBreakerFailureThreshold(2);
+        httpConfig.setBreakerOpenSeconds(30);
+        httpConfig.setReadTimeoutMs(2_000);
+        lenient().when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        httpClient = new ProviderHttpClient(httpConfig, meterRegistry);
+        discoveryService = new OidcDiscoveryService(httpClient);
+        keyStore = new ProviderKeyStore(httpClient);
+
+        controller = new AuthController(providersProperties, authService,
+                new OAuth2TokenService(providersProperties, discoveryService, httpClient),
+                new JwtValidationService(providersProperties, discoveryService, keyStore),
+                sessionService, new UserProfileService(providersProperties), warmupService, httpClient);
+
+        lenient().when(authService.validateCallback(PROVIDER, CODE, STATE, null))
+                .thenReturn(new CallbackValidation(true, "ok", CODE, NONCE));
+        lenient().when(sessionService.createSession(eq(PROVIDER), any(), any(), any(), any())).thenAnswer(invocation -> {
+            AuthSession session = new AuthSession("session-1", "user-1", PROVIDER);
+            session.setExpiresAt(Instant.now().plusSeconds(3600));
+            return session;
+        });
+        idToken.set(idToken(signingKey));
+    }
+
+    @AfterEach
+    void tearDown() {
+        keyStore.shutdown();
+        discoveryService.shutdown();
+        httpClient.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A successful callback creates a session with the validated claims and merged profile")
+    void successfulCallback() {
+        ResponseEntity<?> response = callback();
+
+        assertEquals(200, response.getStatusCode().value());
+        Map<String, Object> body = body(response);
+        assertEquals("authentication_success", body.get("status"));
+        assertEquals("session-1", body.get("session_id"));
+        UserProfile profile = (UserProfile) body.get("user_profile");
+        assertEquals("user-1", profile.getSub());
+        // Userinfo takes precedence over the ID token
+        assertEquals("userinfo@example.org", profile.getProfile().getEmail());
+        assertEquals("Mari", profile.getProfile().getFirstName());
+        assertFalse(body.containsKey("access_token"));
+
+        ArgumentCaptor<TokenResponse> tokens = ArgumentCaptor.forClass(TokenResponse.class);
+        ArgumentCaptor<JWTClaimsSet> claims = ArgumentCaptor.forClass(JWTClaimsSet.class);
+        verify(sessionService).createSession(eq(PROVIDER), tokens.capture(), claims.capture(), eq("203.0.113.7"), eq("JUnit"));
+        assertEquals("provider-access", tokens.getValue().getAccessToken());
+        assertEquals("user-1", claims.getValue().getSubject());
+    }
+
+    @Test
+    @DisplayName("An ID token that fails validation is rejected and no session is created")
+    void invalidIdToken() throws Exception {
+        idToken.set(idToken(new RSAKeyGenerator(2048).keyID("key-1").generate()));
+
+        ResponseEntity<?> response = callback();
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("invalid_id_token", body(response).get("error"));
+        assertEquals("Invalid JWT signature", body(response).get("message"));
+        verify(sessionService, never()).createSession(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("A failing userinfo endpoint does not fail the login; the profile comes from the ID token")
+    void userInfoFailureIsNotFatal() {
+        userInfoStatus.set(500);
+
+        ResponseEntity<?> response = callback();
+
+        assertEquals(200, response.getStatusCode().value());
+        UserProfile profile = (UserProfile) body(response).get("user_profile");
+        assertEquals("id-token@example.org", profile.getProfile().getEmail());
+        assertNull(profile.getProfile().getFirstName());
+        verify(sessionService).createSession(eq(PROVIDER), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("With the provider's breaker open the callback returns 503 with Retry-After without calling the IdP")
+    void openBreakerReturns503() {
+        tokenStatus.set(503);
+        for (int i = 0; i < 2; i++) {
+            ResponseEntity<?> failed = callback();
+            assertEquals(400, failed.getStatusCode().value());
+            assertEquals("token_exchange_failed", body(failed).get("error"));
+        }
+        assertEquals(2, tokenRequests.get());
+
+        ResponseEntity<?> response = callback();
+
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("provider_unavailable", body(response).get("error"));
+        assertEquals(PROVIDER, body(response).get("provider"));
+        assertTrue(Long.parseLong(response.getHeaders().getFirst("Retry-After")) >= 1);
+        assertEquals(2, tokenRequests.get());
+        verify(sessionService, never()).createSession(any(), any(), any(), any(), any());
+    }
+
+    private ResponseEntity<?> callback() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auth/callback/" + PROVIDER);
+        request.addHeader("X-Forwarded-For", "203.0.113.7");
+        request.addHeader("User-Agent", "JUnit");
+        return controller.handleCallback(PROVIDER, CODE, STATE, null, null, request).block();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(ResponseEntity<?> response) {
+        return (Map<String, Object>) response.getBody();
+    }
+
+    private String idToken(RSAKey key) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                new JWTClaimsSet.Builder()
+                        .issuer(issuer)
+                        .subject("user-1")
+                        .audience(CLIENT_ID)
+                        .issueTime(new Date())
+                        .expirationTime(new Date(System.currentTimeMillis() + 300_000))
+                        .claim("nonce", NONCE)
+                        .claim("email", "id-token@example.org")
+                        .build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
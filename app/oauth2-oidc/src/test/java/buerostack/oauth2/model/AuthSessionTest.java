@@ -0,0 +1,85 @@
+package buerostack.oauth2.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status transitions of AuthSession, including revoke racing against extend.
+ */
+class AuthSessionTest {
+
+    @Test
+    @DisplayName("Status and expiry survive being packed together")
+    void statusAndExpiry() {
+        Instant now = Instant.now();
+        AuthSession session = new AuthSession("sess_1", "user", "tara");
+        session.setExpiresAt(now.plusSeconds(60));
+
+        assertEquals(SessionStatus.ACTIVE, session.statusAt(now));
+        assertEquals(SessionStatus.EXPIRED, session.statusAt(now.plusSeconds(61)));
+        assertEquals(now.plusSeconds(60).toEpochMilli(), session.getExpiresAt().toEpochMilli());
+
+        assertEquals(now.plusSeconds(120).toEpochMilli(),
+                session.extend(Duration.ofSeconds(60), now).toEpochMilli());
+        assertNull(session.extend(Duration.ofSeconds(60), now.plusSeconds(121)));
+
+        assertTrue(session.revoke());
+        assertFalse(session.revoke());
+        assertEquals("revoked", session.getStatus());
+        assertNull(session.extend(Duration.ofSeconds(60), now));
+        assertEquals(now.plusSeconds(120).toEpochMilli(), session.getExpiresAt().toEpochMilli());
+    }
+
+    @Test
+    @DisplayName("A revoke racing any number of extends always leaves the session revoked")
+    void revocationAlwaysWins() throws Exception {
+        int extenders = 3;
+        ExecutorService threads = Executors.newFixedThreadPool(extenders + 1);
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                Instant now = Instant.now();
+                AuthSession session = new AuthSession("sess_" + round, "user", "tara");
+                session.setExpiresAt(now.plusSeconds(3600));
+                CyclicBarrier start = new CyclicBarrier(extenders + 1);
+
+                Future<Boolean> revoked = threads.submit(() -> {
+                    start.await();
+                    return session.revoke();
+                });
+                Future<?>[] extensions = new Future<?>[extenders];
+                for (int i = 0; i < extenders; i++) {
+                    extensions[i] = threads.submit(() -> {
+                        start.await();
+                        for (int n = 0; n < 50; n++) {
+                            if (session.extend(Duration.ofMinutes(1), now) == null) {
+                                // Once an extend fails, the session must already be revoked
+                                assertEquals(SessionStatus.REVOKED, session.statusAt(now));
+                                break;
+                            }
+                        }
+                        return null;
+                    });
+                }
+
+                assertTrue(revoked.get(5, TimeUnit.SECONDS));
+                for (Future<?> f : extensions) {
+                    f.get(5, TimeUnit.SECONDS);
+                }
+                assertEquals(SessionStatus.REVOKED, session.statusAt(now));
+                assertNull(session.extend(Duration.ofMinutes(1), now));
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package buerostack.oauth2.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * PostgreSQL for store tests, from AUTH_TEST_DB_URL (and AUTH_TEST_DB_USERNAME / AUTH_TEST_DB_PASSWORD).
+ * Tests using it are gated on that variable; the auth tables are created if missing and emptied.
+ */
+final class AuthTestDatabase {
+
+    static final String URL_VARIABLE = "AUTH_TEST_DB_URL";
+
+    private AuthTestDatabase() {
+    }
+
+    static JdbcTemplate reset() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv(URL_VARIABLE),
+                env("AUTH_TEST_DB_USERNAME", "tim"), env("AUTH_TEST_DB_PASSWORD", "123"));
+        new ResourceDatabasePopulator(new ClassPathResource("auth-schema.sql")).execute(dataSource);
+        return new JdbcTemplate(dataSource);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,73 @@
+package buerostack.oauth2.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Drives the timing wheel with a synthetic clock.
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Keys fire in the tick of their deadline, across all levels")
+    void firesAtDeadline() {
+        // 4 slots per level, 3 levels: level 2 reaches 64 ticks ahead, beyond that is overflow
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 2, 3, START);
+        Map<Long, Long> firedAt = new HashMap<>();
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = START + 1 + random.nextInt(200_000);
+            deadlines.add(deadline);
+            assertTrue(wheel.add((long) i, deadline));
+        }
+        assertEquals(500, wheel.size());
+
+        for (long now = START; now <= START + 201_000; now += 1000) {
+            long tickEnd = now;
+            wheel.advance(now, key -> firedAt.put(key, tickEnd));
+        }
+
+        assertEquals(0, wheel.size());
+        for (int i = 0; i < deadlines.size(); i++) {
+            long deadline = deadlines.get(i);
+            long fired = firedAt.get((long) i);
+            assertTrue(fired >= deadline, "key " + i + " fired early");
+            assertTrue(fired < deadline + 1000, "key " + i + " fired late");
+        }
+    }
+
+    @Test
+    @DisplayName("A clock that jumps ahead fires everything that became due")
+    void catchesUpAfterJump() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 6, 4, START);
+        wheel.add("soon", START + 5_000);
+        wheel.add("later", START + 3_600_000);
+        wheel.add("much-later", START + 7_200_000);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START + 3_600_000, fired::add);
+
+        assertEquals(List.of("soon", "later"), fired);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Deadlines that have already passed are not scheduled")
+    void rejectsPastDeadlines() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 6, 4, START);
+        assertFalse(wheel.add("past", START - 1));
+        assertFalse(wheel.add("now", START));
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,87 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2StateConfig;
+import buerostack.oauth2.model.OAuth2State;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class InMemoryOAuth2StateStoreTest {
+
+    @Test
+    @DisplayName("A state can be consumed once, also by concurrent callbacks")
+    void consumeIsSingleUse() throws Exception {
+        InMemoryOAuth2StateStore store = new InMemoryOAuth2StateStore(new OAuth2StateConfig());
+        store.save("state-1", state("tara"));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OAuth2State>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.consume("state-1");
+                }));
+            }
+            start.countDown();
+            int consumed = 0;
+            for (Future<OAuth2State> result : results) {
+                if (result.get() != null) {
+                    assertEquals("tara", result.get().getProviderId());
+                    consumed++;
+                }
+            }
+            assertEquals(1, consumed);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNull(store.consume("state-1"));
+        assertNull(store.consume("unknown"));
+    }
+
+    @Test
+    @DisplayName("An expired state cannot be consumed")
+    void expiredStateIsInvisible() throws Exception {
+        OAuth2StateConfig config = new OAuth2StateConfig();
+        config.setTtlSeconds(1);
+        InMemoryOAuth2StateStore store = new InMemoryOAuth2StateStore(config);
+        store.save("state-1", state("tara"));
+
+        Thread.sleep(1100);
+
+        assertNull(store.consume("state-1"));
+    }
+
+    @Test
+    @DisplayName("The store never keeps more than maximum-size states")
+    void sizeIsCapped() throws Exception {
+        OAuth2StateConfig config = new OAuth2StateConfig();
+        config.setMaximumSize(10);
+        InMemoryOAuth2StateStore store = new InMemoryOAuth2StateStore(config);
+
+        for (int i = 0; i < 100; i++) {
+            store.save("state-" + i, state("tara"));
+        }
+
+        // Caffeine evicts in its maintenance cycle, shortly after the writes
+        long deadline = System.currentTimeMillis() + 2000;
+        while (store.size() > 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(store.size() <= 10, "size " + store.size());
+    }
+
+    private static OAuth2State state(String providerId) {
+        return new OAuth2State(providerId, "nonce", "https://app.example/callback", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,90 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import buerostack.oauth2.model.AuthSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+
+class InMemorySessionStoreTest {
+
+    private InMemorySessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        OAuth2SessionConfig config = new OAuth2SessionConfig();
+        config.setExpiryTickMillis(10);
+        store = new InMemorySessionStore(config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    @DisplayName("A session is removed by the expiry wheel once its expiry passes")
+    void expiredSessionIsRemoved() throws Exception {
+        AuthSession session = session("sess_expiring", Instant.now().plusMillis(100));
+        store.save(session);
+        assertSame(session, store.find("sess_expiring"));
+        assertEquals(1, store.scheduledCount());
+
+        awaitRemoved("sess_expiring", 2000);
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.scheduledCount());
+    }
+
+    @Test
+    @DisplayName("A session extended before its slot comes up is rescheduled at the new expiry")
+    void extendedSessionIsRescheduled() throws Exception {
+        Instant start = Instant.now();
+        AuthSession session = session("sess_extended", start.plusMillis(150));
+        store.save(session);
+
+        assertNotNull(session.extend(Duration.ofMillis(600), Instant.now()));
+        store.save(session);
+
+        // Past the original expiry the session is still there, scheduled once at the new expiry
+        Thread.sleep(Duration.between(Instant.now(), start.plusMillis(400)).toMillis());
+        assertSame(session, store.find("sess_extended"));
+        assertEquals(1, store.scheduledCount());
+
+        awaitRemoved("sess_extended", 3000);
+        assertFalse(Instant.now().isBefore(session.getExpiresAt()));
+    }
+
+    @Test
+    @DisplayName("Sessions without a future expiry are not kept")
+    void sessionWithoutFutureExpiryIsNotKept() {
+        store.save(session("sess_no_expiry", null));
+        store.save(session("sess_past", Instant.now().minusSeconds(1)));
+
+        assertNull(store.find("sess_no_expiry"));
+        assertNull(store.find("sess_past"));
+        assertEquals(0, store.size());
+    }
+
+    private void awaitRemoved(String sessionId, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (store.find(sessionId) != null) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Session " + sessionId + " was not removed within " + timeoutMillis + "ms");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static AuthSession session(String sessionId, Instant expiresAt) {
+        AuthSession session = new AuthSession(sessionId, "user", "tara");
+        session.setExpiresAt(expiresAt);
+        return session;
+    }
+}
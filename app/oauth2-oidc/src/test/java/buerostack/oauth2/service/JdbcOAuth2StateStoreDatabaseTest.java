@@ -0,0 +1,117 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2StateConfig;
+import buerostack.oauth2.model.OAuth2State;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * JdbcOAuth2StateStore statements against PostgreSQL.
+ */
+@EnabledIfEnvironmentVariable(named = AuthTestDatabase.URL_VARIABLE, matches = ".+")
+class JdbcOAuth2StateStoreDatabaseTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private OAuth2StateConfig config;
+    private final List<JdbcOAuth2StateStore> stores = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = AuthTestDatabase.reset();
+        config = new OAuth2StateConfig();
+        config.setPurgeIntervalSeconds(3600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(JdbcOAuth2StateStore::shutdown);
+    }
+
+    @Test
+    @DisplayName("DELETE ... RETURNING hands the stored state to exactly one of several nodes")
+    void consumeIsSingleUseAcrossNodes() throws Exception {
+        store().save("state-1", new OAuth2State("tara", "nonce-1", "https://app.example/callback", System.currentTimeMillis()));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OAuth2State>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                JdbcOAuth2StateStore node = store();
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return node.consume("state-1");
+                }));
+            }
+            start.countDown();
+            List<OAuth2State> consumed = new ArrayList<>();
+            for (Future<OAuth2State> result : results) {
+                if (result.get() != null) {
+                    consumed.add(result.get());
+                }
+            }
+            assertEquals(1, consumed.size());
+            assertEquals("tara", consumed.get(0).getProviderId());
+            assertEquals("nonce-1", consumed.get(0).getNonce());
+            assertEquals("https://app.example/callback", consumed.get(0).getRedirectUri());
+            assertTrue(consumed.get(0).getCreatedAtMillis() > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM auth.oauth_state", Integer.class));
+    }
+
+    @Test
+    @DisplayName("A state past expires_at cannot be consumed, even before it is purged")
+    void expiredStateIsInvisible() throws Exception {
+        config.setTtlSeconds(1);
+        JdbcOAuth2StateStore store = store();
+        store.save("state-1", state());
+
+        Thread.sleep(1100);
+
+        assertNull(store.consume("state-1"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM auth.oauth_state", Integer.class));
+        store.purge();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("Saves keep the table at maximum-size, dropping the oldest states")
+    void saveEnforcesCap() {
+        config.setMaximumSize(5);
+        JdbcOAuth2StateStore store = store();
+
+        for (int i = 0; i < 20; i++) {
+            store.save("state-" + i, state());
+        }
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT count(*) FROM auth.oauth_state", Integer.class) <= 5);
+        assertNotNull(store.consume("state-19"));
+        assertNull(store.consume("state-0"));
+    }
+
+    private JdbcOAuth2StateStore store() {
+        JdbcOAuth2StateStore store = new JdbcOAuth2StateStore(jdbcTemplate, config);
+        stores.add(store);
+        return store;
+    }
+
+    private static OAuth2State state() {
+        return new OAuth2State("tara", "nonce", "https://app.example/callback", System.currentTimeMillis());
+    }
+}
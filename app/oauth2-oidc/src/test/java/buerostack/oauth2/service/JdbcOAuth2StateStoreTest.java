@@ -0,0 +1,80 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2StateConfig;
+import buerostack.oauth2.model.OAuth2State;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JdbcOAuth2StateStore against a mocked JdbcTemplate, for when saves enforce the size cap.
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcOAuth2StateStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private JdbcOAuth2StateStore store;
+
+    @BeforeEach
+    void setUp() {
+        OAuth2StateConfig config = new OAuth2StateConfig();
+        config.setMaximumSize(3);
+        config.setPurgeIntervalSeconds(3600);
+        store = new JdbcOAuth2StateStore(jdbcTemplate, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    @DisplayName("Saves below the cap only insert; the save that reaches it trims to make room first")
+    void saveTrimsOnceTheCapIsReached() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT count(*)"), eq(Long.class))).thenReturn(2L);
+
+        for (int i = 0; i < 3; i++) {
+            store.save("state-" + i, state());
+        }
+        verify(jdbcTemplate, never()).update(contains("OFFSET"), any(Object[].class));
+
+        store.save("state-3", state());
+
+        var order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(contains("OFFSET"), eq(2L));
+        order.verify(jdbcTemplate).queryForObject(startsWith("SELECT count(*)"), eq(Long.class));
+        order.verify(jdbcTemplate).update(startsWith("INSERT"), eq("state-3"), any(), any(), any(), any());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("After a trim the estimate restarts from the counted size")
+    void estimateRestartsFromCount() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT count(*)"), eq(Long.class))).thenReturn(0L);
+        // The periodic purge trims as well, and finds the table empty
+        store.purge();
+
+        for (int i = 0; i < 3; i++) {
+            store.save("state-" + i, state());
+        }
+        verify(jdbcTemplate, times(1)).update(contains("OFFSET"), any(Object[].class));
+
+        store.save("state-3", state());
+        verify(jdbcTemplate, times(2)).update(contains("OFFSET"), any(Object[].class));
+    }
+
+    private static OAuth2State state() {
+        return new OAuth2State("tara", "nonce", "https://app.example/callback", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,122 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import buerostack.oauth2.model.AuthSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * JdbcSessionStore statements against PostgreSQL; two store instances act as two nodes sharing the table.
+ */
+@EnabledIfEnvironmentVariable(named = AuthTestDatabase.URL_VARIABLE, matches = ".+")
+class JdbcSessionStoreDatabaseTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcSessionStore nodeA;
+    private JdbcSessionStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = AuthTestDatabase.reset();
+        OAuth2SessionConfig config = new OAuth2SessionConfig();
+        // No local cache, so every find reads the row
+        config.setCacheTtlSeconds(0);
+        nodeA = new JdbcSessionStore(jdbcTemplate, config);
+        nodeB = new JdbcSessionStore(jdbcTemplate, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    @DisplayName("save inserts a new session and updates it on the next save")
+    void upsertInsertsThenUpdates() {
+        AuthSession session = session("sess_upsert");
+        assertTrue(nodeA.save(session));
+
+        Instant extended = session.getExpiresAt().plusSeconds(600);
+        session.setExpiresAt(extended);
+        assertTrue(nodeA.save(session));
+
+        AuthSession loaded = nodeB.find("sess_upsert");
+        assertNotNull(loaded);
+        assertEquals("user", loaded.getUserId());
+        assertEquals("active", loaded.getStatus());
+        assertEquals(extended, loaded.getExpiresAt());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM auth.oauth_session", Integer.class));
+        // The column is written in UTC, whatever the time zone of the database session
+        assertEquals(extended.toEpochMilli(), jdbcTemplate.queryForObject(
+            "SELECT (extract(epoch from expires_at AT TIME ZONE 'UTC') * 1000)::bigint FROM auth.oauth_session", Long.class));
+    }
+
+    @Test
+    @DisplayName("A stored revocation is not overwritten by another node saving its active copy")
+    void revokedRowIsNotOverwritten() {
+        AuthSession onA = session("sess_revoked");
+        assertTrue(nodeA.save(onA));
+        AuthSession onB = nodeB.find("sess_revoked");
+
+        onA.revoke();
+        assertTrue(nodeA.save(onA));
+
+        onB.setLastActivity(Instant.now());
+        assertFalse(nodeB.save(onB));
+        assertEquals("revoked", jdbcTemplate.queryForObject(
+            "SELECT status FROM auth.oauth_session WHERE session_id = 'sess_revoked'", String.class));
+        assertEquals("revoked", nodeB.find("sess_revoked").getStatus());
+    }
+
+    @Test
+    @DisplayName("Activity updates move last_activity forward in the column and in the stored JSON")
+    void activityUpdateOnlyMovesForward() {
+        AuthSession session = session("sess_activity");
+        nodeA.save(session);
+        Instant later = session.getLastActivity().plusSeconds(30).truncatedTo(ChronoUnit.MILLIS);
+
+        nodeA.updateLastActivity(Map.of("sess_activity", later));
+        nodeA.updateLastActivity(Map.of("sess_activity", later.minusSeconds(20)));
+
+        assertEquals(later, nodeB.find("sess_activity").getLastActivity());
+        assertEquals(later.toString(), jdbcTemplate.queryForObject(
+            "SELECT data->>'last_activity' FROM auth.oauth_session WHERE session_id = 'sess_activity'", String.class));
+        assertEquals(later.toEpochMilli(), jdbcTemplate.queryForObject(
+            "SELECT (extract(epoch from last_activity AT TIME ZONE 'UTC') * 1000)::bigint FROM auth.oauth_session " +
+            "WHERE session_id = 'sess_activity'", Long.class));
+    }
+
+    @Test
+    @DisplayName("Provider tokens are not stored in the data column")
+    void tokensAreNotStored() {
+        AuthSession session = session("sess_tokens");
+        AuthSession.TokenData tokens = new AuthSession.TokenData();
+        tokens.setAccessToken("access-secret");
+        session.setTokens(tokens);
+
+        nodeA.save(session);
+
+        assertFalse(jdbcTemplate.queryForObject(
+            "SELECT data ? 'tokens' FROM auth.oauth_session WHERE session_id = 'sess_tokens'", Boolean.class));
+        assertNull(nodeB.find("sess_tokens").getTokens());
+    }
+
+    private static AuthSession session(String sessionId) {
+        AuthSession session = new AuthSession(sessionId, "user", "tara");
+        session.setCreatedAt(session.getCreatedAt().truncatedTo(ChronoUnit.MILLIS));
+        session.setLastActivity(session.getCreatedAt());
+        session.setExpiresAt(Instant.now().plusSeconds(600).truncatedTo(ChronoUnit.MILLIS));
+        return session;
+    }
+}
@@ -0,0 +1,99 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import buerostack.oauth2.model.AuthSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * JdbcSessionStore against a mocked JdbcTemplate, for the revocation guard on save and what is written.
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcSessionStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SessionActivityTracker activityTracker;
+
+    private JdbcSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new JdbcSessionStore(jdbcTemplate, new OAuth2SessionConfig());
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    @DisplayName("A save that loses to a stored revocation reports it and drops the cached copy")
+    void saveAfterRevocationElsewhere() {
+        AuthSession session = session();
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1, 0);
+        assertTrue(store.save(session));
+        assertSame(session, store.find(session.getSessionId()));
+
+        assertFalse(store.save(session));
+
+        // The next read goes to the database, which holds the revoked row
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of());
+        assertNull(store.find(session.getSessionId()));
+    }
+
+    @Test
+    @DisplayName("Extending a session revoked on another node fails")
+    void extendAfterRevocationElsewhere() {
+        AuthSession session = session();
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1, 0);
+        store.save(session);
+        SessionManagementService sessions = new SessionManagementService(store, activityTracker);
+
+        assertFalse(sessions.extendSession(session.getSessionId(), 30));
+    }
+
+    @Test
+    @DisplayName("Provider tokens are kept on the cached session but never written to the data column")
+    void tokensAreNotPersisted() {
+        AuthSession session = session();
+        AuthSession.TokenData tokens = new AuthSession.TokenData();
+        tokens.setAccessToken("access-secret");
+        tokens.setRefreshToken("refresh-secret");
+        tokens.setIdToken("id-secret");
+        session.setTokens(tokens);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        when(jdbcTemplate.update(anyString(), args.capture())).thenReturn(1);
+
+        assertTrue(store.save(session));
+
+        Object[] values = args.getValue();
+        String data = (String) values[values.length - 1];
+        assertTrue(data.contains("\"session_id\":\"sess_1\""));
+        assertFalse(data.contains("secret"), data);
+        assertFalse(data.contains("tokens"), data);
+        assertSame(tokens, store.find(session.getSessionId()).getTokens());
+    }
+
+    private static AuthSession session() {
+        AuthSession session = new AuthSession("sess_1", "user", "tara");
+        session.setExpiresAt(Instant.now().plusSeconds(600));
+        return session;
+    }
+}
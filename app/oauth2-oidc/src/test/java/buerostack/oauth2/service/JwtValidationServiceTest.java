@@ -0,0 +1,95 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2ProvidersConfig.OAuth2ProvidersProperties;
+import buerostack.oauth2.model.OidcDiscovery;
+import buerostack.oauth2.model.ProviderConfig;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+
+@ExtendWith(MockitoExtension.class)
+class JwtValidationServiceTest {
+
+    private static final String PROVIDER = "test";
+    private static final String JWKS_URI = "https://idp.example/jwks";
+
+    @Mock
+    private OAuth2ProvidersProperties providersProperties;
+
+    @Mock
+    private OidcDiscoveryService discoveryService;
+
+    @Mock
+    private ProviderKeyStore keyStore;
+
+    private JwtValidationService service;
+    private String idToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ProviderConfig config = new ProviderConfig();
+        config.setClientId("client");
+        OidcDiscovery discovery = new OidcDiscovery();
+        discovery.setIssuer("https://idp.example");
+        discovery.setJwksUri(JWKS_URI);
+        when(providersProperties.getProvider(PROVIDER)).thenReturn(config);
+        lenient().when(discoveryService.getDiscovery(eq(PROVIDER), any())).thenReturn(discovery);
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID("key-1").build(),
+                new JWTClaimsSet.Builder()
+                        .issuer("https://idp.example")
+                        .audience("client")
+                        .expirationTime(new Date(System.currentTimeMillis() + 60_000))
+                        .build());
+        jwt.sign(new MACSigner(new byte[32]));
+        idToken = jwt.serialize();
+
+        service = new JwtValidationService(providersProperties, discoveryService, keyStore);
+    }
+
+    @Test
+    @DisplayName("A JWKS fetch rejected by the circuit breaker propagates instead of failing validation")
+    void rejectedKeyFetchPropagates() {
+        ProviderUnavailableException open = new ProviderUnavailableException(PROVIDER, "circuit breaker open", 30);
+        when(keyStore.getVerifier(eq(PROVIDER), eq(JWKS_URI), eq("key-1"), anyLong())).thenThrow(open);
+
+        ProviderUnavailableException thrown = assertThrows(ProviderUnavailableException.class,
+                () -> service.validateIdToken(PROVIDER, idToken, null));
+        assertSame(open, thrown);
+    }
+
+    @Test
+    @DisplayName("The async variant errors with ProviderUnavailableException when discovery is rejected")
+    void rejectedDiscoveryErrorsAsync() {
+        when(discoveryService.getDiscovery(eq(PROVIDER), any()))
+                .thenThrow(new ProviderUnavailableException(PROVIDER, "circuit breaker open", 30));
+
+        assertThrows(ProviderUnavailableException.class,
+                () -> service.validateIdTokenAsync(PROVIDER, idToken, null).block());
+    }
+
+    @Test
+    @DisplayName("A missing signing key is still reported as an invalid token")
+    void missingKeyIsInvalid() {
+        when(keyStore.getVerifier(eq(PROVIDER), eq(JWKS_URI), eq("key-1"), anyLong())).thenReturn(null);
+
+        JwtValidationService.JwtValidationResult result = service.validateIdToken(PROVIDER, idToken, null);
+
+        assertFalse(result.isValid());
+        assertEquals("Invalid JWT signature", result.getMessage());
+    }
+}
@@ -0,0 +1,170 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.ProviderHttpClientConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs ProviderHttpClient against a local stub IdP that can be made to fail or stall.
+ */
+class ProviderHttpClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String url;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicLong delayMillis = new AtomicLong();
+    private final AtomicLong bodyDelayMillis = new AtomicLong();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProviderHttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/token", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.flush();
+                Thread.sleep(bodyDelayMillis.get());
+                out.write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/token";
+
+        ProviderHttpClientConfig config = new ProviderHttpClientConfig();
+        config.setBreakerFailureThreshold(3);
+        config.setBreakerOpenSeconds(1);
+        config.setMaxConcurrentCallsPerProvider(2);
+        config.setReadTimeoutMs(1_000);
+        meterRegistry = new SimpleMeterRegistry();
+        client = new ProviderHttpClient(config, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Consecutive 5xx responses open the breaker and later calls fail without reaching the IdP")
+    void opensOnServerErrors() {
+        status.set(503);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(WebClientResponseException.class, this::call);
+        }
+        assertEquals(ProviderCircuitBreaker.State.OPEN, client.getCircuitBreaker("stub").getState());
+
+        long startedAt = System.nanoTime();
+        ProviderUnavailableException rejected = assertThrows(ProviderUnavailableException.class, this::call);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 500);
+        assertEquals("stub", rejected.getProviderId());
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(3, requests.get());
+        assertEquals(1, meterRegistry.find(ProviderHttpClient.METRIC_NAME).tag("outcome", "REJECTED").timer().count());
+    }
+
+    @Test
+    @DisplayName("A successful trial call after the open period closes the breaker")
+    void closesAfterSuccessfulTrial() throws Exception {
+        status.set(500);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(WebClientResponseException.class, this::call);
+        }
+        status.set(200);
+
+        Thread.sleep(1_100);
+        assertEquals(ProviderCircuitBreaker.State.HALF_OPEN, client.getCircuitBreaker("stub").getState());
+        assertEquals("{\"ok\":true}", call());
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, client.getCircuitBreaker("stub").getState());
+    }
+
+    @Test
+    @DisplayName("Read timeouts count as failures")
+    void timeoutsOpenTheBreaker() {
+        delayMillis.set(1_500);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, this::call);
+        }
+        assertEquals(ProviderCircuitBreaker.State.OPEN, client.getCircuitBreaker("stub").getState());
+        assertEquals(3, meterRegistry.find(ProviderHttpClient.METRIC_NAME).tag("outcome", "TIMEOUT").timer().count());
+    }
+
+    @Test
+    @DisplayName("A body that stalls after the headers counts as a failure, not a success")
+    void stalledBodiesOpenTheBreaker() {
+        bodyDelayMillis.set(1_500);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, this::call);
+        }
+        assertEquals(ProviderCircuitBreaker.State.OPEN, client.getCircuitBreaker("stub").getState());
+        assertEquals(3, meterRegistry.find(ProviderHttpClient.METRIC_NAME).tag("outcome", "TIMEOUT").timer().count());
+        assertNull(meterRegistry.find(ProviderHttpClient.METRIC_NAME).tag("outcome", "SUCCESS").timer());
+        assertEquals(0, client.getCircuitBreaker("stub").snapshot().get("in_flight"));
+    }
+
+    @Test
+    @DisplayName("Calls beyond the concurrency limit are rejected at once")
+    void bulkheadRejectsExcessCalls() throws Exception {
+        delayMillis.set(500);
+        CompletableFuture<String> first = callAsync();
+        CompletableFuture<String> second = callAsync();
+
+        assertThrows(ProviderUnavailableException.class, this::call);
+
+        assertEquals("{\"ok\":true}", first.get(5, TimeUnit.SECONDS));
+        assertEquals("{\"ok\":true}", second.get(5, TimeUnit.SECONDS));
+        assertEquals(ProviderCircuitBreaker.State.CLOSED, client.getCircuitBreaker("stub").getState());
+        assertEquals(0, client.getCircuitBreaker("stub").snapshot().get("in_flight"));
+    }
+
+    private String call() {
+        return request().block();
+    }
+
+    private CompletableFuture<String> callAsync() {
+        return request().toFuture();
+    }
+
+    private Mono<String> request() {
+        return client.forProvider("stub").get()
+                .uri(url)
+                .attribute(ProviderHttpClient.OPERATION_ATTRIBUTE, "token")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+}
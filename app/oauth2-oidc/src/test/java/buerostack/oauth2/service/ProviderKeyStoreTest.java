@@ -0,0 +1,186 @@
+package buerostack.oauth2.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs ProviderKeyStore against a local stub JWKS endpoint.
+ */
+class ProviderKeyStoreTest {
+
+    private HttpServer server;
+    private String jwksUri;
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicReference<String> jwksJson = new AtomicReference<>();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private RSAKey key1;
+    private RSAKey key2;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        key1 = new RSAKeyGenerator(2048).keyID("key-1").generate();
+        key2 = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        publish(key1);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/jwks", exchange -> {
+            fetches.incrementAndGet();
+            byte[] body = jwksJson.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        jwksUri = "http://127.0.0.1:" + server.getAddress().getPort() + "/jwks";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Verifiers are resolved by kid and reused without refetching")
+    void resolvesByKid() throws Exception {
+        ProviderKeyStore store = new ProviderKeyStore(fetcher(), Duration.ofHours(1));
+        try {
+            JWSVerifier verifier = store.getVerifier("test", jwksUri, "key-1", 3600);
+            assertNotNull(verifier);
+            assertTrue(sign(key1).verify(verifier));
+
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(store.getVerifier("test", jwksUri, "key-1", 3600));
+            }
+            assertEquals(1, fetches.get());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A rotated key is picked up by refetching on an unknown kid")
+    void refetchesOnUnknownKid() throws Exception {
+        ProviderKeyStore store = new ProviderKeyStore(fetcher(), Duration.ZERO);
+        try {
+            assertNotNull(store.getVerifier("test", jwksUri, "key-1", 3600));
+
+            publish(key1, key2);
+            JWSVerifier verifier = store.getVerifier("test", jwksUri, "key-2", 3600);
+
+            assertNotNull(verifier);
+            assertTrue(sign(key2).verify(verifier));
+            assertEquals(2, fetches.get());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Unknown kids do not refetch more than once per interval")
+    void rateLimitsUnknownKidRefetch() throws Exception {
+        ProviderKeyStore store = new ProviderKeyStore(fetcher(), Duration.ofHours(1));
+        try {
+            assertNotNull(store.getVerifier("test", jwksUri, "key-1", 3600));
+
+            for (int i = 0; i < 20; i++) {
+                assertNull(store.getVerifier("test", jwksUri, "unknown-" + i, 3600));
+            }
+            assertEquals(1, fetches.get());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Keys are refreshed in the background before the TTL runs out")
+    void refreshesAhead() throws Exception {
+        ProviderKeyStore store = new ProviderKeyStore(fetcher(), Duration.ofHours(1));
+        try {
+            assertNotNull(store.getVerifier("test", jwksUri, "key-1", 1));
+            publish(key2);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (store.getVerifier("test", jwksUri, "key-2", 1) == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+
+            assertNotNull(store.getVerifier("test", jwksUri, "key-2", 1));
+            assertTrue(fetches.get() >= 2);
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A failed fetch keeps the previous keys")
+    void keepsKeysWhenFetchFails() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, String> failingAfterFirst = uri -> {
+            if (calls.incrementAndGet() > 1) {
+                throw new IllegalStateException("JWKS endpoint unavailable");
+            }
+            return fetcher().apply(uri);
+        };
+        ProviderKeyStore store = new ProviderKeyStore(failingAfterFirst, Duration.ZERO);
+        try {
+            assertNotNull(store.getVerifier("test", jwksUri, "key-1", 3600));
+            assertNull(store.getVerifier("test", jwksUri, "key-2", 3600));
+            assertNotNull(store.getVerifier("test", jwksUri, "key-1", 3600));
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    private Function<String, String> fetcher() {
+        return uri -> {
+            try {
+                return httpClient.send(HttpRequest.newBuilder(URI.create(uri)).build(),
+                        HttpResponse.BodyHandlers.ofString()).body();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private void publish(RSAKey... keys) {
+        jwksJson.set(new JWKSet(List.<JWK>of(keys)).toPublicJWKSet().toString());
+    }
+
+    private SignedJWT sign(RSAKey key) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                new JWTClaimsSet.Builder().subject("user").build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt;
+    }
+}
@@ -0,0 +1,85 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2ProvidersConfig.OAuth2ProvidersProperties;
+import buerostack.oauth2.config.ProviderWarmupConfig;
+import buerostack.oauth2.model.OidcDiscovery;
+import buerostack.oauth2.model.ProviderConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderWarmupServiceTest {
+
+    @Mock
+    private OAuth2ProvidersProperties providersProperties;
+
+    @Mock
+    private OidcDiscoveryService discoveryService;
+
+    @Mock
+    private ProviderKeyStore keyStore;
+
+    private final AtomicBoolean warm = new AtomicBoolean();
+    private ProviderWarmupService service;
+
+    @BeforeEach
+    void setUp() {
+        ProviderConfig critical = new ProviderConfig();
+        critical.setId("idp");
+        critical.setCritical(true);
+        when(providersProperties.getEnabledProviders()).thenReturn(Map.of("idp", critical));
+        lenient().when(discoveryService.isDiscoveryCached("idp")).thenAnswer(invocation -> warm.get());
+        lenient().when(keyStore.isLoaded("idp")).thenAnswer(invocation -> warm.get());
+        lenient().doAnswer(invocation -> {
+            warm.set(true);
+            return null;
+        }).when(keyStore).preload(eq("idp"), any(), anyLong());
+
+        ProviderWarmupConfig config = new ProviderWarmupConfig();
+        config.setRetryInitialBackoffMillis(200);
+        config.setRetryMaxBackoffMillis(400);
+        service = new ProviderWarmupService(providersProperties, discoveryService, keyStore, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("A critical provider that fails warm-up is retried in the background until ready")
+    void retriesCriticalProviderUntilWarm() throws Exception {
+        OidcDiscovery discovery = new OidcDiscovery();
+        discovery.setJwksUri("https://idp.example/jwks");
+        when(discoveryService.getDiscovery(eq("idp"), any()))
+                .thenThrow(new RuntimeException("connection refused"))
+                .thenThrow(new RuntimeException("connection refused"))
+                .thenReturn(discovery);
+
+        service.warmUp().get(5, TimeUnit.SECONDS);
+        assertTrue(service.isPhaseComplete());
+        assertFalse(service.isReady());
+        assertEquals("FAILED", service.getProviderReadiness().get("idp").get("state"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!service.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(service.isReady());
+        assertEquals("WARM", service.getProviderReadiness().get("idp").get("state"));
+        verify(discoveryService, times(3)).getDiscovery(eq("idp"), any());
+    }
+}
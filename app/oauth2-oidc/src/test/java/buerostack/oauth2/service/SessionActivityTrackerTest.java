@@ -0,0 +1,141 @@
+package buerostack.oauth2.service;
+
+import buerostack.oauth2.config.OAuth2SessionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionActivityTrackerTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private SessionStore sessionStore;
+
+    private SessionActivityTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        OAuth2SessionConfig config = new OAuth2SessionConfig();
+        config.setActivityGranularitySeconds(60);
+        // Flushes in these tests are explicit; keep the scheduled one out of the way
+        config.setActivityFlushIntervalSeconds(3600);
+        tracker = new SessionActivityTracker(sessionStore, config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    @DisplayName("Activity within the granularity window is coalesced into one pending update")
+    void coalescesWithinGranularity() {
+        // Stored activity is recent: nothing to record
+        tracker.record("s1", T0, T0.plusSeconds(30));
+        tracker.flush();
+        verifyNoInteractions(sessionStore);
+
+        // First request past the window is buffered, later ones inside the new window are not
+        tracker.record("s1", T0, T0.plusSeconds(61));
+        tracker.record("s1", T0, T0.plusSeconds(90));
+        tracker.record("s1", T0, T0.plusSeconds(120));
+        tracker.flush();
+
+        verify(sessionStore).updateLastActivity(Map.of("s1", T0.plusSeconds(61)));
+    }
+
+    @Test
+    @DisplayName("Activity past the buffered value plus granularity advances the pending update")
+    void advancesPastGranularity() {
+        tracker.record("s1", T0, T0.plusSeconds(61));
+        tracker.record("s1", T0, T0.plusSeconds(125));
+        tracker.flush();
+
+        verify(sessionStore).updateLastActivity(Map.of("s1", T0.plusSeconds(125)));
+    }
+
+    @Test
+    @DisplayName("A flush writes all buffered sessions in one batched store call and empties the buffer")
+    void flushesOneBatch() {
+        tracker.record("s1", null, T0);
+        tracker.record("s2", T0.minusSeconds(600), T0.plusSeconds(1));
+        tracker.record("s3", T0.minusSeconds(600), T0.plusSeconds(2));
+
+        tracker.flush();
+        tracker.flush();
+
+        verify(sessionStore, times(1)).updateLastActivity(Map.of(
+                "s1", T0,
+                "s2", T0.plusSeconds(1),
+                "s3", T0.plusSeconds(2)));
+        verifyNoMoreInteractions(sessionStore);
+    }
+
+    @Test
+    @DisplayName("A failed flush is retried on the next one")
+    void failedFlushIsRequeued() {
+        doThrow(new IllegalStateException("database down"))
+                .doNothing()
+                .when(sessionStore).updateLastActivity(anyMap());
+        tracker.record("s1", null, T0);
+
+        tracker.flush();
+        tracker.flush();
+
+        List<Map<String, Instant>> batches = capturedBatches(2);
+        assertEquals(Map.of("s1", T0), batches.get(0));
+        assertEquals(Map.of("s1", T0), batches.get(1));
+    }
+
+    @Test
+    @DisplayName("Re-queueing a failed batch does not overwrite activity recorded during the flush")
+    void failedFlushKeepsNewerActivity() {
+        doAnswer(invocation -> {
+            // Another request on the session arrives while the store call is in flight
+            tracker.record("s1", T0, T0.plusSeconds(120));
+            throw new IllegalStateException("database down");
+        }).doNothing().when(sessionStore).updateLastActivity(anyMap());
+        tracker.record("s1", null, T0);
+        tracker.record("s2", null, T0);
+
+        tracker.flush();
+        tracker.flush();
+
+        List<Map<String, Instant>> batches = capturedBatches(2);
+        assertEquals(Map.of("s1", T0, "s2", T0), batches.get(0));
+        assertEquals(Map.of("s1", T0.plusSeconds(120), "s2", T0), batches.get(1));
+    }
+
+    @Test
+    @DisplayName("Shutdown flushes what is still buffered")
+    void shutdownFlushes() {
+        tracker.record("s1", null, T0);
+
+        tracker.shutdown();
+
+        verify(sessionStore).updateLastActivity(Map.of("s1", T0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Instant>> capturedBatches(int expected) {
+        ArgumentCaptor<Map<String, Instant>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(sessionStore, times(expected)).updateLastActivity(captor.capture());
+        return new ArrayList<>(captor.getAllValues());
+    }
+}
@@ -0,0 +1,25 @@
+-- auth tables used by the Postgres-backed stores, as in db/init.sql; emptied before every test
+CREATE SCHEMA IF NOT EXISTS auth;
+
+CREATE TABLE IF NOT EXISTS auth.oauth_state (
+  state text PRIMARY KEY,
+  created_at timestamp NOT NULL DEFAULT now(),
+  pkce_verifier text,
+  expires_at timestamp,
+  provider_id text,
+  nonce text,
+  redirect_uri text
+);
+
+CREATE TABLE IF NOT EXISTS auth.oauth_session (
+  session_id text PRIMARY KEY,
+  user_id text NOT NULL,
+  provider_id text NOT NULL,
+  status text NOT NULL,
+  created_at timestamp NOT NULL,
+  last_activity timestamp NOT NULL,
+  expires_at timestamp NOT NULL,
+  data jsonb NOT NULL
+);
+
+TRUNCATE auth.oauth_state, auth.oauth_session;
@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
@@ -47,6 +48,22 @@ public class DatabaseConfig {
         return DataSourceBuilder.create().build();
     }
 
+    /**
+     * Custom JWT JdbcTemplate for set-based statements; joins customJwtTransactionManager transactions
+     */
+    @Bean(name = "customJwtJdbcTemplate")
+    public JdbcTemplate customJwtJdbcTemplate(@Qualifier("customJwtDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Auth JdbcTemplate for plain statements on the auth schema (e.g. the shared OAuth2 state store)
+     */
+    @Bean(name = "authJdbcTemplate")
+    public JdbcTemplate authJdbcTemplate(@Qualifier("authDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
     /**
      * Custom JWT Entity Manager Factory
      */
@@ -1,5 +1,8 @@
 package buerostack.introspection.api;
 
+import buerostack.introspection.config.IntrospectionConfig;
+import buerostack.introspection.dto.BatchIntrospectionRequest;
+import buerostack.introspection.dto.BatchIntrospectionResponse;
 import buerostack.introspection.dto.IntrospectionRequest;
 import buerostack.introspection.dto.IntrospectionResponse;
 import buerostack.introspection.service.TokenIntrospectionService;
@@ -9,6 +12,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,9 +25,12 @@ public class TokenIntrospectionController {
     private static final Logger logger = LoggerFactory.getLogger(TokenIntrospectionController.class);
 
     private final TokenIntrospectionService introspectionService;
+    private final IntrospectionConfig introspectionConfig;
 
-    public TokenIntrospectionController(TokenIntrospectionService introspectionService) {
+    public TokenIntrospectionController(TokenIntrospectionService introspectionService,
+                                        IntrospectionConfig introspectionConfig) {
         this.introspectionService = introspectionService;
+        this.introspectionConfig = introspectionConfig;
     }
 
     /**
@@ -76,6 +83,46 @@ public class TokenIntrospectionController {
         }
     }
 
+    /**
+     * Batch introspection for callers that need several tokens checked per request
+     * (Not part of RFC 7662; each entry of "results" is an RFC 7662 response)
+     *
+     * POST /introspect/batch
+     * Content-Type: application/json
+     * Body: {"tokens": ["...", "..."]}
+     */
+    @PostMapping(value = "/batch",
+                 consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> introspectBatch(@RequestBody BatchIntrospectionRequest request) {
+
+        logger.debug("Batch token introspection request received");
+
+        List<String> tokens = request.getTokens();
+        if (tokens == null || tokens.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "invalid_request",
+                "message", "Tokens list is required and cannot be empty"));
+        }
+        int limit = introspectionConfig.getBatchLimit();
+        if (tokens.size() > limit) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "request_too_large",
+                "message", "Cannot introspect more than " + limit + " tokens at once",
+                "provided", tokens.size(),
+                "maximum", limit));
+        }
+
+        try {
+            return ResponseEntity.ok(new BatchIntrospectionResponse(introspectionService.introspectBatch(tokens)));
+
+        } catch (Exception e) {
+            logger.error("Error processing batch introspection request: {}", e.getMessage());
+            return ResponseEntity.ok(new BatchIntrospectionResponse(
+                tokens.stream().map(t -> IntrospectionResponse.inactive()).toList()));
+        }
+    }
+
     /**
      * Get supported token types (informational endpoint)
      */
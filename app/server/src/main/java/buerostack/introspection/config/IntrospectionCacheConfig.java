@@ -0,0 +1,40 @@
+package buerostack.introspection.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache of active introspection results (introspection.cache.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "introspection.cache")
+public class IntrospectionCacheConfig {
+
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    private long maxTtlSeconds = 60;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getMaxTtlSeconds() {
+        return maxTtlSeconds;
+    }
+
+    public void setMaxTtlSeconds(long maxTtlSeconds) {
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+}
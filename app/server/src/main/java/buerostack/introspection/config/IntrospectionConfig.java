@@ -0,0 +1,22 @@
+package buerostack.introspection.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Introspection endpoint limits (introspection.*)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "introspection")
+public class IntrospectionConfig {
+
+    private int batchLimit = 100;
+
+    public int getBatchLimit() {
+        return batchLimit;
+    }
+
+    public void setBatchLimit(int batchLimit) {
+        this.batchLimit = batchLimit;
+    }
+}
@@ -0,0 +1,25 @@
+package buerostack.introspection.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class BatchIntrospectionRequest {
+
+    @JsonProperty("tokens")
+    private List<String> tokens;
+
+    public BatchIntrospectionRequest() {}
+
+    public BatchIntrospectionRequest(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
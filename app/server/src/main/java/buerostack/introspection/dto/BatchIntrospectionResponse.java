@@ -0,0 +1,28 @@
+package buerostack.introspection.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One RFC 7662 response per requested token, in request order
+ */
+public class BatchIntrospectionResponse {
+
+    @JsonProperty("results")
+    private List<IntrospectionResponse> results;
+
+    public BatchIntrospectionResponse() {}
+
+    public BatchIntrospectionResponse(List<IntrospectionResponse> results) {
+        this.results = results;
+    }
+
+    public List<IntrospectionResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<IntrospectionResponse> results) {
+        this.results = results;
+    }
+}
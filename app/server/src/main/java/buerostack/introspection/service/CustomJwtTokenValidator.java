@@ -1,40 +1,56 @@
 package buerostack.introspection.service;
 
 import buerostack.introspection.dto.IntrospectionResponse;
+import buerostack.jwt.config.JwtCustomConfig;
 import buerostack.jwt.service.CustomJwtService;
 import buerostack.config.JwtSignerService;
-import com.nimbusds.jwt.SignedJWT;
+import buerostack.config.ParsedToken;
+import com.nimbusds.jwt.JWTClaimsSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 public class CustomJwtTokenValidator implements TokenValidator {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomJwtTokenValidator.class);
 
+    // Standard JWT claims excluded from extra_claims
+    private static final Set<String> STANDARD_CLAIMS = Set.of("iss", "sub", "aud", "exp", "iat", "jti", "token_type");
+
     private final CustomJwtService customJwtService;
     private final JwtSignerService jwtSignerService;
+    private final JwtCustomConfig jwtCustomConfig;
 
-    public CustomJwtTokenValidator(CustomJwtService customJwtService, JwtSignerService jwtSignerService) {
+    public CustomJwtTokenValidator(CustomJwtService customJwtService, JwtSignerService jwtSignerService,
+                                   JwtCustomConfig jwtCustomConfig) {
         this.customJwtService = customJwtService;
         this.jwtSignerService = jwtSignerService;
+        this.jwtCustomConfig = jwtCustomConfig;
     }
 
     @Override
     public IntrospectionResponse introspect(String token) {
         try {
-            // Parse JWT
-            SignedJWT jwt = SignedJWT.parse(token);
+            return introspect(ParsedToken.parse(token));
+        } catch (Exception e) {
+            logger.error("Error during custom JWT introspection: {}", e.getMessage());
+            return IntrospectionResponse.inactive();
+        }
+    }
 
-            // Verify signature
-            if (!jwtSignerService.verify(token)) {
-                logger.debug("Custom JWT signature verification failed");
+    @Override
+    public IntrospectionResponse introspect(ParsedToken token) {
+        try {
+            if (!isVerifiedAndUnexpired(token)) {
                 return IntrospectionResponse.inactive();
             }
 
@@ -44,62 +60,118 @@ public class CustomJwtTokenValidator implements TokenValidator {
                 return IntrospectionResponse.inactive();
             }
 
-            // Check expiration
-            if (jwt.getJWTClaimsSet().getExpirationTime().toInstant().isBefore(Instant.now())) {
-                logger.debug("Custom JWT is expired");
-                return IntrospectionResponse.inactive();
-            }
+            return buildResponse(token);
 
-            // Build successful response
-            IntrospectionResponse response = IntrospectionResponse.active();
-
-            // Standard claims
-            response.setSub(jwt.getJWTClaimsSet().getSubject());
-            response.setIss(jwt.getJWTClaimsSet().getIssuer());
-            response.setJti(jwt.getJWTClaimsSet().getJWTID());
-            response.setExp(jwt.getJWTClaimsSet().getExpirationTime().getTime() / 1000);
-            response.setIat(jwt.getJWTClaimsSet().getIssueTime().getTime() / 1000);
-
-            // Audience (can be string or array)
-            if (jwt.getJWTClaimsSet().getAudience() != null && !jwt.getJWTClaimsSet().getAudience().isEmpty()) {
-                if (jwt.getJWTClaimsSet().getAudience().size() == 1) {
-                    response.setAud(jwt.getJWTClaimsSet().getAudience().get(0));
-                } else {
-                    response.setAud(jwt.getJWTClaimsSet().getAudience());
-                }
-            }
+        } catch (Exception e) {
+            logger.error("Error during custom JWT introspection: {}", e.getMessage());
+            return IntrospectionResponse.inactive();
+        }
+    }
 
-            // Token type
-            response.setTokenType(getTokenType());
+    /**
+     * Signature checks run in parallel; revocation for all surviving tokens is one lookup.
+     */
+    @Override
+    public List<IntrospectionResponse> introspectAll(List<ParsedToken> tokens) {
+        List<Boolean> candidates = tokens.parallelStream().map(this::isVerifiedAndUnexpired).toList();
 
-            // Extract custom claims (excluding standard JWT claims)
-            Map<String, Object> extraClaims = new HashMap<>();
-            Map<String, Object> allClaims = jwt.getJWTClaimsSet().getClaims();
+        List<UUID> jtis = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (candidates.get(i) && tokens.get(i).getJti() != null) {
+                jtis.add(tokens.get(i).getJti());
+            }
+        }
 
-            // Standard JWT claims to exclude
-            String[] standardClaims = {"iss", "sub", "aud", "exp", "iat", "jti", "token_type"};
+        Set<UUID> revoked;
+        try {
+            revoked = customJwtService.revokedAmong(jtis);
+        } catch (Exception e) {
+            logger.error("Error resolving revocation status for batch introspection: {}", e.getMessage());
+            return tokens.stream().map(t -> IntrospectionResponse.inactive()).toList();
+        }
 
-            for (Map.Entry<String, Object> entry : allClaims.entrySet()) {
-                if (!Arrays.asList(standardClaims).contains(entry.getKey())) {
-                    extraClaims.put(entry.getKey(), entry.getValue());
-                }
+        List<IntrospectionResponse> responses = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            ParsedToken token = tokens.get(i);
+            // Tokens without a usable jti cannot be checked against the denylist and are treated as revoked
+            if (!candidates.get(i) || token.getJti() == null || revoked.contains(token.getJti())) {
+                responses.add(IntrospectionResponse.inactive());
+                continue;
+            }
+            try {
+                responses.add(buildResponse(token));
+            } catch (Exception e) {
+                logger.error("Error during custom JWT introspection: {}", e.getMessage());
+                responses.add(IntrospectionResponse.inactive());
             }
+        }
+        return responses;
+    }
+
+    private boolean isVerifiedAndUnexpired(ParsedToken token) {
+        // Verify signature
+        if (!jwtSignerService.verify(token)) {
+            logger.debug("Custom JWT signature verification failed");
+            return false;
+        }
 
-            if (!extraClaims.isEmpty()) {
-                response.setExtraClaims(extraClaims);
+        // Check expiration before the revocation lookup, it needs no I/O
+        if (token.isExpired(Instant.now())) {
+            logger.debug("Custom JWT is expired");
+            return false;
+        }
+        return true;
+    }
+
+    private IntrospectionResponse buildResponse(ParsedToken token) {
+        JWTClaimsSet claims = token.getClaims();
+
+        // Build successful response
+        IntrospectionResponse response = IntrospectionResponse.active();
+
+        // Standard claims
+        response.setSub(claims.getSubject());
+        response.setIss(claims.getIssuer());
+        response.setJti(claims.getJWTID());
+        response.setExp(token.getExpiresAt());
+        response.setIat(claims.getIssueTime().getTime() / 1000);
+
+        // Audience (can be string or array)
+        List<String> audience = claims.getAudience();
+        if (audience != null && !audience.isEmpty()) {
+            if (audience.size() == 1) {
+                response.setAud(audience.get(0));
+            } else {
+                response.setAud(audience);
             }
+        }
 
-            logger.debug("Custom JWT introspection successful for jti: {}", jwt.getJWTClaimsSet().getJWTID());
-            return response;
+        // Token type
+        response.setTokenType(getTokenType());
 
-        } catch (Exception e) {
-            logger.error("Error during custom JWT introspection: {}", e.getMessage());
-            return IntrospectionResponse.inactive();
+        // Extract custom claims (excluding standard JWT claims)
+        Map<String, Object> extraClaims = new HashMap<>();
+        for (Map.Entry<String, Object> entry : claims.getClaims().entrySet()) {
+            if (!STANDARD_CLAIMS.contains(entry.getKey())) {
+                extraClaims.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (!extraClaims.isEmpty()) {
+            response.setExtraClaims(extraClaims);
         }
+
+        logger.debug("Custom JWT introspection successful for jti: {}", claims.getJWTID());
+        return response;
     }
 
     @Override
     public String getTokenType() {
         return "custom_jwt";
     }
+
+    @Override
+    public Set<String> getIssuers() {
+        return Set.of(jwtCustomConfig.getIssuer());
+    }
 }
\ No newline at end of file
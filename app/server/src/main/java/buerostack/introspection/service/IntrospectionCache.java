@@ -0,0 +1,184 @@
+package buerostack.introspection.service;
+
+import buerostack.introspection.config.IntrospectionCacheConfig;
+import buerostack.introspection.dto.IntrospectionResponse;
+import buerostack.jwt.service.RevocationCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active introspection results keyed by the SHA-256 of the token (and the token_type_hint, which
+ * can change the result), so repeated introspection of the same bearer token skips parsing and
+ * signature verification.
+ *
+ * Only active responses are cached. An entry lives until the token's exp or the configured
+ * maximum TTL, whichever comes first, and is dropped as soon as its jti is revoked on any node
+ * (through {@link RevocationCache} listeners). Revocations from other nodes only arrive while the
+ * revocation cache is ready, so entries are only stored and served while it is; otherwise every
+ * request is introspected in full. Hit and miss counts are exported as the "cache.*" meters with
+ * cache="token_introspection".
+ */
+@Component
+public class IntrospectionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntrospectionCache.class);
+
+    static final String CACHE_NAME = "token_introspection";
+
+    private final boolean enabled;
+    private final long maxTtlSeconds;
+    private final RevocationCache revocationCache;
+    private final Cache<String, IntrospectionResponse> cache;
+
+    // jti -> cache keys of that token (one per token_type_hint), to evict on revocation without scanning the cache
+    private final Map<String, Set<String>> digestsByJti = new ConcurrentHashMap<>();
+
+    public IntrospectionCache(IntrospectionCacheConfig config, RevocationCache revocationCache,
+                              ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.maxTtlSeconds = config.getMaxTtlSeconds();
+        this.revocationCache = revocationCache;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new Expiry<String, IntrospectionResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, IntrospectionResponse value, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos(ttlSeconds(value));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, IntrospectionResponse value, long currentTime, long currentDuration) {
+                        return TimeUnit.SECONDS.toNanos(ttlSeconds(value));
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, IntrospectionResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Runs synchronously for size and expiry evictions only; replacements keep their mapping
+                .evictionListener((String digest, IntrospectionResponse value, RemovalCause cause) -> {
+                    if (digest != null && value != null && value.getJti() != null) {
+                        unmap(value.getJti(), digest);
+                    }
+                })
+                .recordStats()
+                .build();
+
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), cache, CACHE_NAME);
+            revocationCache.addRevocationListener(this::evict);
+        }
+        logger.info("Introspection cache {} (maximum size {}, maximum TTL {}s)",
+                enabled ? "enabled" : "disabled", config.getMaximumSize(), maxTtlSeconds);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cache key for a token introspected without a token_type_hint. The raw token is never stored.
+     */
+    public String digest(String token) {
+        return digest(token, null);
+    }
+
+    /**
+     * Cache key for a token and the token_type_hint it was introspected with.
+     */
+    public String digest(String token, String tokenTypeHint) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            String digest = Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+            return tokenTypeHint != null ? digest + "|" + tokenTypeHint : digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Cached active response, or null on a miss.
+     */
+    public IntrospectionResponse get(String digest) {
+        // Without an authoritative revocation set a revocation on another node could go unnoticed
+        if (!enabled || !revocationCache.isReady()) {
+            return null;
+        }
+        IntrospectionResponse response = cache.getIfPresent(digest);
+        // Closes the window between a revocation and the eviction it triggers
+        if (response != null && response.getJti() != null && isRevokedLocally(response.getJti())) {
+            cache.invalidate(digest);
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Store a response; only active responses with an exp still in the future are kept.
+     */
+    public void put(String digest, IntrospectionResponse response) {
+        if (!enabled || !revocationCache.isReady() || !response.isActive() || response.getExp() == null || ttlSeconds(response) <= 0) {
+            return;
+        }
+        cache.put(digest, response);
+        if (response.getJti() != null) {
+            digestsByJti.compute(response.getJti(), (jti, digests) -> {
+                Set<String> updated = digests != null ? digests : ConcurrentHashMap.newKeySet();
+                updated.add(digest);
+                return updated;
+            });
+            // A revocation that raced the introspection may have found nothing to evict yet
+            if (isRevokedLocally(response.getJti())) {
+                cache.invalidate(digest);
+            }
+        }
+    }
+
+    void evict(UUID jti) {
+        Set<String> digests = digestsByJti.remove(jti.toString());
+        if (digests != null) {
+            cache.invalidateAll(digests);
+        }
+    }
+
+    private void unmap(String jti, String digest) {
+        digestsByJti.computeIfPresent(jti, (key, digests) -> {
+            digests.remove(digest);
+            return digests.isEmpty() ? null : digests;
+        });
+    }
+
+    private boolean isRevokedLocally(String jti) {
+        try {
+            return revocationCache.contains(UUID.fromString(jti));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private long ttlSeconds(IntrospectionResponse response) {
+        long untilExp = response.getExp() - Instant.now().getEpochSecond();
+        return Math.max(0, Math.min(untilExp, maxTtlSeconds));
+    }
+}
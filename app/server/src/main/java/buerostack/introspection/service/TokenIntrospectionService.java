@@ -1,13 +1,16 @@
 package buerostack.introspection.service;
 
+import buerostack.config.ParsedToken;
 import buerostack.introspection.dto.IntrospectionRequest;
 import buerostack.introspection.dto.IntrospectionResponse;
-import com.nimbusds.jwt.SignedJWT;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,10 +21,14 @@ public class TokenIntrospectionService {
     private static final Logger logger = LoggerFactory.getLogger(TokenIntrospectionService.class);
 
     private final Map<String, TokenValidator> validators = new HashMap<>();
+    // iss -> validator, built once so routing needs no per-token heuristics
+    private final Map<String, TokenValidator> validatorsByIssuer = new HashMap<>();
     private final List<TokenValidator> tokenValidators;
+    private final IntrospectionCache introspectionCache;
 
-    public TokenIntrospectionService(List<TokenValidator> tokenValidators) {
+    public TokenIntrospectionService(List<TokenValidator> tokenValidators, IntrospectionCache introspectionCache) {
         this.tokenValidators = tokenValidators;
+        this.introspectionCache = introspectionCache;
     }
 
     @PostConstruct
@@ -30,7 +37,14 @@ public class TokenIntrospectionService {
 
         for (TokenValidator validator : tokenValidators) {
             validators.put(validator.getTokenType(), validator);
-            logger.info("Registered validator for token type: {}", validator.getTokenType());
+            for (String issuer : validator.getIssuers()) {
+                TokenValidator previous = validatorsByIssuer.putIfAbsent(issuer, validator);
+                if (previous != null) {
+                    logger.warn("Issuer '{}' is claimed by both {} and {}, routing to {}", issuer,
+                        previous.getTokenType(), validator.getTokenType(), previous.getTokenType());
+                }
+            }
+            logger.info("Registered validator for token type: {} (issuers: {})", validator.getTokenType(), validator.getIssuers());
         }
 
         logger.info("Token introspection service initialized with {} validators", validators.size());
@@ -47,25 +61,30 @@ public class TokenIntrospectionService {
             return IntrospectionResponse.inactive();
         }
 
-        try {
-            // Extract token type from JWT claims
-            String tokenType = extractTokenType(token);
-
-            if (tokenType == null) {
-                logger.debug("Unable to determine token type");
-                return IntrospectionResponse.inactive();
+        // Repeated introspection of the same token skips parsing and signature verification
+        String digest = introspectionCache.isEnabled() ? introspectionCache.digest(token, request.getTokenTypeHint()) : null;
+        if (digest != null) {
+            IntrospectionResponse cached = introspectionCache.get(digest);
+            if (cached != null) {
+                return cached;
             }
+        }
 
-            // Get appropriate validator
-            TokenValidator validator = validators.get(tokenType);
+        ParsedToken parsed;
+        try {
+            // Parse once; every validator below works on this instance
+            parsed = ParsedToken.parse(token);
+        } catch (ParseException e) {
+            logger.debug("Failed to parse JWT for introspection: {}", e.getMessage());
+            return IntrospectionResponse.inactive();
+        }
 
-            if (validator == null) {
-                logger.debug("No validator found for token type: {}", tokenType);
-                return IntrospectionResponse.inactive();
+        try {
+            IntrospectionResponse response = introspectRouted(parsed, request.getTokenTypeHint());
+            if (digest != null) {
+                introspectionCache.put(digest, response);
             }
-
-            // Validate the token
-            return validator.introspect(token);
+            return response;
 
         } catch (Exception e) {
             logger.error("Error during token introspection: {}", e.getMessage());
@@ -74,53 +93,110 @@ public class TokenIntrospectionService {
     }
 
     /**
-     * Extract token_type claim from JWT
+     * Route to the hinted validator first, if the hint names one (RFC 7662 section 2.1), otherwise
+     * by issuer. A hint only says where to look first: the hinted result is kept only if the verified
+     * token really belongs to that validator, otherwise the search continues with the issuer route.
      */
-    private String extractTokenType(String token) {
-        try {
-            SignedJWT jwt = SignedJWT.parse(token);
-            Object tokenTypeClaim = jwt.getJWTClaimsSet().getClaim("token_type");
-
-            if (tokenTypeClaim instanceof String) {
-                return (String) tokenTypeClaim;
+    private IntrospectionResponse introspectRouted(ParsedToken parsed, String tokenTypeHint) {
+        TokenValidator routed = route(parsed);
+        TokenValidator hinted = tokenTypeHint != null ? validators.get(tokenTypeHint) : null;
+
+        if (hinted != null) {
+            IntrospectionResponse response = hinted.introspect(parsed);
+            // Claims are only trustworthy once the validator has verified the signature
+            if (response.isActive() && belongsTo(hinted, parsed)) {
+                return response;
             }
+            if (routed == null || routed == hinted) {
+                logger.debug("Token does not match token_type_hint {}", tokenTypeHint);
+                return IntrospectionResponse.inactive();
+            }
+        }
+
+        if (routed == null) {
+            logger.debug("No validator found for token issuer");
+            return IntrospectionResponse.inactive();
+        }
+        return routed.introspect(parsed);
+    }
 
-            // Fallback: try to detect based on issuer and other claims
-            return detectTokenTypeByHeuristics(jwt);
+    /**
+     * Validator for a token without a hint: the issuer index, then an explicit token_type claim
+     * for validators that do not declare their issuers.
+     */
+    private TokenValidator route(ParsedToken token) {
+        TokenValidator validator = validatorsByIssuer.get(token.getClaims().getIssuer());
+        if (validator != null) {
+            return validator;
+        }
+        Object tokenType = token.getClaims().getClaim("token_type");
+        return tokenType instanceof String ? validators.get(tokenType) : null;
+    }
 
-        } catch (Exception e) {
-            logger.debug("Failed to parse JWT for token type extraction: {}", e.getMessage());
-            return null;
+    private boolean belongsTo(TokenValidator validator, ParsedToken token) {
+        Object tokenType = token.getClaims().getClaim("token_type");
+        if (tokenType instanceof String) {
+            return validator.getTokenType().equals(tokenType);
         }
+        return validator.getIssuers().contains(token.getClaims().getIssuer());
     }
 
     /**
-     * Fallback token type detection for tokens without explicit token_type claim
+     * Introspect several tokens in one call. Tokens are parsed once and grouped by validator,
+     * so each validator can verify its group in parallel and resolve revocation in one lookup.
+     * Results are returned in request order.
      */
-    private String detectTokenTypeByHeuristics(SignedJWT jwt) {
-        try {
-            String issuer = jwt.getJWTClaimsSet().getIssuer();
-
-            // If issued by TIM, likely a custom JWT
-            if ("TIM".equals(issuer)) {
-                // Check for tim-audience to confirm it's our custom token
-                if (jwt.getJWTClaimsSet().getAudience() != null &&
-                    jwt.getJWTClaimsSet().getAudience().contains("tim-audience")) {
-                    return "custom_jwt";
+    public List<IntrospectionResponse> introspectBatch(List<String> tokens) {
+        IntrospectionResponse[] results = new IntrospectionResponse[tokens.size()];
+        String[] digests = new String[tokens.size()];
+        Map<TokenValidator, List<Integer>> positions = new HashMap<>();
+        Map<TokenValidator, List<ParsedToken>> groups = new HashMap<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            results[i] = IntrospectionResponse.inactive();
+            if (token == null || token.trim().isEmpty()) {
+                continue;
+            }
+            if (introspectionCache.isEnabled()) {
+                digests[i] = introspectionCache.digest(token);
+                IntrospectionResponse cached = introspectionCache.get(digests[i]);
+                if (cached != null) {
+                    results[i] = cached;
+                    continue;
                 }
             }
-
-            // External OAuth2 tokens (Google, GitHub, etc.) or auth module tokens
-            if (issuer != null && !issuer.equals("TIM")) {
-                return "oauth2_access";
+            try {
+                ParsedToken parsed = ParsedToken.parse(token);
+                TokenValidator validator = route(parsed);
+                if (validator == null) {
+                    logger.debug("No validator found for token issuer");
+                    continue;
+                }
+                positions.computeIfAbsent(validator, v -> new ArrayList<>()).add(i);
+                groups.computeIfAbsent(validator, v -> new ArrayList<>()).add(parsed);
+            } catch (Exception e) {
+                logger.debug("Failed to parse JWT for batch introspection: {}", e.getMessage());
             }
+        }
 
-            return null;
-
-        } catch (Exception e) {
-            logger.debug("Error in token type heuristics: {}", e.getMessage());
-            return null;
+        for (Map.Entry<TokenValidator, List<ParsedToken>> group : groups.entrySet()) {
+            List<Integer> indexes = positions.get(group.getKey());
+            try {
+                List<IntrospectionResponse> responses = group.getKey().introspectAll(group.getValue());
+                for (int j = 0; j < indexes.size(); j++) {
+                    int index = indexes.get(j);
+                    results[index] = responses.get(j);
+                    if (digests[index] != null) {
+                        introspectionCache.put(digests[index], results[index]);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Error during batch token introspection: {}", e.getMessage());
+            }
         }
+
+        return Arrays.asList(results);
     }
 
     /**
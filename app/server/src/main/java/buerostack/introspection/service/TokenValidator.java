@@ -1,10 +1,38 @@
 package buerostack.introspection.service;
 
+import buerostack.config.ParsedToken;
 import buerostack.introspection.dto.IntrospectionResponse;
 
+import java.util.List;
+import java.util.Set;
+
 public interface TokenValidator {
 
     IntrospectionResponse introspect(String token);
 
+    /**
+     * Introspect a token that has already been parsed by the caller.
+     * Validators should override this to avoid decoding the token again.
+     */
+    default IntrospectionResponse introspect(ParsedToken token) {
+        return introspect(token.getToken());
+    }
+
+    /**
+     * Introspect several parsed tokens of this validator's type, returning results in the same order.
+     * Validators that can share work across tokens (e.g. one revocation query) should override this.
+     */
+    default List<IntrospectionResponse> introspectAll(List<ParsedToken> tokens) {
+        return tokens.stream().map(this::introspect).toList();
+    }
+
     String getTokenType();
-}
\ No newline at end of file
+
+    /**
+     * Issuers whose tokens this validator handles, used to route tokens without a token_type_hint.
+     * Validators returning an empty set are only reached through the hint or a token_type claim.
+     */
+    default Set<String> getIssuers() {
+        return Set.of();
+    }
+}
@@ -2,6 +2,7 @@ package buerostack.database;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +17,9 @@ import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+// Boots the whole server against PostgreSQL; set TIM_TEST_DB_URL (and provide the signing keystore) to enable
 @SpringBootTest
+@EnabledIfEnvironmentVariable(named = "TIM_TEST_DB_URL", matches = ".+")
 @ActiveProfiles("test")
 @Sql(scripts = {"/schema-test-setup.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 class SchemaValidationTest {
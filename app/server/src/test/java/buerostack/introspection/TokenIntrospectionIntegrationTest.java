@@ -10,6 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -22,6 +23,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -31,7 +33,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
+// Boots the whole server against PostgreSQL; set TIM_TEST_DB_URL (and provide the signing keystore) to enable
 @SpringBootTest
+@EnabledIfEnvironmentVariable(named = "TIM_TEST_DB_URL", matches = ".+")
 @AutoConfigureWebMvc
 @ActiveProfiles("test")
 class TokenIntrospectionIntegrationTest {
@@ -247,7 +251,7 @@ class TokenIntrospectionIntegrationTest {
                 .andExpect(jsonPath("$.sub").value("testuser"))
                 .andExpect(jsonPath("$.iss").value("TIM"))
                 // Should still return basic JWT claims even without metadata
-                .andExpected(result -> {
+                .andExpect(result -> {
                     String responseBody = result.getResponse().getContentAsString();
                     IntrospectionResponse response = objectMapper.readValue(responseBody, IntrospectionResponse.class);
                     assertNotNull(response.getIat());
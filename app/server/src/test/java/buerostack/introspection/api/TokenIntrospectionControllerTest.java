@@ -0,0 +1,148 @@
+package buerostack.introspection.api;
+
+import buerostack.introspection.config.IntrospectionConfig;
+import buerostack.introspection.dto.IntrospectionResponse;
+import buerostack.introspection.service.TokenIntrospectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class TokenIntrospectionControllerTest {
+
+    private static final int BATCH_LIMIT = 3;
+
+    @Mock
+    private TokenIntrospectionService introspectionService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        IntrospectionConfig config = new IntrospectionConfig();
+        config.setBatchLimit(BATCH_LIMIT);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new TokenIntrospectionController(introspectionService, config))
+                .build();
+
+        // "active-<sub>" tokens are active for <sub>, anything else is inactive
+        lenient().when(introspectionService.introspectBatch(anyList())).thenAnswer(invocation -> {
+            List<String> tokens = invocation.getArgument(0);
+            return tokens.stream().map(TokenIntrospectionControllerTest::responseFor).toList();
+        });
+    }
+
+    @Test
+    @DisplayName("Results are returned in request order")
+    void batchKeepsRequestOrder() throws Exception {
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(List.of("active-carol", "active-alice", "active-bob"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(3))
+                .andExpect(jsonPath("$.results[0].sub").value("carol"))
+                .andExpect(jsonPath("$.results[1].sub").value("alice"))
+                .andExpect(jsonPath("$.results[2].sub").value("bob"));
+    }
+
+    @Test
+    @DisplayName("Active and inactive tokens in one batch each get their own result")
+    void batchWithActiveAndInactiveTokens() throws Exception {
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(List.of("revoked", "active-alice", "not-a-jwt"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(3))
+                .andExpect(jsonPath("$.results[0].active").value(false))
+                .andExpect(jsonPath("$.results[0].sub").doesNotExist())
+                .andExpect(jsonPath("$.results[1].active").value(true))
+                .andExpect(jsonPath("$.results[1].sub").value("alice"))
+                .andExpect(jsonPath("$.results[2].active").value(false));
+    }
+
+    @Test
+    @DisplayName("A batch over introspection.batch-limit is rejected without introspecting any token")
+    void batchOverLimitIsRejected() throws Exception {
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(List.of("active-a", "active-b", "active-c", "active-d"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("request_too_large"))
+                .andExpect(jsonPath("$.provided").value(4))
+                .andExpect(jsonPath("$.maximum").value(BATCH_LIMIT));
+
+        verifyNoInteractions(introspectionService);
+    }
+
+    @Test
+    @DisplayName("A batch exactly at the limit is accepted")
+    void batchAtLimitIsAccepted() throws Exception {
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(List.of("active-a", "active-b", "active-c"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(BATCH_LIMIT));
+    }
+
+    @Test
+    @DisplayName("An empty or missing tokens list is an invalid request")
+    void emptyBatchIsRejected() throws Exception {
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(List.of())))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_request"));
+
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_request"));
+
+        verifyNoInteractions(introspectionService);
+    }
+
+    @Test
+    @DisplayName("A failing introspection reports every token in the batch as inactive")
+    void batchFailureReportsAllInactive() throws Exception {
+        when(introspectionService.introspectBatch(anyList())).thenThrow(new IllegalStateException("denylist unavailable"));
+
+        mockMvc.perform(post("/introspect/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(List.of("active-alice", "active-bob"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(2))
+                .andExpect(jsonPath("$.results[0].active").value(false))
+                .andExpect(jsonPath("$.results[1].active").value(false));
+    }
+
+    private String body(List<String> tokens) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("tokens", tokens));
+    }
+
+    private static IntrospectionResponse responseFor(String token) {
+        if (!token.startsWith("active-")) {
+            return IntrospectionResponse.inactive();
+        }
+        IntrospectionResponse response = IntrospectionResponse.active();
+        response.setSub(token.substring("active-".length()));
+        return response;
+    }
+}
@@ -0,0 +1,165 @@
+package buerostack.introspection.service;
+
+import buerostack.introspection.config.IntrospectionCacheConfig;
+import buerostack.introspection.dto.IntrospectionResponse;
+import buerostack.jwt.service.RevocationCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IntrospectionCacheTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final UUID JTI = UUID.fromString("12345678-1234-1234-1234-123456789012");
+
+    @Mock
+    private RevocationCache revocationCache;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private IntrospectionCacheConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new IntrospectionCacheConfig();
+        lenient().when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        lenient().when(revocationCache.isReady()).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("A revocation of the jti evicts every cached entry of that token")
+    void revocationEvictsByJti() {
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<UUID>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(revocationCache).addRevocationListener(listener.capture());
+
+        String plain = cache.digest(TOKEN);
+        String hinted = cache.digest(TOKEN, "custom_jwt");
+        cache.put(plain, active(JTI, 3600));
+        cache.put(hinted, active(JTI, 3600));
+        assertNotNull(cache.get(plain));
+        assertNotNull(cache.get(hinted));
+
+        listener.getValue().accept(JTI);
+
+        assertNull(cache.get(plain));
+        assertNull(cache.get(hinted));
+    }
+
+    @Test
+    @DisplayName("A revocation seen before the entry is read is never served, even before the eviction runs")
+    void locallyRevokedEntryIsNotServed() {
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        String digest = cache.digest(TOKEN);
+        cache.put(digest, active(JTI, 3600));
+
+        when(revocationCache.contains(JTI)).thenReturn(true);
+
+        assertNull(cache.get(digest));
+    }
+
+    @Test
+    @DisplayName("An entry lives no longer than the token's exp, even when the maximum TTL is longer")
+    void ttlIsCappedAtExp() throws Exception {
+        config.setMaxTtlSeconds(3600);
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        String digest = cache.digest(TOKEN);
+
+        cache.put(digest, active(JTI, 1));
+        assertNotNull(cache.get(digest));
+
+        Thread.sleep(2100);
+        assertNull(cache.get(digest));
+    }
+
+    @Test
+    @DisplayName("Expired or inactive responses are not stored")
+    void expiredAndInactiveAreNotStored() {
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        String expired = cache.digest("expired");
+        String inactive = cache.digest("inactive");
+
+        cache.put(expired, active(JTI, -10));
+        cache.put(inactive, IntrospectionResponse.inactive());
+
+        assertNull(cache.get(expired));
+        assertNull(cache.get(inactive));
+    }
+
+    @Test
+    @DisplayName("Nothing is stored or served while the revocation cache is not ready")
+    void notServedWhileRevocationCacheNotReady() {
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        String stored = cache.digest(TOKEN);
+        cache.put(stored, active(JTI, 3600));
+
+        when(revocationCache.isReady()).thenReturn(false);
+        String skipped = cache.digest("other.token.value");
+        cache.put(skipped, active(UUID.randomUUID(), 3600));
+        assertNull(cache.get(stored));
+
+        // Entries stored while not ready must not appear once the listener is back
+        when(revocationCache.isReady()).thenReturn(true);
+        assertNull(cache.get(skipped));
+        assertNotNull(cache.get(stored));
+    }
+
+    @Test
+    @DisplayName("The token_type_hint is part of the key, so results for different hints never mix")
+    void hintIsPartOfKey() {
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        String plain = cache.digest(TOKEN);
+        String hinted = cache.digest(TOKEN, "custom_jwt");
+        String otherHint = cache.digest(TOKEN, "oauth2");
+
+        assertEquals(plain, cache.digest(TOKEN, null));
+        assertNotEquals(plain, hinted);
+        assertNotEquals(hinted, otherHint);
+        assertFalse(plain.contains(TOKEN), "The raw token must not be part of the key");
+
+        cache.put(hinted, active(JTI, 3600));
+        assertNotNull(cache.get(hinted));
+        assertNull(cache.get(plain));
+        assertNull(cache.get(otherHint));
+    }
+
+    @Test
+    @DisplayName("A disabled cache stores nothing and does not subscribe to revocations")
+    void disabledCacheStoresNothing() {
+        config.setEnabled(false);
+        IntrospectionCache cache = new IntrospectionCache(config, revocationCache, meterRegistry);
+        String digest = cache.digest(TOKEN);
+
+        cache.put(digest, active(JTI, 3600));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get(digest));
+        verify(revocationCache, never()).addRevocationListener(any());
+    }
+
+    static IntrospectionResponse active(UUID jti, long secondsToExp) {
+        IntrospectionResponse response = IntrospectionResponse.active();
+        response.setJti(jti.toString());
+        response.setSub("testuser");
+        response.setExp(Instant.now().getEpochSecond() + secondsToExp);
+        return response;
+    }
+}
@@ -0,0 +1,158 @@
+package buerostack.introspection.service;
+
+import buerostack.config.ParsedToken;
+import buerostack.introspection.config.IntrospectionCacheConfig;
+import buerostack.introspection.dto.IntrospectionRequest;
+import buerostack.introspection.dto.IntrospectionResponse;
+import buerostack.jwt.service.RevocationCache;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenIntrospectionServiceTest {
+
+    private static final String ISSUER = "TIM";
+    private static final String TOKEN_TYPE = "custom_jwt";
+
+    @Mock
+    private TokenValidator validator;
+
+    @Mock
+    private RevocationCache revocationCache;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private TokenIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        lenient().when(revocationCache.isReady()).thenReturn(true);
+        lenient().when(validator.getTokenType()).thenReturn(TOKEN_TYPE);
+        lenient().when(validator.getIssuers()).thenReturn(Set.of(ISSUER));
+        lenient().when(validator.introspect(any(ParsedToken.class))).thenAnswer(invocation -> activeFor(invocation.getArgument(0)));
+        lenient().when(validator.introspectAll(anyList())).thenAnswer(invocation -> {
+            List<ParsedToken> tokens = invocation.getArgument(0);
+            return tokens.stream().map(TokenIntrospectionServiceTest::activeFor).toList();
+        });
+
+        IntrospectionCache cache = new IntrospectionCache(new IntrospectionCacheConfig(), revocationCache, meterRegistry);
+        service = new TokenIntrospectionService(List.of(validator), cache);
+        ReflectionTestUtils.invokeMethod(service, "registerValidators");
+    }
+
+    @Test
+    @DisplayName("Repeated introspection of an active token is answered from the cache")
+    void repeatedIntrospectionHitsCache() throws Exception {
+        String token = token(UUID.randomUUID());
+
+        IntrospectionResponse first = service.introspect(new IntrospectionRequest(token));
+        IntrospectionResponse second = service.introspect(new IntrospectionRequest(token));
+
+        assertTrue(first.isActive());
+        assertSame(first, second);
+        verify(validator, times(1)).introspect(any(ParsedToken.class));
+    }
+
+    @Test
+    @DisplayName("A different token_type_hint is a cache miss")
+    void differentHintMisses() throws Exception {
+        String token = token(UUID.randomUUID());
+
+        service.introspect(new IntrospectionRequest(token));
+        service.introspect(new IntrospectionRequest(token, TOKEN_TYPE));
+        service.introspect(new IntrospectionRequest(token, TOKEN_TYPE));
+
+        verify(validator, times(2)).introspect(any(ParsedToken.class));
+    }
+
+    @Test
+    @DisplayName("Every request is validated in full while the revocation cache is not ready")
+    void noCachingWhileRevocationCacheNotReady() throws Exception {
+        when(revocationCache.isReady()).thenReturn(false);
+        String token = token(UUID.randomUUID());
+
+        service.introspect(new IntrospectionRequest(token));
+        service.introspect(new IntrospectionRequest(token));
+
+        verify(validator, times(2)).introspect(any(ParsedToken.class));
+    }
+
+    @Test
+    @DisplayName("A token revoked after it was cached is validated again")
+    void revokedTokenIsValidatedAgain() throws Exception {
+        UUID jti = UUID.randomUUID();
+        String token = token(jti);
+        service.introspect(new IntrospectionRequest(token));
+
+        when(revocationCache.contains(jti)).thenReturn(true);
+        service.introspect(new IntrospectionRequest(token));
+
+        verify(validator, times(2)).introspect(any(ParsedToken.class));
+    }
+
+    @Test
+    @DisplayName("Batch introspection keeps request order and reuses cached results")
+    void batchKeepsOrderAndUsesCache() throws Exception {
+        UUID cachedJti = UUID.randomUUID();
+        UUID freshJti = UUID.randomUUID();
+        String cached = token(cachedJti);
+        String fresh = token(freshJti);
+        service.introspect(new IntrospectionRequest(cached));
+
+        List<IntrospectionResponse> results = service.introspectBatch(Arrays.asList(fresh, "", cached, "not-a-jwt"));
+
+        assertEquals(4, results.size());
+        assertEquals(freshJti.toString(), results.get(0).getJti());
+        assertFalse(results.get(1).isActive());
+        assertEquals(cachedJti.toString(), results.get(2).getJti());
+        assertFalse(results.get(3).isActive());
+        verify(validator).introspectAll(argThat(tokens -> tokens.size() == 1 && freshJti.equals(tokens.get(0).getJti())));
+    }
+
+    static String token(UUID jti) throws Exception {
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256),
+                new JWTClaimsSet.Builder()
+                        .issuer(ISSUER)
+                        .subject("testuser")
+                        .jwtID(jti.toString())
+                        .expirationTime(new Date(System.currentTimeMillis() + 600_000))
+                        .build());
+        jwt.sign(new MACSigner(new byte[32]));
+        return jwt.serialize();
+    }
+
+    private static IntrospectionResponse activeFor(ParsedToken token) {
+        IntrospectionResponse response = IntrospectionResponse.active();
+        response.setIss(token.getClaims().getIssuer());
+        response.setSub(token.getClaims().getSubject());
+        response.setJti(token.getJti().toString());
+        response.setExp(Instant.now().getEpochSecond() + 600);
+        return response;
+    }
+}
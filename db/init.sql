@@ -10,6 +10,20 @@ CREATE TABLE IF NOT EXISTS custom_jwt.denylist (
 );
 CREATE INDEX IF NOT EXISTS idx_custom_jwt_denylist_exp ON custom_jwt.denylist (expires_at);
 
+-- Broadcast every revocation to TIM nodes keeping a local revocation cache (LISTEN custom_jwt_denylist).
+-- Payload: "<jwt_uuid>:<expires_at as epoch seconds>"; delivered only when the inserting transaction commits.
+CREATE OR REPLACE FUNCTION custom_jwt.notify_denylist_insert() RETURNS trigger AS $$
+BEGIN
+  PERFORM pg_notify('custom_jwt_denylist', NEW.jwt_uuid::text || ':' || extract(epoch from NEW.expires_at)::bigint);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_custom_jwt_denylist_notify ON custom_jwt.denylist;
+CREATE TRIGGER trg_custom_jwt_denylist_notify
+  AFTER INSERT ON custom_jwt.denylist
+  FOR EACH ROW EXECUTE FUNCTION custom_jwt.notify_denylist_insert();
+
 CREATE TABLE IF NOT EXISTS custom_jwt.jwt_metadata (
   id uuid PRIMARY KEY DEFAULT gen_random_uuid(),
   jwt_uuid uuid NOT NULL,
@@ -26,6 +40,13 @@ CREATE TABLE IF NOT EXISTS custom_jwt.jwt_metadata (
 );
 CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_subject ON custom_jwt.jwt_metadata (subject);
 CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_issued ON custom_jwt.jwt_metadata (issued_at);
+-- Keyset pagination of /jwt/custom/list/me: WHERE subject = ? AND (issued_at, id) < (?, ?) ORDER BY issued_at DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_subject_keyset ON custom_jwt.jwt_metadata (subject, issued_at DESC, id DESC);
+-- Token list filters (see CustomJwtMetadataJdbcRepo): name filters and expiry ranges/status within a subject
+CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_subject_name ON custom_jwt.jwt_metadata (subject, jwt_name, issued_at DESC, id DESC) WHERE jwt_name IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_subject_expires ON custom_jwt.jwt_metadata (subject, expires_at);
+-- Export of an issuer's tokens (POST /jwt/custom/export), streamed in the same order as the listing
+CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_issuer ON custom_jwt.jwt_metadata (issuer, issued_at DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_jwt_uuid ON custom_jwt.jwt_metadata (jwt_uuid, created_at DESC);
 CREATE INDEX IF NOT EXISTS idx_custom_jwt_metadata_original ON custom_jwt.jwt_metadata (original_jwt_uuid);
 
@@ -51,3 +72,26 @@ CREATE TABLE IF NOT EXISTS auth.oauth_state (
   created_at timestamp NOT NULL DEFAULT now(),
   pkce_verifier text
 );
+-- Columns for the shared OAuth2 state store (oauth2.state.store=postgres)
+ALTER TABLE auth.oauth_state ADD COLUMN IF NOT EXISTS expires_at timestamp;
+ALTER TABLE auth.oauth_state ADD COLUMN IF NOT EXISTS provider_id text;
+ALTER TABLE auth.oauth_state ADD COLUMN IF NOT EXISTS nonce text;
+ALTER TABLE auth.oauth_state ADD COLUMN IF NOT EXISTS redirect_uri text;
+CREATE INDEX IF NOT EXISTS idx_auth_oauth_state_expires ON auth.oauth_state (expires_at);
+CREATE INDEX IF NOT EXISTS idx_auth_oauth_state_created ON auth.oauth_state (created_at);
+
+-- Shared session store (oauth2.session.store=postgres)
+CREATE TABLE IF NOT EXISTS auth.oauth_session (
+  session_id text PRIMARY KEY,
+  user_id text NOT NULL,
+  provider_id text NOT NULL,
+  status text NOT NULL,
+  created_at timestamp NOT NULL,
+  last_activity timestamp NOT NULL,
+  expires_at timestamp NOT NULL,
+  data jsonb NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_auth_oauth_session_expires ON auth.oauth_session (expires_at);
+CREATE INDEX IF NOT EXISTS idx_auth_oauth_session_user ON auth.oauth_session (user_id);
+-- Provider tokens are no longer persisted; drop any written by earlier versions
+UPDATE auth.oauth_session SET data = data - 'tokens' WHERE data ? 'tokens';